@@ -19,8 +19,12 @@ import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
 
+import static java.lang.System.lineSeparator;
+
 
 /**
  * A method logger is an adapter for the method logging extension which provides access to an
@@ -51,6 +55,86 @@ public interface MethodLogger
   void log(@NotNull Level level, String message);
 
 
+  /**
+   * Log a message with a specific level to the underlying logging framework.
+   * <p>
+   * The message content is only valid for the duration of this call, as the method logging
+   * extension reuses the underlying buffer for subsequent messages. Implementations must either
+   * copy or fully process the content before returning.
+   * <p>
+   * The default implementation logs {@code message.toString()}. Implementations should override
+   * this method if the underlying logging framework is able to log character sequences without
+   * creating a string.
+   *
+   * @param level    logging level, not {@code null}
+   * @param message  message to log
+   *
+   * @since 0.4.4
+   */
+  default void log(@NotNull Level level, CharSequence message) {
+    log(level, message == null ? null : message.toString());
+  }
+
+
+  /**
+   * Log a message with a specific level and an optional throwable to the underlying logging
+   * framework.
+   * <p>
+   * The default implementation appends the stack trace of {@code throwable} to the message.
+   * Implementations should override this method if the underlying logging framework is able to log
+   * throwables.
+   *
+   * @param level      logging level, not {@code null}
+   * @param message    message to log
+   * @param throwable  throwable to log along with the message or {@code null}
+   *
+   * @since 0.4.4
+   */
+  default void log(@NotNull Level level, String message, Throwable throwable)
+  {
+    if (throwable != null)
+    {
+      final StringWriter stackTrace = new StringWriter();
+      throwable.printStackTrace(new PrintWriter(stackTrace));
+
+      message = message + lineSeparator() + stackTrace;
+    }
+
+    log(level, message);
+  }
+
+
+  /**
+   * Log a message with a specific level, an optional throwable and the location of the logged
+   * method to the underlying logging framework.
+   * <p>
+   * The location is precomputed by the method logging extension and reports the logged method
+   * instead of the proxy or interceptor invoking the logger. Implementations should override this
+   * method if the underlying logging framework accepts a caller location, so the framework does not
+   * need to walk the stack in order to determine the caller. The location's line number is
+   * negative if line numbers are hidden for the logged method.
+   * <p>
+   * The default implementation ignores {@code location}.
+   *
+   * @param level      logging level, not {@code null}
+   * @param message    message to log
+   * @param throwable  throwable to log along with the message or {@code null}
+   * @param location   location of the logged method or {@code null} if unknown
+   *
+   * @see #log(Level, CharSequence)
+   *
+   * @since 0.4.4
+   */
+  default void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                   StackTraceElement location)
+  {
+    if (throwable == null)
+      log(level, message);
+    else
+      log(level, message == null ? null : message.toString(), throwable);
+  }
+
+
   /**
    * Checks whether logging for messages with {@code level} is enabled.
    *
@@ -43,6 +43,10 @@ public interface MethodLoggerFactory
    * <p>
    * This method is invoked every time a method requires logging. In order to reduce performance
    * overhead, the factory may return cached method loggers.
+   * <p>
+   * Method loggers returned by an {@link AbstractMethodLoggerFactory} for a
+   * {@link AbstractMethodLoggerFactory#isTypeLogger(Field) type logger} are bound to the logged
+   * method on its first invocation. For those, this method is not invoked again.
    *
    * @param loggerField  logger field or {@code null} if no logger field was found
    * @param obj          spring bean to create a method logger for, not {@code null}
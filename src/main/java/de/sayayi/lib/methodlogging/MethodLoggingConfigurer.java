@@ -23,12 +23,17 @@ import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility;
 import de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig;
 import de.sayayi.lib.methodlogging.annotation.ParamLog;
+import de.sayayi.lib.methodlogging.appender.ParameterAppenders;
+import de.sayayi.lib.methodlogging.journal.InvocationJournal;
 import de.sayayi.lib.methodlogging.logger.JCLLoggerFactory;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.ResolvableType;
 
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+
 
 /**
  * Interface to be implemented by @{@link Configuration} classes annotated with
@@ -107,6 +112,91 @@ public interface MethodLoggingConfigurer
   }
 
 
+  /**
+   * Returns the default limits for rendering parameter values and method results. Limits can be
+   * overridden per class, method and parameter.
+   *
+   * @return  default render limits, never {@code null}
+   *
+   * @see MethodLoggingConfig#rendering()
+   * @see MethodLogging#maxLength()
+   * @see ParamLog#maxElements()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull RenderLimits defaultRenderLimits() {
+    return RenderLimits.DEFAULT;
+  }
+
+
+  /**
+   * Returns the appender for method parameters or results of the given type. The appender is
+   * bound to the parameter or result once, when the logged method is analysed, so the message
+   * context does not need to look up a formatter for each logged value.
+   * <p>
+   * This method is queried for included method parameters without a custom format and for results
+   * with the default result format only. The default implementation returns {@code null}, so
+   * values are formatted using the message context as before. Built-in appenders are enabled by
+   * returning {@link ParameterAppenders#forType(ResolvableType, RenderLimits)}. Note that the
+   * built-in appenders render values differently from the message context, eg. arrays and
+   * collections are rendered element by element within the render limits.
+   *
+   * @param type    method parameter or return type
+   * @param limits  render limits for the parameter or result, not {@code null}
+   *
+   * @return  parameter appender or {@code null} to format the value using the message context
+   *
+   * @see ParameterAppenders#forType(ResolvableType, RenderLimits)
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default ParameterAppender parameterAppender(@NotNull ResolvableType type,
+                                              @NotNull RenderLimits limits) {
+    return null;
+  }
+
+
+  /**
+   * Returns the maximum time in milliseconds formatting a single parameter value or method result
+   * may take.
+   * <p>
+   * If formatting a parameter value takes longer, or fails with an exception, formatting for that
+   * method parameter is disabled for {@link #parameterFormattingCooldown()} milliseconds. In the
+   * meantime, its values are logged as {@code <Type@hash, formatting disabled>}. Method results
+   * are guarded the same way, per method. Disabling formatting is reported with the entry/exit
+   * level of the method.
+   * <p>
+   * Exceptions thrown while formatting a parameter value or result never propagate, regardless of
+   * the budget.
+   *
+   * @return  formatting budget in milliseconds or {@code 0} if formatting time is not measured
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default long parameterFormattingBudget() {
+    return 0;
+  }
+
+
+  /**
+   * Returns the time in milliseconds formatting for a method parameter is disabled after it has
+   * exceeded its budget or failed.
+   *
+   * @return  cool-down time in milliseconds
+   *
+   * @see #parameterFormattingBudget()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default long parameterFormattingCooldown() {
+    return 60000;
+  }
+
+
   /**
    * @since 0.2.1
    */
@@ -134,6 +224,27 @@ public interface MethodLoggingConfigurer
   }
 
 
+  /**
+   * Returns the minimum logging level. Methods whose entry/exit, parameter and result levels are
+   * all below the minimum level are not advised at all: they are invoked without any method
+   * logging overhead and classes without any advised method are not proxied.
+   * <p>
+   * As these methods are not advised, their levels cannot be raised at runtime and they are not
+   * journaled, flight recorded or included in statistics. Methods creating a tracing span are
+   * always advised.
+   *
+   * @return  minimum logging level, not {@link Level#DEFAULT}
+   *
+   * @see MethodLogging#span()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull Level minimumLevel() {
+    return Level.TRACE;
+  }
+
+
   /**
    * @since 0.2.1
    */
@@ -141,4 +252,341 @@ public interface MethodLoggingConfigurer
   default Visibility defaultLineNumber() {
     return Visibility.SHOW;
   }
+
+
+  /**
+   * Returns the maximum number of threads used to analyse logged methods at application context
+   * startup.
+   * <p>
+   * After all singletons have been instantiated, the logged methods of all advised singleton
+   * beans are analysed and their messages are compiled in parallel, so the first invocations do
+   * not pay for it. Methods of other beans are analysed on their first invocation.
+   * <p>
+   * Configurer methods invoked during analysis, like
+   * {@link #excludeMethodParameter(ResolvableType)}, must be thread-safe.
+   *
+   * @return  number of analysis threads or {@code 0} to analyse all methods on their first
+   *          invocation
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default int analysisParallelism() {
+    return Math.min(Runtime.getRuntime().availableProcessors(), 4);
+  }
+
+
+  /**
+   * Returns the maximum number of method definitions to cache. If the cache exceeds this size,
+   * method definitions which have not been used recently are evicted and analysed again on their
+   * next invocation.
+   *
+   * @return  maximum number of cached method definitions or {@code 0} for no limit
+   *
+   * @see MethodLoggingControl#getCacheFootprint()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default int methodDefinitionCacheSize() {
+    return 0;
+  }
+
+
+  /**
+   * Returns the file to persist the results of class file analysis to, so they can be reused
+   * after a restart. This covers the source file and line numbers of logged methods as well as
+   * their parameter names.
+   * <p>
+   * Entries are keyed by class name and a hash of the class bytes. Entries of classes which have
+   * changed since the file was written are ignored and replaced. The file is written after all
+   * singletons have been instantiated and again on shutdown, if new classes have been analysed.
+   *
+   * @return  analysis cache file or {@code null} if analysis results are not to be persisted
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default Path analysisCacheFile() {
+    return null;
+  }
+
+
+  /**
+   * Returns how nested method logging calls are presented.
+   * <p>
+   * Nested calls are invocations of {@link MethodLogging} annotated methods on the same thread,
+   * which take place while another annotated method has not yet returned.
+   *
+   * @return  call nesting mode, never {@code null}
+   *
+   * @see CallNesting
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull CallNesting callNesting() {
+    return CallNesting.FLAT;
+  }
+
+
+  /**
+   * Returns the maximum number of nested method logging calls to be logged. Methods invoked at a
+   * deeper nesting level are not logged at all.
+   *
+   * @return  maximum call depth or {@code 0} for no limit
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default int maxCallDepth() {
+    return 0;
+  }
+
+
+  /**
+   * Tells whether the time and memory spent on logging is to be measured for each method.
+   * <p>
+   * Collecting statistics adds overhead to each logged method invocation. It can be switched on
+   * and off at runtime using {@link MethodLoggingControl#setStatisticsEnabled(boolean)}.
+   *
+   * @return  {@code true} if statistics are collected from startup, {@code false} otherwise
+   *
+   * @see MethodLoggingControl#getStatistics()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default boolean collectStatistics() {
+    return false;
+  }
+
+
+  /**
+   * Returns the JMX object name to register the {@link MethodLoggingControl} with the platform
+   * MBean server, eg. {@code de.sayayi.lib.methodlogging:type=MethodLogging}.
+   * <p>
+   * If multiple application contexts with method logging enabled exist in the same JVM, each
+   * context must provide a unique object name.
+   *
+   * @return  JMX object name or {@code null} if method logging control is not to be registered
+   *          with the platform MBean server
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default String jmxObjectName() {
+    return null;
+  }
+
+
+  /**
+   * Returns how exceptions of the given type are reported in the exit line of the method from
+   * which the exception was thrown first.
+   * <p>
+   * If an exception propagates through nested logged methods, it is reported in detail for the
+   * innermost method only. The exit lines of the outer methods only contain a short reference to
+   * the exception, eg. {@code -> IllegalStateException (propagated)}.
+   * <p>
+   * The returned policy is cached for each exception type.
+   *
+   * @param exceptionType  exception type, not {@code null}
+   *
+   * @return  exception policy, never {@code null}
+   *
+   * @see #stackTraceLevel()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull ExceptionPolicy exceptionPolicy(
+      @SuppressWarnings("unused") @NotNull Class<? extends Throwable> exceptionType) {
+    return ExceptionPolicy.MESSAGE;
+  }
+
+
+  /**
+   * Returns the level which must be enabled for the method logger in order to log the stack trace
+   * of exceptions with policy {@link ExceptionPolicy#STACK_TRACE STACK_TRACE}. The stack trace is
+   * attached to the method exit line.
+   *
+   * @return  stack trace level, never {@code null}
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull Level stackTraceLevel() {
+    return Level.DEBUG;
+  }
+
+
+  /**
+   * Returns the maximum number of exceptions of the same type reported in detail for a method
+   * within a second. Exceeding exceptions are reported by name only, eg.
+   * {@code -> IllegalStateException (rate limited)}. The next detailed report contains the number
+   * of suppressed exceptions.
+   *
+   * @return  maximum number of detailed exception reports per method and second or {@code 0} for
+   *          no limit
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default int exceptionRateLimit() {
+    return 0;
+  }
+
+
+  /**
+   * Returns the binary journal to record all logged method invocations to.
+   * <p>
+   * Invocations are recorded regardless of the logging level of the method logger and in
+   * addition to regular method logging. The parameters of a method are recorded unless they are
+   * hidden or excluded from logging. For methods returning a future, the end time is the time the
+   * method returned the future.
+   * <p>
+   * The journal is not closed by method logging. Exposing it as a bean lets the application
+   * context close it on shutdown.
+   *
+   * @return  invocation journal or {@code null} if invocations are not to be recorded
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default InvocationJournal invocationJournal() {
+    return null;
+  }
+
+
+  /**
+   * Returns the number of method logging events to keep in the flight recorder of each thread.
+   * <p>
+   * If the flight recorder is enabled, method entry, result and exit events are not logged
+   * immediately. Instead, they are recorded unformatted into a per thread ring buffer, regardless
+   * of the logging levels of the method logger. The recorded events are logged, with level
+   * {@link #flightRecorderLevel()}, only when the outermost logged method invocation on a thread
+   * returns and {@link #flightRecorderTrigger(Method, Throwable, long)} fires. The outermost
+   * logged method invocation marks the request boundary: the ring buffer is cleared as soon as it
+   * returns.
+   * <p>
+   * For methods returning a future, the result and exit events are recorded when the method
+   * returns the future. Arguments and results are recorded by reference; their state at the time
+   * they are logged is reported.
+   *
+   * @return  number of events per thread or {@code 0} if the flight recorder is disabled
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default int flightRecorderSize() {
+    return 0;
+  }
+
+
+  /**
+   * Returns the level with which events recorded by the flight recorder are logged.
+   *
+   * @return  flight recorder level, never {@code null}
+   *
+   * @see #flightRecorderSize()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default @NotNull Level flightRecorderLevel() {
+    return Level.INFO;
+  }
+
+
+  /**
+   * Tells whether the events recorded by the flight recorder must be logged. This method is
+   * invoked each time the outermost logged method invocation on a thread returns.
+   * <p>
+   * By default, recorded events are logged if an exception escapes the outermost method.
+   *
+   * @param method         outermost method, not {@code null}
+   * @param throwable      exception thrown by the method or {@code null}
+   * @param elapsedMillis  time spent in the method in milliseconds
+   *
+   * @return  {@code true} if the recorded events must be logged, {@code false} otherwise
+   *
+   * @see #flightRecorderSize()
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default boolean flightRecorderTrigger(@NotNull Method method, Throwable throwable,
+                                        long elapsedMillis) {
+    return throwable != null;
+  }
+
+
+  /**
+   * Returns the maximum time in milliseconds for which repeated identical invocations of a method
+   * are collapsed.
+   * <p>
+   * An invocation is identical to the previously logged invocation of the same method on the same
+   * thread if its entry line, in-method parameters, result line and exit line are equal. Identical
+   * invocations are not logged but counted instead. As soon as a different invocation of the
+   * method is logged, an identical invocation occurs after the given time has passed or the
+   * outermost logged invocation on the thread returns, the count is logged as
+   * "last message repeated N times". Invocations throwing an exception and invocations with
+   * asynchronous or stream results are never collapsed.
+   *
+   * @return  time in milliseconds or {@code 0} to log all invocations
+   *
+   * @since 0.4.4
+   */
+  @Contract(pure = true)
+  default long collapseRepeatedInvocations() {
+    return 0;
+  }
+
+
+
+
+  /**
+   * Call nesting mode.
+   *
+   * @since 0.4.4
+   */
+  enum CallNesting
+  {
+    /** Log nested method calls without any indication of the nesting level. */
+    FLAT,
+
+    /** Indent all lines logged for a method by its nesting level. */
+    INDENT,
+
+    /**
+     * Only the outermost method call is logged. Its exit line contains a summary of all nested
+     * method calls with their elapsed time, eg.:
+     * <pre>
+     *   &lt; process (elapsed 120ms) {load 40ms, save {validate 5ms} 60ms}
+     * </pre>
+     */
+    COLLAPSE
+  }
+
+
+
+  /**
+   * Exception reporting policy.
+   *
+   * @since 0.4.4
+   */
+  enum ExceptionPolicy
+  {
+    /** Report the exception by its simple class name only. */
+    NAME,
+
+    /** Report the exception by its simple class name and localized message. */
+    MESSAGE,
+
+    /**
+     * Report the exception by its simple class name and localized message. The stack trace is
+     * logged as well, if logging is enabled for the {@link #stackTraceLevel() stack trace level}.
+     */
+    STACK_TRACE
+  }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging;
+
+import de.sayayi.lib.methodlogging.annotation.MethodLogging;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.MXBean;
+import java.util.List;
+
+
+/**
+ * Runtime control of method logging.
+ * <p>
+ * An instance of this interface is available as a spring bean as soon as method logging has been
+ * enabled. If {@link MethodLoggingConfigurer#jmxObjectName()} provides an object name, it is
+ * registered with the platform MBean server as well.
+ * <p>
+ * Reconfiguration methods take a {@code target} which selects the methods to be reconfigured:
+ * <ul>
+ *   <li>{@code *} selects all methods</li>
+ *   <li>{@code com.example.MyBean} selects all methods of class {@code MyBean}</li>
+ *   <li>{@code com.example.MyBean#find} selects all methods named {@code find} in class
+ *     {@code MyBean}</li>
+ *   <li>{@code com.example.MyBean#find(String,int)} selects a single method in class
+ *     {@code MyBean}</li>
+ * </ul>
+ * Only methods which have been analysed (see {@link #getMethods()}) can be reconfigured.
+ * Changes are not persistent and do not survive an application restart.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@MXBean
+public interface MethodLoggingControl
+{
+  /**
+   * Tells whether method logging is enabled.
+   *
+   * @return  {@code true} if method logging is enabled, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean isEnabled();
+
+
+  /**
+   * Enable or disable method logging for all methods. If disabled, annotated methods are invoked
+   * without any logging overhead apart from the proxy invocation itself.
+   *
+   * @param enabled  {@code true} to enable method logging, {@code false} to disable it
+   */
+  void setEnabled(boolean enabled);
+
+
+  /**
+   * Returns a description of all analysed methods with their current configuration.
+   *
+   * @return  list of method descriptions, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull List<String> getMethods();
+
+
+  /**
+   * Change the entry/exit logging level for all methods matching {@code target}.
+   *
+   * @param target  target class/method, not {@code null}
+   * @param level   new entry/exit level, not {@code null} or {@link Level#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#entryExitLevel()
+   */
+  int setEntryExitLevel(@NotNull String target, @NotNull Level level);
+
+
+  /**
+   * Change the parameter logging level for all methods matching {@code target}.
+   *
+   * @param target  target class/method, not {@code null}
+   * @param level   new parameter level, not {@code null} or {@link Level#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#parameterLevel()
+   */
+  int setParameterLevel(@NotNull String target, @NotNull Level level);
+
+
+  /**
+   * Change the result logging level for all methods matching {@code target}.
+   *
+   * @param target  target class/method, not {@code null}
+   * @param level   new result level, not {@code null} or {@link Level#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#resultLevel()
+   */
+  int setResultLevel(@NotNull String target, @NotNull Level level);
+
+
+  /**
+   * Change the parameter visibility for all methods matching {@code target}.
+   *
+   * @param target      target class/method, not {@code null}
+   * @param visibility  new parameter visibility, not {@code null} or {@link Visibility#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#parameters()
+   */
+  int setParameters(@NotNull String target, @NotNull Visibility visibility);
+
+
+  /**
+   * Change the result visibility for all methods matching {@code target}.
+   *
+   * @param target      target class/method, not {@code null}
+   * @param visibility  new result visibility, not {@code null} or {@link Visibility#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#result()
+   */
+  int setResult(@NotNull String target, @NotNull Visibility visibility);
+
+
+  /**
+   * Change the elapsed time visibility for all methods matching {@code target}.
+   *
+   * @param target      target class/method, not {@code null}
+   * @param visibility  new elapsed time visibility, not {@code null} or
+   *                    {@link Visibility#DEFAULT}
+   *
+   * @return  number of reconfigured methods
+   *
+   * @see MethodLogging#elapsedTime()
+   */
+  int setElapsedTime(@NotNull String target, @NotNull Visibility visibility);
+
+
+  /**
+   * Tells whether the time and memory spent on logging is measured.
+   *
+   * @return  {@code true} if statistics are collected, {@code false} otherwise
+   *
+   * @see MethodLoggingConfigurer#collectStatistics()
+   */
+  @Contract(pure = true)
+  boolean isStatisticsEnabled();
+
+
+  /**
+   * Start or stop measuring the time and memory spent on logging.
+   *
+   * @param statisticsEnabled  {@code true} to collect statistics, {@code false} to stop collecting
+   *                           statistics
+   */
+  void setStatisticsEnabled(boolean statisticsEnabled);
+
+
+  /**
+   * Returns the logging statistics for all methods, ordered by descending logging time.
+   *
+   * @return  list of method statistics, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull List<MethodLoggingStatistics> getStatistics();
+
+
+  /**
+   * Returns the logging statistics accumulated over all methods.
+   *
+   * @return  total statistics with method {@code *}, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull MethodLoggingStatistics getTotalStatistics();
+
+
+  /**
+   * Returns the logging statistics for the methods with the highest logging time.
+   *
+   * @param count  maximum number of methods to return
+   *
+   * @return  list of method statistics, never {@code null}
+   */
+  @Contract(value = "_ -> new", pure = true)
+  @NotNull List<MethodLoggingStatistics> getTopOffenders(int count);
+
+
+  /**
+   * Reset the logging statistics for all methods.
+   */
+  void resetStatistics();
+
+
+  /**
+   * Revert all runtime changes for the methods matching {@code target}. The configuration for
+   * these methods is taken from their annotations again.
+   *
+   * @param target  target class/method, not {@code null}
+   *
+   * @return  number of reverted methods
+   */
+  int reset(@NotNull String target);
+
+
+  /**
+   * Returns a summary of the method definition cache, eg.
+   * {@code classes=12, entries=40, methodDefinitions=35, parameterDefinitions=61,
+   * estimatedBytes=21480}. The memory footprint is a rough estimate, excluding compiled messages.
+   *
+   * @return  method definition cache summary, never {@code null}
+   *
+   * @see MethodLoggingConfigurer#methodDefinitionCacheSize()
+   */
+  @Contract(pure = true)
+  @NotNull String getCacheFootprint();
+}
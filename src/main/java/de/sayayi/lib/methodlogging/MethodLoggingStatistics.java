@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.ConstructorProperties;
+
+
+/**
+ * Snapshot of the time and memory spent on logging a method, compared to the time spent in the
+ * method itself.
+ * <p>
+ * All times are in nanoseconds and are accumulated over all logged invocations of the method.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see MethodLoggingControl#getStatistics()
+ */
+public final class MethodLoggingStatistics
+{
+  private final @NotNull String method;
+  private final long invocations;
+  private final long entryTime;
+  private final long resultTime;
+  private final long exitTime;
+  private final long proceedTime;
+  private final long allocatedBytes;
+
+
+  @ConstructorProperties({ "method", "invocations", "entryTime", "resultTime", "exitTime",
+                           "proceedTime", "allocatedBytes" })
+  public MethodLoggingStatistics(@NotNull String method, long invocations, long entryTime,
+                                 long resultTime, long exitTime, long proceedTime,
+                                 long allocatedBytes)
+  {
+    this.method = method;
+    this.invocations = invocations;
+    this.entryTime = entryTime;
+    this.resultTime = resultTime;
+    this.exitTime = exitTime;
+    this.proceedTime = proceedTime;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+
+  /**
+   * Returns the method, eg. {@code com.example.MyBean#find(String,int)}.
+   *
+   * @return  method, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull String getMethod() {
+    return method;
+  }
+
+
+  /**
+   * Returns the number of logged method invocations.
+   *
+   * @return  number of logged method invocations
+   */
+  @Contract(pure = true)
+  public long getInvocations() {
+    return invocations;
+  }
+
+
+  /**
+   * Returns the time spent on logging the method entry and parameters.
+   *
+   * @return  method entry logging time in nanoseconds
+   */
+  @Contract(pure = true)
+  public long getEntryTime() {
+    return entryTime;
+  }
+
+
+  /**
+   * Returns the time spent on logging the method result.
+   *
+   * @return  result logging time in nanoseconds
+   */
+  @Contract(pure = true)
+  public long getResultTime() {
+    return resultTime;
+  }
+
+
+  /**
+   * Returns the time spent on logging the method exit.
+   *
+   * @return  method exit logging time in nanoseconds
+   */
+  @Contract(pure = true)
+  public long getExitTime() {
+    return exitTime;
+  }
+
+
+  /**
+   * Returns the time spent in the method itself.
+   *
+   * @return  method time in nanoseconds
+   */
+  @Contract(pure = true)
+  public long getProceedTime() {
+    return proceedTime;
+  }
+
+
+  /**
+   * Returns the number of bytes allocated by logging the method.
+   *
+   * @return  allocated bytes or {@code -1} if the JVM does not support measuring thread
+   *          allocations
+   */
+  @Contract(pure = true)
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+
+  /**
+   * Returns the total time spent on logging the method.
+   *
+   * @return  logging time in nanoseconds
+   */
+  @Contract(pure = true)
+  public long getLoggingTime() {
+    return entryTime + resultTime + exitTime;
+  }
+
+
+  /**
+   * Returns the fraction of the total invocation time which was spent on logging.
+   *
+   * @return  logging overhead in the range {@code 0.0} to {@code 1.0}
+   */
+  @Contract(pure = true)
+  public double getLoggingOverhead()
+  {
+    final long loggingTime = getLoggingTime();
+    final long totalTime = loggingTime + proceedTime;
+
+    return totalTime == 0 ? 0.0 : (double)loggingTime / totalTime;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return method + "[invocations=" + invocations + ",loggingTime=" + getLoggingTime() +
+        "ns,proceedTime=" + proceedTime + "ns,allocatedBytes=" + allocatedBytes + ']';
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging;
+
+import de.sayayi.lib.methodlogging.annotation.ParamLog;
+import de.sayayi.lib.methodlogging.appender.ParameterAppenders;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.ResolvableType;
+
+
+/**
+ * A parameter appender renders a method parameter value directly into the log line, bypassing
+ * the formatter lookup of the message context.
+ * <p>
+ * Parameter appenders are bound to a method parameter once, based on its declared type, when the
+ * logged method is analysed. They are used for parameters without a custom
+ * {@link ParamLog#format() format} and method results with the default result format only.
+ * {@code null} values are always formatted by the message context.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see MethodLoggingConfigurer#parameterAppender(ResolvableType, RenderLimits)
+ * @see ParameterAppenders
+ */
+@FunctionalInterface
+public interface ParameterAppender
+{
+  /**
+   * Appends the string representation of a parameter value.
+   * <p>
+   * Implementations must be thread-safe.
+   *
+   * @param s      string builder to append the value to, not {@code null}
+   * @param value  parameter value, not {@code null}
+   */
+  void append(@NotNull StringBuilder s, @NotNull Object value);
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging;
+
+import de.sayayi.lib.methodlogging.annotation.MethodLogging;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering;
+import de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig;
+import de.sayayi.lib.methodlogging.annotation.ParamLog;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering.ELEMENTS;
+
+
+/**
+ * Limits applied when rendering a parameter value or method result.
+ * <p>
+ * Limits are bound to a parameter or result when the logged method is analysed. They are taken
+ * from {@link ParamLog}, {@link MethodLogging} and {@link MethodLoggingConfig}, in that order,
+ * falling back to {@link MethodLoggingConfigurer#defaultRenderLimits()}.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+public final class RenderLimits implements Serializable
+{
+  /**
+   * Default limits: containers render up to 16 elements, 2 levels deep, byte content is not
+   * rendered and the rendered size is unlimited.
+   */
+  public static final RenderLimits DEFAULT = new RenderLimits(ELEMENTS, 0, 16, 2, 0);
+
+  private final @NotNull Rendering rendering;
+  private final int maxLength;
+  private final int maxElements;
+  private final int maxDepth;
+  private final int maxBytes;
+
+
+  /**
+   * Create render limits.
+   *
+   * @param rendering    rendering of arrays, collections, maps and binary content,
+   *                     not {@link Rendering#DEFAULT}
+   * @param maxLength    maximum number of characters rendered for a single value or {@code 0} if
+   *                     unlimited
+   * @param maxElements  maximum number of array, collection or map elements rendered
+   * @param maxDepth     maximum nesting depth of containers rendered element by element
+   * @param maxBytes     maximum number of bytes rendered as hex for byte arrays and byte buffers
+   */
+  public RenderLimits(@NotNull Rendering rendering, int maxLength, int maxElements, int maxDepth,
+                      int maxBytes)
+  {
+    if (rendering == Rendering.DEFAULT)
+      throw new IllegalArgumentException("rendering must not be DEFAULT");
+    if (maxLength < 0 || maxElements < 0 || maxDepth < 0 || maxBytes < 0)
+      throw new IllegalArgumentException("limits must not be negative");
+
+    this.rendering = rendering;
+    this.maxLength = maxLength;
+    this.maxElements = maxElements;
+    this.maxDepth = maxDepth;
+    this.maxBytes = maxBytes;
+  }
+
+
+  @Contract(pure = true)
+  public @NotNull Rendering getRendering() {
+    return rendering;
+  }
+
+
+  /**
+   * Returns the maximum number of characters rendered for a single value. Rendering stops as soon
+   * as the limit is exceeded and the value is truncated, ending in {@code ...}.
+   *
+   * @return  maximum number of characters or {@code 0} if unlimited
+   */
+  @Contract(pure = true)
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+
+  /**
+   * Returns the maximum number of elements rendered for arrays, collections and maps. Remaining
+   * elements are reported as {@code +N more}.
+   *
+   * @return  maximum number of elements
+   */
+  @Contract(pure = true)
+  public int getMaxElements() {
+    return maxElements;
+  }
+
+
+  /**
+   * Returns the maximum nesting depth of arrays, collections and maps rendered element by
+   * element. Deeper nested containers are rendered in summary form.
+   *
+   * @return  maximum nesting depth, {@code 0} renders all containers in summary form
+   */
+  @Contract(pure = true)
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+
+  /**
+   * Returns the maximum number of bytes rendered as hex for byte arrays and byte buffers.
+   *
+   * @return  maximum number of bytes, {@code 0} renders the length only
+   */
+  @Contract(pure = true)
+  public int getMaxBytes() {
+    return maxBytes;
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof RenderLimits))
+      return false;
+
+    final RenderLimits that = (RenderLimits)o;
+
+    return rendering == that.rendering && maxLength == that.maxLength &&
+        maxElements == that.maxElements && maxDepth == that.maxDepth && maxBytes == that.maxBytes;
+  }
+
+
+  @Override
+  public int hashCode()
+  {
+    return
+        (((rendering.hashCode() * 31 + maxLength) * 31 + maxElements) * 31 + maxDepth) * 31 +
+        maxBytes;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "RenderLimits[rendering=" + rendering + ", maxLength=" + maxLength +
+        ", maxElements=" + maxElements + ", maxDepth=" + maxDepth + ", maxBytes=" + maxBytes + ']';
+  }
+}
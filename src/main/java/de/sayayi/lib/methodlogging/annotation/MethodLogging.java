@@ -16,6 +16,7 @@
 package de.sayayi.lib.methodlogging.annotation;
 
 import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
+import de.sayayi.lib.methodlogging.RenderLimits;
 import org.intellij.lang.annotations.Language;
 
 import java.lang.annotation.Retention;
@@ -76,6 +77,19 @@ public @interface MethodLogging
   Visibility elapsedTime() default Visibility.DEFAULT;
 
 
+  /**
+   * Indicate whether a tracing span is created for each method invocation. Spans are only created
+   * if the OpenTelemetry API is available and an {@code OpenTelemetry} bean is present.
+   *
+   * @return  {@link Visibility#SHOW} creates a span for each method invocation,
+   *          {@link Visibility#HIDE} does not create spans, {@link Visibility#DEFAULT} uses the
+   *          default setting from {@link MethodLoggingConfig#span()}
+   *
+   * @since 0.4.4
+   */
+  Visibility span() default Visibility.DEFAULT;
+
+
   Visibility parameters() default Visibility.DEFAULT;
 
 
@@ -103,6 +117,137 @@ public @interface MethodLogging
   Level resultLevel() default Level.DEFAULT;
 
 
+  /**
+   * SpEL expression deciding whether a method invocation is logged, eg. {@code #amount > 10000}.
+   * The expression is evaluated on method entry, before any message is formatted. The default is
+   * the condition provided by {@link MethodLoggingConfig#condition()}.
+   * <p>
+   * Method parameters are available as variables, by name ({@code #amount}) or by index
+   * ({@code #p0} or {@code #a0}). The root object provides {@code method}, {@code target} and
+   * {@code args}.
+   * <p>
+   * If the expression cannot be evaluated, the method invocation is logged.
+   *
+   * @return  condition expression or an empty string if all method invocations are logged
+   *
+   * @since 0.4.4
+   */
+  @Language("SpEL")
+  String condition() default "<DEFAULT>";
+
+
+  /**
+   * SpEL expression deciding, after the method has returned, whether a method invocation is
+   * logged, eg. {@code #result == null} or {@code #root.elapsedMs > 50}. The default is the result
+   * condition provided by {@link MethodLoggingConfig#resultCondition()}.
+   * <p>
+   * In addition to the variables available to {@link #condition()}, the expression has access to
+   * the variables {@code #result} and {@code #exception}. The root object additionally provides
+   * {@code result}, {@code exception} and {@code elapsedMs}.
+   * <p>
+   * If a result condition is present, the method entry is logged together with the method exit,
+   * after the method has returned. For methods returning a future, {@code #result} is the future
+   * itself.
+   *
+   * @return  result condition expression or an empty string if all method invocations are logged
+   *
+   * @since 0.4.4
+   */
+  @Language("SpEL")
+  String resultCondition() default "<DEFAULT>";
+
+
+  /**
+   * Rendering of arrays, collections, maps and binary content in parameters and the result. The
+   * default is the rendering provided by {@link MethodLoggingConfig#rendering()}.
+   *
+   * @return  rendering
+   *
+   * @since 0.4.4
+   */
+  Rendering rendering() default Rendering.DEFAULT;
+
+
+  /**
+   * Maximum number of characters rendered for a parameter value or the result, {@code 0} meaning
+   * unlimited. The default is the limit provided by {@link MethodLoggingConfig#maxLength()}.
+   *
+   * @return  maximum number of characters or {@code -1} for the default
+   *
+   * @see RenderLimits#getMaxLength()
+   *
+   * @since 0.4.4
+   */
+  int maxLength() default -1;
+
+
+  /**
+   * Maximum number of array, collection or map elements rendered. The default is the limit
+   * provided by {@link MethodLoggingConfig#maxElements()}.
+   *
+   * @return  maximum number of elements or {@code -1} for the default
+   *
+   * @see RenderLimits#getMaxElements()
+   *
+   * @since 0.4.4
+   */
+  int maxElements() default -1;
+
+
+  /**
+   * Maximum nesting depth of arrays, collections and maps rendered element by element. The
+   * default is the limit provided by {@link MethodLoggingConfig#maxDepth()}.
+   *
+   * @return  maximum nesting depth or {@code -1} for the default
+   *
+   * @see RenderLimits#getMaxDepth()
+   *
+   * @since 0.4.4
+   */
+  int maxDepth() default -1;
+
+
+  /**
+   * Maximum number of bytes rendered for byte arrays and byte buffers. The default is the limit
+   * provided by {@link MethodLoggingConfig#maxBytes()}.
+   *
+   * @return  maximum number of bytes or {@code -1} for the default
+   *
+   * @see RenderLimits#getMaxBytes()
+   *
+   * @since 0.4.4
+   */
+  int maxBytes() default -1;
+
+
+  /**
+   * Tells when parameters are rendered. Deferred parameters are not rendered on method entry but
+   * on method exit, and only if the method has thrown an exception or has exceeded the
+   * {@link #slowCallThreshold() slow call threshold}. The default is the mode provided by
+   * {@link MethodLoggingConfig#parameterMode()}.
+   *
+   * @return  parameter mode
+   *
+   * @see ParamLog#mode()
+   *
+   * @since 0.4.4
+   */
+  ParameterMode parameterMode() default ParameterMode.DEFAULT;
+
+
+  /**
+   * Elapsed time in milliseconds from which on deferred parameters are rendered on method exit.
+   * A threshold of {@code 0} renders deferred parameters only if the method has thrown an
+   * exception. The default is the threshold provided by
+   * {@link MethodLoggingConfig#slowCallThreshold()}.
+   *
+   * @return  slow call threshold in milliseconds or {@code -1} for the default
+   *
+   * @since 0.4.4
+   */
+  int slowCallThreshold() default -1;
+
+
   /**
    * Provides an array of parameter names that are to be excluded from method logging.
    */
@@ -140,4 +285,57 @@ public @interface MethodLogging
     /** Info log level */
     INFO
   }
+
+
+
+
+  /**
+   * Rendering of arrays, collections, maps and binary content.
+   *
+   * @since 0.4.4
+   */
+  enum Rendering
+  {
+    /** for internal use only */
+    DEFAULT,
+
+    /**
+     * Render elements, eg. {@code [1, 2, 3, +47 more]}. Byte arrays and byte buffers render up to
+     * {@link RenderLimits#getMaxBytes() maxBytes} bytes as hex, eg.
+     * {@code byte[50]{0a1b2c, +47 more}}.
+     */
+    ELEMENTS,
+
+    /** Render type and size only, eg. {@code List[size=50000]} or {@code byte[10485760]}. */
+    SUMMARY,
+
+    /**
+     * Render type and size only, like {@link #SUMMARY}. Byte arrays and byte buffers additionally
+     * render a fingerprint of their content, eg. {@code byte[10485760, crc32=1cb2e3f5]}.
+     */
+    FINGERPRINT
+  }
+
+
+
+
+  /**
+   * Moment at which parameters are rendered.
+   *
+   * @since 0.4.4
+   */
+  enum ParameterMode
+  {
+    /** for internal use only */
+    DEFAULT,
+
+    /** Render parameters on method entry. */
+    EAGER,
+
+    /**
+     * Keep references to the parameters on method entry and render them on method exit, if the
+     * method has thrown an exception or has been slow.
+     */
+    DEFERRED
+  }
 }
@@ -17,6 +17,8 @@ package de.sayayi.lib.methodlogging.annotation;
 
 import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.ParameterMode;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility;
 import org.intellij.lang.annotations.Language;
 
@@ -100,6 +102,19 @@ public @interface MethodLoggingConfig
   Visibility elapsedTime() default HIDE;
 
 
+  /**
+   * Indicate whether a tracing span is created for each method invocation.
+   *
+   * @return  {@link Visibility#SHOW} creates a span for each method invocation,
+   *          {@link Visibility#HIDE} (the default) does not create spans
+   *
+   * @see MethodLogging#span()
+   *
+   * @since 0.4.4
+   */
+  Visibility span() default HIDE;
+
+
   Visibility parameters() default SHOW;
 
 
@@ -125,4 +140,124 @@ public @interface MethodLoggingConfig
 
 
   Level resultLevel() default DEFAULT;
+
+
+  /**
+   * Default SpEL expression deciding whether a method invocation is logged.
+   *
+   * @return  condition expression or an empty string if all method invocations are logged
+   *
+   * @see MethodLogging#condition()
+   *
+   * @since 0.4.4
+   */
+  @Language("SpEL")
+  String condition() default "";
+
+
+  /**
+   * Default SpEL expression deciding, after the method has returned, whether a method invocation
+   * is logged.
+   *
+   * @return  result condition expression or an empty string if all method invocations are logged
+   *
+   * @see MethodLogging#resultCondition()
+   *
+   * @since 0.4.4
+   */
+  @Language("SpEL")
+  String resultCondition() default "";
+
+
+  /**
+   * Default moment at which parameters are rendered.
+   *
+   * @return  {@link ParameterMode#EAGER} (the default) renders parameters on method entry,
+   *          {@link ParameterMode#DEFERRED} renders parameters on method exit for failed or slow
+   *          invocations only
+   *
+   * @see MethodLogging#parameterMode()
+   *
+   * @since 0.4.4
+   */
+  ParameterMode parameterMode() default ParameterMode.EAGER;
+
+
+  /**
+   * Default elapsed time in milliseconds from which on deferred parameters are rendered on method
+   * exit.
+   *
+   * @return  slow call threshold in milliseconds, {@code 0} (the default) renders deferred
+   *          parameters only if the method has thrown an exception
+   *
+   * @see MethodLogging#slowCallThreshold()
+   *
+   * @since 0.4.4
+   */
+  int slowCallThreshold() default 0;
+
+
+  /**
+   * Default rendering of arrays, collections, maps and binary content.
+   *
+   * @return  rendering
+   *
+   * @see MethodLoggingConfigurer#defaultRenderLimits()
+   * @see MethodLogging#rendering()
+   *
+   * @since 0.4.4
+   */
+  Rendering rendering() default Rendering.DEFAULT;
+
+
+  /**
+   * Default maximum number of characters rendered for a parameter value or result.
+   *
+   * @return  maximum number of characters or {@code -1} for the default
+   *
+   * @see MethodLoggingConfigurer#defaultRenderLimits()
+   * @see MethodLogging#maxLength()
+   *
+   * @since 0.4.4
+   */
+  int maxLength() default -1;
+
+
+  /**
+   * Default maximum number of array, collection or map elements rendered.
+   *
+   * @return  maximum number of elements or {@code -1} for the default
+   *
+   * @see MethodLoggingConfigurer#defaultRenderLimits()
+   * @see MethodLogging#maxElements()
+   *
+   * @since 0.4.4
+   */
+  int maxElements() default -1;
+
+
+  /**
+   * Default maximum nesting depth of arrays, collections and maps rendered element by element.
+   *
+   * @return  maximum nesting depth or {@code -1} for the default
+   *
+   * @see MethodLoggingConfigurer#defaultRenderLimits()
+   * @see MethodLogging#maxDepth()
+   *
+   * @since 0.4.4
+   */
+  int maxDepth() default -1;
+
+
+  /**
+   * Default maximum number of bytes rendered for byte arrays and byte buffers.
+   *
+   * @return  maximum number of bytes or {@code -1} for the default
+   *
+   * @see MethodLoggingConfigurer#defaultRenderLimits()
+   * @see MethodLogging#maxBytes()
+   *
+   * @since 0.4.4
+   */
+  int maxBytes() default -1;
 }
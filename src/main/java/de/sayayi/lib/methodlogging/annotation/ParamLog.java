@@ -17,6 +17,8 @@ package de.sayayi.lib.methodlogging.annotation;
 
 import de.sayayi.lib.message.MessageFactory;
 import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.ParameterMode;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering;
 import org.intellij.lang.annotations.Language;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AliasFor;
@@ -78,4 +80,69 @@ public @interface ParamLog
    * where the class bytecode does not provide compiled-in parameter name information.
    */
   String name() default "";
+
+
+  /**
+   * Tells when this parameter is rendered. The default is the mode provided by
+   * {@link MethodLogging#parameterMode()}.
+   *
+   * @since 0.4.4
+   */
+  ParameterMode mode() default ParameterMode.DEFAULT;
+
+
+  /**
+   * Tells if a deferred parameter is copied on method entry. Arrays, collections and maps are
+   * copied shallowly and character sequences are converted to a string, so that the parameter is
+   * rendered as it was passed to the method, even if the method modifies it. By default, deferred
+   * parameters are rendered as they are on method exit.
+   *
+   * @since 0.4.4
+   */
+  boolean snapshot() default false;
+
+
+  /**
+   * Rendering of arrays, collections, maps and binary content for this parameter. The default is
+   * the rendering provided by {@link MethodLogging#rendering()}.
+   *
+   * @since 0.4.4
+   */
+  Rendering rendering() default Rendering.DEFAULT;
+
+
+  /**
+   * Maximum number of characters rendered for this parameter, {@code 0} meaning unlimited. The
+   * default ({@code -1}) is the limit provided by {@link MethodLogging#maxLength()}.
+   *
+   * @since 0.4.4
+   */
+  int maxLength() default -1;
+
+
+  /**
+   * Maximum number of array, collection or map elements rendered for this parameter. The default
+   * ({@code -1}) is the limit provided by {@link MethodLogging#maxElements()}.
+   *
+   * @since 0.4.4
+   */
+  int maxElements() default -1;
+
+
+  /**
+   * Maximum nesting depth of containers rendered element by element for this parameter. The
+   * default ({@code -1}) is the limit provided by {@link MethodLogging#maxDepth()}.
+   *
+   * @since 0.4.4
+   */
+  int maxDepth() default -1;
+
+
+  /**
+   * Maximum number of bytes rendered for this parameter, if it is a byte array or byte buffer. The
+   * default ({@code -1}) is the limit provided by {@link MethodLogging#maxBytes()}.
+   *
+   * @since 0.4.4
+   */
+  int maxBytes() default -1;
 }
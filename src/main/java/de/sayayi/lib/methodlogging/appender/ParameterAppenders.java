@@ -0,0 +1,436 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.appender;
+
+import de.sayayi.lib.methodlogging.ParameterAppender;
+import de.sayayi.lib.methodlogging.RenderLimits;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.ResolvableType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering.ELEMENTS;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering.FINGERPRINT;
+import static java.lang.reflect.Array.getLength;
+
+
+/**
+ * Built-in parameter appenders for arrays, collections, maps, byte buffers and common value
+ * types.
+ * <p>
+ * Value types are rendered using their {@code toString()} method. Arrays, collections, maps and
+ * binary content are rendered according to the {@link RenderLimits render limits} bound to the
+ * parameter or result, eg. {@code [1, 2, +48 more]} or {@code List[size=50]}. Rendering stops as
+ * soon as a limit is reached, so large values are never rendered completely.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+public final class ParameterAppenders
+{
+  private static final Set<Class<?>> VALUE_TYPES = new HashSet<>(Arrays.asList(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+      Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class,
+      Locale.class, Currency.class, Instant.class, Duration.class, Period.class, LocalDate.class,
+      LocalTime.class, LocalDateTime.class, OffsetDateTime.class, OffsetTime.class,
+      ZonedDateTime.class, ZoneId.class, ZoneOffset.class, Year.class, YearMonth.class));
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+
+  private ParameterAppenders() {
+  }
+
+
+  /**
+   * Returns the built-in appender for the given method parameter or return type.
+   *
+   * @param type    method parameter or return type, not {@code null}
+   * @param limits  render limits, not {@code null}
+   *
+   * @return  parameter appender or {@code null} if there's no built-in appender for the type
+   */
+  @Contract(pure = true)
+  public static ParameterAppender forType(@NotNull ResolvableType type,
+                                          @NotNull RenderLimits limits)
+  {
+    final Class<?> clazz = type.toClass();
+
+    if (clazz.isPrimitive() || clazz.isEnum() || VALUE_TYPES.contains(clazz))
+    {
+      return limits.getMaxLength() > 0 && clazz == String.class
+          ? new LimitedAppender(clazz.getSimpleName(), limits)
+          : ValueAppender.INSTANCE;
+    }
+
+    if (clazz.isArray() || Collection.class.isAssignableFrom(clazz) ||
+        Map.class.isAssignableFrom(clazz) || ByteBuffer.class.isAssignableFrom(clazz))
+      return new LimitedAppender(clazz.getSimpleName(), limits);
+
+    return null;
+  }
+
+
+
+
+  private enum ValueAppender implements ParameterAppender
+  {
+    INSTANCE;
+
+
+    @Override
+    public void append(@NotNull StringBuilder s, @NotNull Object value) {
+      s.append(value);
+    }
+  }
+
+
+
+
+  /**
+   * Appender rendering values according to render limits. Once the rendered value exceeds the
+   * maximum length, no more elements or characters are rendered and the value is truncated.
+   */
+  private static final class LimitedAppender implements ParameterAppender
+  {
+    private final @NotNull String typeName;
+    private final @NotNull RenderLimits limits;
+
+
+    private LimitedAppender(@NotNull String typeName, @NotNull RenderLimits limits)
+    {
+      this.typeName = typeName;
+      this.limits = limits;
+    }
+
+
+    @Override
+    public void append(@NotNull StringBuilder s, @NotNull Object value)
+    {
+      final int maxLength = limits.getMaxLength();
+      final int end = maxLength == 0 ? Integer.MAX_VALUE : s.length() + maxLength;
+
+      appendValue(s, value, typeName, end, 0);
+
+      if (s.length() > end)
+      {
+        s.setLength(end);
+        s.append("...");
+      }
+    }
+
+
+    private void appendValue(@NotNull StringBuilder s, Object value, String typeName, int end,
+                             int depth)
+    {
+      if (value instanceof CharSequence)
+      {
+        final CharSequence cs = (CharSequence)value;
+
+        // one character more than allowed, so the value gets truncated
+        s.append(cs, 0, (int)Math.min(cs.length(), (long)end - s.length() + 1));
+      }
+      else if (value instanceof byte[])
+        appendBinary(s.append("byte["), ByteBuffer.wrap((byte[])value), end);
+      else if (value instanceof ByteBuffer)
+        appendBinary(s.append("ByteBuffer[remaining="), (ByteBuffer)value, end);
+      else if (value == null)
+        s.append("null");
+      else if (value.getClass().isArray())
+        appendArray(s, value, end, depth);
+      else if (value instanceof Collection)
+        appendCollection(s, (Collection<?>)value, typeName, end, depth);
+      else if (value instanceof Map)
+        appendMap(s, (Map<?,?>)value, typeName, end, depth);
+      else
+        s.append(value);
+    }
+
+
+    private boolean renderElements(int depth)
+    {
+      return limits.getRendering() == ELEMENTS && depth < limits.getMaxDepth() &&
+          limits.getMaxElements() > 0;
+    }
+
+
+    private void appendBinary(@NotNull StringBuilder s, @NotNull ByteBuffer buffer, int end)
+    {
+      final int remaining = buffer.remaining();
+      final Rendering rendering = limits.getRendering();
+
+      s.append(remaining);
+
+      if (rendering == FINGERPRINT)
+      {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(buffer.duplicate());
+
+        appendHex(s.append(", crc32="), (int)crc32.getValue(), 8);
+      }
+
+      s.append(']');
+
+      final int bytes = Math.min(remaining, limits.getMaxBytes());
+
+      if (rendering == ELEMENTS && bytes > 0)
+      {
+        final int position = buffer.position();
+
+        s.append('{');
+
+        for(int n = 0; n < bytes && s.length() <= end; n++)
+          appendHex(s, buffer.get(position + n), 2);
+
+        if (remaining > bytes)
+          s.append(", +").append(remaining - bytes).append(" more");
+
+        s.append('}');
+      }
+    }
+
+
+    private void appendArray(@NotNull StringBuilder s, @NotNull Object array, int end, int depth)
+    {
+      final int length = getLength(array);
+
+      if (!renderElements(depth))
+      {
+        s.append(array.getClass().getComponentType().getSimpleName())
+         .append('[').append(length).append(']');
+        return;
+      }
+
+      final ArrayElement arrayElement = ArrayElement.forArray(array);
+      final int elements = Math.min(length, limits.getMaxElements());
+
+      s.append('[');
+
+      for(int n = 0; n < elements; n++)
+      {
+        if (n > 0)
+          s.append(", ");
+
+        if (arrayElement == null)
+          appendValue(s, ((Object[])array)[n], null, end, depth + 1);
+        else
+          arrayElement.append(s, array, n);
+
+        if (s.length() > end)
+          return;
+      }
+
+      if (length > elements)
+        s.append(", +").append(length - elements).append(" more");
+
+      s.append(']');
+    }
+
+
+    private void appendCollection(@NotNull StringBuilder s, @NotNull Collection<?> collection,
+                                  String typeName, int end, int depth)
+    {
+      final int size = collection.size();
+
+      if (!renderElements(depth))
+      {
+        s.append(typeName == null ? collection.getClass().getSimpleName() : typeName)
+         .append("[size=").append(size).append(']');
+        return;
+      }
+
+      final int elements = Math.min(size, limits.getMaxElements());
+      final Iterator<?> iterator = collection.iterator();
+
+      s.append('[');
+
+      for(int n = 0; n < elements && iterator.hasNext(); n++)
+      {
+        if (n > 0)
+          s.append(", ");
+
+        appendValue(s, iterator.next(), null, end, depth + 1);
+
+        if (s.length() > end)
+          return;
+      }
+
+      if (size > elements)
+        s.append(", +").append(size - elements).append(" more");
+
+      s.append(']');
+    }
+
+
+    private void appendMap(@NotNull StringBuilder s, @NotNull Map<?,?> map, String typeName,
+                           int end, int depth)
+    {
+      final int size = map.size();
+
+      if (!renderElements(depth))
+      {
+        s.append(typeName == null ? map.getClass().getSimpleName() : typeName)
+         .append("[size=").append(size).append(']');
+        return;
+      }
+
+      final int elements = Math.min(size, limits.getMaxElements());
+      final Iterator<? extends Entry<?,?>> iterator = map.entrySet().iterator();
+
+      s.append('{');
+
+      for(int n = 0; n < elements && iterator.hasNext(); n++)
+      {
+        final Entry<?,?> entry = iterator.next();
+
+        if (n > 0)
+          s.append(", ");
+
+        appendValue(s, entry.getKey(), null, end, depth + 1);
+        appendValue(s.append('='), entry.getValue(), null, end, depth + 1);
+
+        if (s.length() > end)
+          return;
+      }
+
+      if (size > elements)
+        s.append(", +").append(size - elements).append(" more");
+
+      s.append('}');
+    }
+
+
+    private static void appendHex(@NotNull StringBuilder s, int value, int digits)
+    {
+      for(int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+        s.append(HEX[(value >> shift) & 0xf]);
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (this == o)
+        return true;
+      if (!(o instanceof LimitedAppender))
+        return false;
+
+      final LimitedAppender that = (LimitedAppender)o;
+
+      return typeName.equals(that.typeName) && limits.equals(that.limits);
+    }
+
+
+    @Override
+    public int hashCode() {
+      return typeName.hashCode() * 31 + limits.hashCode();
+    }
+  }
+
+
+
+
+  private enum ArrayElement
+  {
+    BOOLEAN {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((boolean[])array)[index]);
+      }
+    },
+
+    CHAR {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((char[])array)[index]);
+      }
+    },
+
+    SHORT {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((short[])array)[index]);
+      }
+    },
+
+    INT {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((int[])array)[index]);
+      }
+    },
+
+    LONG {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((long[])array)[index]);
+      }
+    },
+
+    FLOAT {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((float[])array)[index]);
+      }
+    },
+
+    DOUBLE {
+      @Override
+      void append(@NotNull StringBuilder s, @NotNull Object array, int index) {
+        s.append(((double[])array)[index]);
+      }
+    };
+
+
+    abstract void append(@NotNull StringBuilder s, @NotNull Object array, int index);
+
+
+    /**
+     * Returns the element appender for a primitive array or {@code null} for object arrays.
+     * Byte arrays are rendered as binary content and never reach this method.
+     */
+    @Contract(pure = true)
+    private static ArrayElement forArray(@NotNull Object array)
+    {
+      final Class<?> componentType = array.getClass().getComponentType();
+
+      if (componentType == boolean.class)
+        return BOOLEAN;
+      if (componentType == char.class)
+        return CHAR;
+      if (componentType == short.class)
+        return SHORT;
+      if (componentType == int.class)
+        return INT;
+      if (componentType == long.class)
+        return LONG;
+      if (componentType == float.class)
+        return FLOAT;
+      if (componentType == double.class)
+        return DOUBLE;
+
+      return null;
+    }
+  }
+}
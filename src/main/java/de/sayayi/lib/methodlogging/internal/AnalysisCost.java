@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+
+/**
+ * Accumulated cost of matching, analysing and compiling logged methods. All counters are
+ * thread-safe, as methods may be analysed concurrently.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class AnalysisCost
+{
+  /** Pointcut matches, ie. checks whether a method is logged. */
+  final LongAdder matches = new LongAdder();
+  final LongAdder matchNanos = new LongAdder();
+
+  /** Analysed method definitions, including the time spent scanning class files. */
+  final LongAdder analysedMethods = new LongAdder();
+  final LongAdder analysisNanos = new LongAdder();
+
+  /** Class files read and scanned for line numbers. */
+  final LongAdder classFileScans = new LongAdder();
+  final LongAdder classFileScanNanos = new LongAdder();
+
+  /** Classes whose analysis has been taken from the analysis cache file. */
+  final LongAdder cachedClasses = new LongAdder();
+
+  /** Method definitions with compiled messages. */
+  final LongAdder compiledMethods = new LongAdder();
+  final LongAdder compileNanos = new LongAdder();
+
+
+  static void add(@NotNull LongAdder nanos, long startTime) {
+    nanos.add(System.nanoTime() - startTime);
+  }
+
+
+  static @NotNull String millis(@NotNull LongAdder nanos) {
+    return NANOSECONDS.toMillis(nanos.sum()) + " ms";
+  }
+
+
+  /**
+   * Returns a one-line summary of the accumulated cost.
+   *
+   * @return  cost summary, never {@code null}
+   */
+  @Override
+  public @NotNull String toString()
+  {
+    return analysedMethods.sum() + " methods analysed in " + millis(analysisNanos) +
+        " (class file scans: " + classFileScans.sum() + " in " + millis(classFileScanNanos) +
+        ", cached: " + cachedClasses.sum() + "), " + matches.sum() + " pointcut matches in " +
+        millis(matchNanos) + ", " + compiledMethods.sum() + " methods compiled in " +
+        millis(compileNanos);
+  }
+}
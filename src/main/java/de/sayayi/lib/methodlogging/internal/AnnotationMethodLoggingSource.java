@@ -16,43 +16,56 @@
 package de.sayayi.lib.methodlogging.internal;
 
 import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
+import de.sayayi.lib.methodlogging.ParameterAppender;
+import de.sayayi.lib.methodlogging.RenderLimits;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.ParameterMode;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility;
 import de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig;
 import de.sayayi.lib.methodlogging.annotation.ParamLog;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.asm.*;
 import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.core.MethodClassKey;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility.SHOW;
+import static de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig.DEFAULT_RESULT_FORMAT;
+import static de.sayayi.lib.methodlogging.internal.AnalysisCost.add;
+import static java.lang.Boolean.TRUE;
+import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
 import static java.util.Objects.requireNonNull;
 import static org.springframework.aop.support.AopUtils.getMostSpecificMethod;
-import static org.springframework.asm.ClassReader.SKIP_FRAMES;
-import static org.springframework.asm.SpringAsmInfo.ASM_VERSION;
 import static org.springframework.core.ResolvableType.forMethodParameter;
+import static org.springframework.core.ResolvableType.forMethodReturnType;
 import static org.springframework.core.annotation.AnnotatedElementUtils.findMergedAnnotationAttributes;
 import static org.springframework.core.annotation.AnnotatedElementUtils.getMergedAnnotation;
 import static org.springframework.core.annotation.AnnotationUtils.synthesizeAnnotation;
+import static org.springframework.expression.spel.SpelCompilerMode.IMMEDIATE;
 import static org.springframework.util.StringUtils.hasLength;
 
 
@@ -62,26 +75,385 @@ import static org.springframework.util.StringUtils.hasLength;
  */
 public final class AnnotationMethodLoggingSource
 {
-  private final @NotNull Map<MethodClassKey,MethodDef> methodLoggingDefinitionCache;
+  private static final String[] LEVEL_ATTRIBUTES = {
+      "entryExitLevel", "parameterLevel", "resultLevel"
+  };
+
+  private final @NotNull MethodDefinitionCache methodLoggingDefinitionCache;
   private final @NotNull ParameterNameDiscoverer nameDiscoverer;
+  private final @NotNull ClassAnalysisCache classAnalysisCache;
   final @NotNull MethodLoggingConfigurer methodLoggingConfigurer;
 
+  /**
+   * Classes with a method definition map in the cache. Keys are weak, so classes (and their class
+   * loaders) can be unloaded. Access must be synchronized on the map instance.
+   */
+  private final @NotNull Map<Class<?>,Boolean> cachedClasses;
+
+  /**
+   * Canonical method definitions, used to share method definitions with identical content. Keys
+   * are weak and values are weak references to the key. Access must be synchronized on the map
+   * instance.
+   */
+  private final @NotNull Map<MethodDef,WeakReference<MethodDef>> canonicalMethodDefinitions;
+
+  private final int maxCacheSize;
+  private final AtomicInteger cacheSize;
+  private final @NotNull Level minimumLevel;
+
+  /** Incremented whenever cached method definitions are replaced or removed. */
+  final AtomicInteger generation;
+
+  final @NotNull AnalysisCost analysisCost;
+
 
   AnnotationMethodLoggingSource(@NotNull MethodLoggingConfigurer methodLoggingConfigurer)
   {
     this.methodLoggingConfigurer = methodLoggingConfigurer;
 
-    methodLoggingDefinitionCache = new ConcurrentHashMap<>();
+    methodLoggingDefinitionCache = new MethodDefinitionCache();
     nameDiscoverer = new DefaultParameterNameDiscoverer();
+    analysisCost = new AnalysisCost();
+    classAnalysisCache =
+        new ClassAnalysisCache(methodLoggingConfigurer.analysisCacheFile(), analysisCost);
+    cachedClasses = new WeakHashMap<>();
+    canonicalMethodDefinitions = new WeakHashMap<>();
+    maxCacheSize = methodLoggingConfigurer.methodDefinitionCacheSize();
+    cacheSize = new AtomicInteger();
+    generation = new AtomicInteger();
+    minimumLevel = requireNonNull(methodLoggingConfigurer.minimumLevel());
+
+    if (minimumLevel == Level.DEFAULT)
+      throw new IllegalArgumentException("minimum level must not be DEFAULT");
+  }
+
+
+  @Contract(pure = true)
+  MethodDef getMethodDefinition(@NotNull Method method, @NotNull Class<?> targetClass)
+  {
+    final Map<Method,MethodDef> methodDefinitions = methodLoggingDefinitionCache.get(targetClass);
+    MethodDef methodDef = methodDefinitions.get(method);
+
+    if (methodDef == null)
+    {
+      final long startTime = nanoTime();
+
+      methodDef = analyseMethodDefinition(method, targetClass);
+      analysisCost.analysedMethods.increment();
+      add(analysisCost.analysisNanos, startTime);
+
+      if (methodDef == null)
+        return null;
+
+      final MethodDef cachedMethodDef =
+          methodDefinitions.putIfAbsent(method, methodDef = canonicalize(methodDef));
+      if (cachedMethodDef != null)
+        return cachedMethodDef;
+
+      if (cacheSize.incrementAndGet() > maxCacheSize && maxCacheSize > 0)
+        evict();
+    }
+    else if (!methodDef.accessed)
+      methodDef.accessed = true;
+
+    return methodDef;
+  }
+
+
+  /**
+   * Tells whether the given method is to be logged. Unlike
+   * {@link #getMethodDefinition(Method, Class)}, this method only looks for the presence of a
+   * {@link MethodLogging} annotation and does not analyse the method.
+   *
+   * @param method       method, not {@code null}
+   * @param targetClass  target class, not {@code null}
+   *
+   * @return  {@code true} if the method is to be logged, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean isMethodLogged(@NotNull Method method, @NotNull Class<?> targetClass)
+  {
+    final long startTime = nanoTime();
+
+    try {
+      final AnnotationAttributes methodLoggingAttributes =
+          findMergedAnnotationAttributes(getMostSpecificMethod(method, targetClass),
+              MethodLogging.class, false, true);
+
+      return methodLoggingAttributes != null &&
+          (minimumLevel == Level.TRACE ||
+           isAboveMinimumLevel(findMethodLoggingConfigAttributes(targetClass),
+               methodLoggingAttributes));
+    } finally {
+      analysisCost.matches.increment();
+      add(analysisCost.matchNanos, startTime);
+    }
+  }
+
+
+  /**
+   * Tells whether any of the method's levels is at or above the minimum level, or whether the
+   * method creates a tracing span.
+   */
+  @Contract(pure = true)
+  private boolean isAboveMinimumLevel(@NotNull AnnotationAttributes methodLoggingConfigAttributes,
+                                      @NotNull AnnotationAttributes methodLoggingAttributes)
+  {
+    for(final String attribute: LEVEL_ATTRIBUTES)
+    {
+      Level level = methodLoggingAttributes.getEnum(attribute);
+      if (level == Level.DEFAULT)
+        level = methodLoggingConfigAttributes.getEnum(attribute);
+
+      if (level.compareTo(minimumLevel) >= 0)
+        return true;
+    }
+
+    Visibility span = methodLoggingAttributes.getEnum("span");
+    if (span == Visibility.DEFAULT)
+      span = methodLoggingConfigAttributes.getEnum("span");
+
+    return span == SHOW;
+  }
+
+
+  /**
+   * Write the analysis cache file, if one is configured and class analyses have changed.
+   *
+   * @see MethodLoggingConfigurer#analysisCacheFile()
+   */
+  void storeAnalysisCache() {
+    classAnalysisCache.store();
+  }
+
+
+  /**
+   * Returns all distinct method definitions analysed so far.
+   *
+   * @return  list of method definitions, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull List<MethodDef> getMethodDefinitions()
+  {
+    final Set<MethodDef> methodDefinitions = newSetFromMap(new IdentityHashMap<>());
+
+    for(final Map<Method,MethodDef> classMethodDefinitions: getClassMethodDefinitions())
+      methodDefinitions.addAll(classMethodDefinitions.values());
+
+    return new ArrayList<>(methodDefinitions);
+  }
+
+
+  /**
+   * Reconfigure all method definitions matching {@code target}. Each matching method definition is
+   * copied, reconfigured and atomically replaces the original method definition in the cache.
+   *
+   * @param target           target class/method, not {@code null}
+   * @param reconfiguration  reconfiguration to apply to the method definition copies,
+   *                         not {@code null}
+   *
+   * @return  number of reconfigured method definitions
+   *
+   * @see MethodDef#matches(String)
+   */
+  int reconfigure(@NotNull String target, @NotNull Consumer<MethodDef> reconfiguration)
+  {
+    // method definitions shared by multiple methods are copied only once
+    final Map<MethodDef,MethodDef> reconfiguredMethodDefs = new IdentityHashMap<>();
+
+    for(final Map<Method,MethodDef> classMethodDefinitions: getClassMethodDefinitions())
+      for(final Method method: classMethodDefinitions.keySet())
+        classMethodDefinitions.computeIfPresent(method, (key, methodDef) ->
+            !methodDef.matches(target) ? methodDef : reconfiguredMethodDefs.computeIfAbsent(
+                methodDef, md -> {
+                  final MethodDef reconfiguredMethodDef = md.copy();
+                  reconfiguration.accept(reconfiguredMethodDef);
+
+                  return reconfiguredMethodDef;
+                }));
+
+    if (!reconfiguredMethodDefs.isEmpty())
+      generation.incrementAndGet();
+
+    return reconfiguredMethodDefs.size();
+  }
+
+
+  /**
+   * Remove all method definitions matching {@code target} from the cache. The next invocation of
+   * such a method will analyse the method definition again.
+   *
+   * @param target  target class/method, not {@code null}
+   *
+   * @return  number of removed method definitions
+   *
+   * @see MethodDef#matches(String)
+   */
+  int reset(@NotNull String target)
+  {
+    int count = 0;
+
+    for(final Map<Method,MethodDef> classMethodDefinitions: getClassMethodDefinitions())
+      for(final Entry<Method,MethodDef> entry: classMethodDefinitions.entrySet())
+        if (entry.getValue().matches(target) &&
+            classMethodDefinitions.remove(entry.getKey(), entry.getValue()))
+        {
+          cacheSize.decrementAndGet();
+          count++;
+        }
+
+    if (count > 0)
+      generation.incrementAndGet();
+
+    return count;
+  }
+
+
+  /**
+   * Returns a summary of the method definition cache and its estimated memory footprint.
+   *
+   * @return  cache footprint, never {@code null}
+   */
+  @Contract(pure = true)
+  @NotNull String getCacheFootprint()
+  {
+    final List<Map<Method,MethodDef>> classMethodDefinitions = getClassMethodDefinitions();
+    final Set<Object> distinct = newSetFromMap(new IdentityHashMap<>());
+    int entries = 0;
+    int methodDefs = 0;
+    int parameterDefs = 0;
+    long bytes = 0;
+
+    for(final Map<Method,MethodDef> methodDefinitions: classMethodDefinitions)
+    {
+      bytes += 64 + 16L * methodDefinitions.size();  // map + table
+
+      for(final MethodDef methodDef: methodDefinitions.values())
+      {
+        entries++;
+        bytes += 32;  // map node
+
+        if (distinct.add(methodDef))
+        {
+          methodDefs++;
+          bytes += 128 + 4L * (methodDef.inlineParameters.length +
+              methodDef.inMethodParameters.length) + stringSize(distinct, methodDef.className) +
+              stringSize(distinct, methodDef.methodSignature);
+
+          for(final ParameterDef parameterDef: methodDef.inlineParameters)
+            if (distinct.add(parameterDef))
+            {
+              parameterDefs++;
+              bytes += 40 + stringSize(distinct, parameterDef.name);
+            }
+
+          for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+            if (distinct.add(parameterDef))
+            {
+              parameterDefs++;
+              bytes += 40 + stringSize(distinct, parameterDef.name);
+            }
+        }
+      }
+    }
+
+    return "classes=" + classMethodDefinitions.size() + ", entries=" + entries +
+        ", methodDefinitions=" + methodDefs + ", parameterDefinitions=" + parameterDefs +
+        ", estimatedBytes=" + bytes;
   }
 
 
   @Contract(pure = true)
-  MethodDef getMethodDefinition(@NotNull Method method, Class<?> targetClass)
+  private static long stringSize(@NotNull Set<Object> distinct, @NotNull String s) {
+    return distinct.add(s) ? 40 + 2L * s.length() : 0;
+  }
+
+
+  /**
+   * Returns a method definition with identical content from the canonical method definitions or
+   * registers the given method definition as canonical.
+   */
+  private @NotNull MethodDef canonicalize(@NotNull MethodDef methodDef)
+  {
+    synchronized(canonicalMethodDefinitions) {
+      final WeakReference<MethodDef> canonicalRef = canonicalMethodDefinitions.get(methodDef);
+      final MethodDef canonical = canonicalRef == null ? null : canonicalRef.get();
+
+      if (canonical != null)
+        return canonical;
+
+      canonicalMethodDefinitions.put(methodDef, new WeakReference<>(methodDef));
+
+      return methodDef;
+    }
+  }
+
+
+  /**
+   * Evict method definitions until the cache size is 10% below its maximum size. Method
+   * definitions which have been accessed since the last eviction get a second chance.
+   * <p>
+   * The cache size is recounted first, as the method definitions of unloaded classes are dropped
+   * without notice.
+   */
+  private void evict()
+  {
+    synchronized(cachedClasses) {
+      final List<Map<Method,MethodDef>> classMethodDefinitions = getClassMethodDefinitions();
+      int size = 0;
+
+      for(final Map<Method,MethodDef> methodDefinitions: classMethodDefinitions)
+        size += methodDefinitions.size();
+
+      cacheSize.set(size);
+
+      // a single generation change for all evicted method definitions
+      if (evict(classMethodDefinitions, maxCacheSize - maxCacheSize / 10) > 0)
+        generation.incrementAndGet();
+    }
+  }
+
+
+  private int evict(@NotNull List<Map<Method,MethodDef>> classMethodDefinitions, int size)
   {
-    return methodLoggingDefinitionCache.computeIfAbsent(
-        new MethodClassKey(method, targetClass),
-        methodClassKey -> analyseMethodDefinition(method, targetClass));
+    int count = 0;
+
+    for(int pass = 0; pass < 2; pass++)
+      for(final Map<Method,MethodDef> methodDefinitions: classMethodDefinitions)
+        for(final Entry<Method,MethodDef> entry: methodDefinitions.entrySet())
+        {
+          if (cacheSize.get() <= size)
+            return count;
+
+          final MethodDef methodDef = entry.getValue();
+
+          if (methodDef.accessed)
+            methodDef.accessed = false;
+          else if (methodDefinitions.remove(entry.getKey(), methodDef))
+          {
+            cacheSize.decrementAndGet();
+            count++;
+          }
+        }
+
+    return count;
+  }
+
+
+  private @NotNull List<Map<Method,MethodDef>> getClassMethodDefinitions()
+  {
+    final List<Class<?>> classes;
+
+    synchronized(cachedClasses) {
+      classes = new ArrayList<>(cachedClasses.keySet());
+    }
+
+    final List<Map<Method,MethodDef>> classMethodDefinitions = new ArrayList<>(classes.size());
+
+    for(final Class<?> type: classes)
+      classMethodDefinitions.add(methodLoggingDefinitionCache.get(type));
+
+    return classMethodDefinitions;
   }
 
 
@@ -99,22 +471,69 @@ public final class AnnotationMethodLoggingSource
         findMethodLoggingConfigAttributes(targetClass);
     final MethodLogging methodLogging =
         findMergedMethodLogging(methodLoggingConfigAttributes, methodLoggingAttributes);
+    final RenderLimits renderLimits = new RenderLimits(methodLogging.rendering(),
+        methodLogging.maxLength(), methodLogging.maxElements(), methodLogging.maxDepth(),
+        methodLogging.maxBytes());
 
     return new MethodDef(
         synthesizeAnnotation(methodLoggingConfigAttributes, MethodLoggingConfig.class, targetClass),
-        getParameterDefs(method, methodLogging), methodLogging, method,
-        methodLogging.lineNumber() == SHOW ? findMethodLineNumber(method) : -1,
-        findLoggerField(method.getDeclaringClass(), methodLogging));
+        getParameterDefs(method, methodLogging, renderLimits), methodLogging, method, targetClass,
+        findMethodLocation(method, methodLogging.lineNumber() == SHOW),
+        findLoggerField(method.getDeclaringClass(), methodLogging),
+        getLoggingCondition(method, targetClass, methodLogging),
+        getResultAppender(method, methodLogging, renderLimits), renderLimits.getMaxLength());
+  }
+
+
+  /**
+   * Returns the appender for the method result. The appender is only bound for results with the
+   * default result format.
+   */
+  @Contract(pure = true)
+  private ParameterAppender getResultAppender(@NotNull Method method,
+                                              @NotNull MethodLogging methodLogging,
+                                              @NotNull RenderLimits renderLimits)
+  {
+    final String resultFormat = methodLogging.resultFormat();
+
+    return method.getReturnType() != void.class &&
+        (resultFormat.isEmpty() || DEFAULT_RESULT_FORMAT.equals(resultFormat))
+        ? methodLoggingConfigurer.parameterAppender(forMethodReturnType(method), renderLimits)
+        : null;
+  }
+
+
+  @Contract(pure = true)
+  private LoggingCondition getLoggingCondition(@NotNull Method method,
+                                               @NotNull Class<?> targetClass,
+                                               @NotNull MethodLogging methodLogging)
+  {
+    final String condition = methodLogging.condition();
+    final String resultCondition = methodLogging.resultCondition();
+
+    if (condition.isEmpty() && resultCondition.isEmpty())
+      return null;
+
+    final ClassLoader classLoader = targetClass.getClassLoader();
+    final ExpressionParser expressionParser =
+        new SpelExpressionParser(new SpelParserConfiguration(IMMEDIATE, classLoader));
+    final String[] parameterNames = classAnalysisCache.getParameterNames(method, nameDiscoverer);
+
+    return new LoggingCondition(
+        condition.isEmpty() ? null : expressionParser.parseExpression(condition),
+        resultCondition.isEmpty() ? null : expressionParser.parseExpression(resultCondition),
+        parameterNames == null ? new String[0] : parameterNames, classLoader);
   }
 
 
   @Contract(pure = true)
   private @NotNull List<ParameterDef> getParameterDefs(@NotNull Method method,
-                                                       @NotNull MethodLogging methodLogging)
+                                                       @NotNull MethodLogging methodLogging,
+                                                       @NotNull RenderLimits renderLimits)
   {
-    final String[] parameterNames = nameDiscoverer.getParameterNames(method);
+    final String[] parameterNames = classAnalysisCache.getParameterNames(method, nameDiscoverer);
 
-    if (parameterNames == null || parameterNames.length == 0 || methodLogging.parameters() != SHOW)
+    if (parameterNames == null || parameterNames.length == 0)
       return emptyList();
 
     final ArrayList<ParameterDef> parameterDefs = new ArrayList<>(8);
@@ -133,10 +552,22 @@ public final class AnnotationMethodLoggingSource
           (paramLog != null || isParameterIncluded(forMethodParameter(method, p))))
       {
         parameterDef.index = p;
+        parameterDef.name = parameterDef.name.intern();
         parameterDef.inline = paramLog == null || paramLog.inline();
+        parameterDef.deferred = (paramLog == null || paramLog.mode() == ParameterMode.DEFAULT
+            ? methodLogging.parameterMode() : paramLog.mode()) == ParameterMode.DEFERRED;
+        parameterDef.snapshot = parameterDef.deferred && paramLog != null && paramLog.snapshot();
+
+        final RenderLimits parameterRenderLimits =
+            paramLog == null ? renderLimits : getRenderLimits(paramLog, renderLimits);
+        parameterDef.maxLength = parameterRenderLimits.getMaxLength();
 
         if (!hasLength(parameterDef.format = paramLog != null ? paramLog.format() : ""))
+        {
           parameterDef.format = "%{value}";
+          parameterDef.appender = methodLoggingConfigurer.parameterAppender(
+              forMethodParameter(method, p), parameterRenderLimits);
+        }
 
         parameterDefs.add(parameterDef);
       }
@@ -148,6 +579,29 @@ public final class AnnotationMethodLoggingSource
   }
 
 
+  @Contract(pure = true)
+  private static @NotNull RenderLimits getRenderLimits(@NotNull ParamLog paramLog,
+                                                       @NotNull RenderLimits renderLimits)
+  {
+    final Rendering rendering = paramLog.rendering();
+    final int maxLength = paramLog.maxLength();
+    final int maxElements = paramLog.maxElements();
+    final int maxDepth = paramLog.maxDepth();
+    final int maxBytes = paramLog.maxBytes();
+
+    if (rendering == Rendering.DEFAULT && maxLength < 0 && maxElements < 0 && maxDepth < 0 &&
+        maxBytes < 0)
+      return renderLimits;
+
+    return new RenderLimits(
+        rendering == Rendering.DEFAULT ? renderLimits.getRendering() : rendering,
+        maxLength < 0 ? renderLimits.getMaxLength() : maxLength,
+        maxElements < 0 ? renderLimits.getMaxElements() : maxElements,
+        maxDepth < 0 ? renderLimits.getMaxDepth() : maxDepth,
+        maxBytes < 0 ? renderLimits.getMaxBytes() : maxBytes);
+  }
+
+
   private boolean isParameterIncluded(@NotNull ResolvableType methodParameterType)
   {
     return
@@ -180,6 +634,23 @@ public final class AnnotationMethodLoggingSource
     if (attributes.getEnum("lineNumber") == Visibility.DEFAULT)
       attributes.put("lineNumber", methodLoggingConfigurer.defaultLineNumber());
 
+    final RenderLimits defaultRenderLimits = methodLoggingConfigurer.defaultRenderLimits();
+
+    if (attributes.getEnum("rendering") == Rendering.DEFAULT)
+      attributes.put("rendering", defaultRenderLimits.getRendering());
+
+    if (attributes.<Integer>getNumber("maxLength") < 0)
+      attributes.put("maxLength", defaultRenderLimits.getMaxLength());
+
+    if (attributes.<Integer>getNumber("maxElements") < 0)
+      attributes.put("maxElements", defaultRenderLimits.getMaxElements());
+
+    if (attributes.<Integer>getNumber("maxDepth") < 0)
+      attributes.put("maxDepth", defaultRenderLimits.getMaxDepth());
+
+    if (attributes.<Integer>getNumber("maxBytes") < 0)
+      attributes.put("maxBytes", defaultRenderLimits.getMaxBytes());
+
     return attributes;
   }
 
@@ -205,44 +676,35 @@ public final class AnnotationMethodLoggingSource
     {
       final Object value = methodAttribute.getValue();
 
-      if (value == Visibility.DEFAULT || value == Level.DEFAULT)
+      if (value == Visibility.DEFAULT || value == Level.DEFAULT || value == Rendering.DEFAULT ||
+          value == ParameterMode.DEFAULT)
         methodAttribute.setValue(methodLoggingConfigAttributes.getEnum(methodAttribute.getKey()));
       else if ("<DEFAULT>".equals(value))
         methodAttribute.setValue(methodLoggingConfigAttributes.getString(methodAttribute.getKey()));
+      else if (value instanceof Integer && (Integer)value < 0)
+        methodAttribute.setValue(methodLoggingConfigAttributes.getNumber(methodAttribute.getKey()));
     }
 
     return synthesizeAnnotation(methodLoggingAttributes, MethodLogging.class, null);
   }
 
 
+  /**
+   * Returns the location of the given method, as reported to logging frameworks in place of the
+   * caller. The source file and line number are only determined if {@code showLineNumber} is set,
+   * as this requires the class file to be read.
+   */
   @Contract(pure = true)
-  private int findMethodLineNumber(@NotNull Method method)
+  private @NotNull StackTraceElement findMethodLocation(@NotNull Method method,
+                                                       boolean showLineNumber)
   {
-    final Class<?> declaringClass = method.getDeclaringClass();
-    final String classResourceName =
-        declaringClass.getName().replace('.', '/') + ".class";
-    final String methodDescriptor = method.getName().concat(Type.getMethodDescriptor(method));
-
-    final AtomicInteger lineNumber = new AtomicInteger(-1);
-    final MethodVisitor methodVisitor = new MethodVisitor(ASM_VERSION) {
-      @Override
-      public void visitLineNumber(int line, Label start) {
-        lineNumber.compareAndSet(-1, line);
-      }
-    };
-
-    try(final InputStream classInputStream = requireNonNull(
-        declaringClass.getClassLoader().getResourceAsStream(classResourceName))) {
-      new ClassReader(classInputStream).accept(new ClassVisitor(ASM_VERSION) {
-        @Override
-        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] ex) {
-          return methodDescriptor.equals(name.concat(descriptor)) ? methodVisitor : null;
-        }
-      }, SKIP_FRAMES);
-    } catch(NullPointerException | IOException ignored) {
+    if (!showLineNumber)
+    {
+      return new StackTraceElement(method.getDeclaringClass().getName(), method.getName(), null,
+          -1);
     }
 
-    return lineNumber.get();
+    return classAnalysisCache.getMethodLocation(method);
   }
 
 
@@ -264,4 +726,24 @@ public final class AnnotationMethodLoggingSource
 
     return null;
   }
+
+
+
+
+  /**
+   * Method definitions by target class. The method definitions are stored with the target class,
+   * so they do not prevent the target class and its class loader from being unloaded.
+   */
+  private final class MethodDefinitionCache extends ClassValue<Map<Method,MethodDef>>
+  {
+    @Override
+    protected Map<Method,MethodDef> computeValue(Class<?> type)
+    {
+      synchronized(cachedClasses) {
+        cachedClasses.put(type, TRUE);
+      }
+
+      return new ConcurrentHashMap<>(4);
+    }
+  }
 }
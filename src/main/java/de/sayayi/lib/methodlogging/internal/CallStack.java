@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.Thread.currentThread;
+import static java.util.Arrays.copyOf;
+
+
+/**
+ * Per thread state of logged method invocations.
+ * <p>
+ * An instance is created once for each thread and reused for all method invocations on that
+ * thread, so tracking the call depth does not allocate any memory.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class CallStack
+{
+  private static final ThreadLocal<CallStack> CALL_STACK = ThreadLocal.withInitial(CallStack::new);
+
+  /**
+   * Line builders shared by virtual threads. Virtual threads are too numerous to keep a reusable
+   * builder each, so they borrow one from this pool instead.
+   */
+  private static final AtomicReferenceArray<StringBuilder> SHARED_LINES =
+      new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors() * 2);
+
+  /** Number of logged method invocations currently active on this thread. */
+  int depth;
+
+  /** Collapsed call tree of the current outermost method invocation, created on first use. */
+  private StringBuilder callTree;
+
+  /** Call tree offsets where the nested calls for each depth start, created on first use. */
+  private int[] callTreeOffset;
+
+  /**
+   * Exception most recently reported on this thread. The reference is weak, so an exception
+   * which is caught by the application is not retained by the logging thread.
+   */
+  private WeakReference<Throwable> reportedThrowable;
+
+  /** Flight recording for this thread, created on first use. */
+  private FlightRecording flightRecording;
+
+  /** Recently logged invocations on this thread, created on first use. */
+  private RepeatedInvocations repeatedInvocations;
+
+  /** Tells whether this call stack belongs to a virtual thread. */
+  private final boolean virtualThread;
+
+  /** Reusable builder for log lines, {@code null} while in use or for virtual threads. */
+  private StringBuilder line;
+
+  /** Reusable evaluation context for logging conditions, {@code null} while in use. */
+  LoggingCondition.ConditionEvaluationContext evaluationContext;
+
+
+  private CallStack()
+  {
+    virtualThread = VirtualThreads.isVirtual(currentThread());
+    line = virtualThread ? null : new StringBuilder(128);
+  }
+
+
+  static @NotNull CallStack get() {
+    return CALL_STACK.get();
+  }
+
+
+  /**
+   * Start a new call tree for an outermost method invocation.
+   * <p>
+   * The call tree is created on first use only, so threads which never collapse nested calls, like
+   * most virtual threads, do not carry a call tree around.
+   *
+   * @return  empty call tree, never {@code null}
+   */
+  @NotNull StringBuilder startCallTree()
+  {
+    if (callTree == null)
+    {
+      callTree = new StringBuilder();
+      callTreeOffset = new int[8];
+    }
+    else
+      callTree.setLength(0);
+
+    callTreeOffset[0] = 0;
+
+    return callTree;
+  }
+
+
+  void enterCallTree(int depth, @NotNull String methodName)
+  {
+    // the outermost invocation may not have started a call tree, eg. after reconfiguration
+    if (callTree == null)
+      startCallTree();
+
+    if (depth >= callTreeOffset.length)
+      callTreeOffset = copyOf(callTreeOffset, depth + 8);
+
+    if (callTree.length() > callTreeOffset[depth - 1])
+      callTree.append(", ");
+
+    callTreeOffset[depth] = callTree.append(methodName).length();
+  }
+
+
+  /**
+   * Close the nested calls of the invocation at {@code depth}. The elapsed time and exception of
+   * the invocation are to be appended to the returned call tree.
+   *
+   * @return  call tree, never {@code null}
+   */
+  @NotNull StringBuilder exitCallTree(int depth)
+  {
+    final int offset = callTreeOffset[depth];
+
+    if (callTree.length() > offset)
+      callTree.insert(offset, " {").append('}');
+
+    return callTree;
+  }
+
+
+  /**
+   * Returns an empty builder for a log line. The builder must be handed back using
+   * {@link #releaseLine(StringBuilder)} as soon as the line has been logged.
+   * <p>
+   * If the reusable builder is in use, eg. because the logging framework invokes a logged method
+   * while logging, a new builder is returned.
+   *
+   * @return  empty string builder, never {@code null}
+   */
+  @NotNull StringBuilder acquireLine()
+  {
+    if (virtualThread)
+      return acquireSharedLine();
+
+    final StringBuilder builder = line;
+
+    if (builder == null)
+      return new StringBuilder(128);
+
+    line = null;
+    builder.setLength(0);
+
+    return builder;
+  }
+
+
+  void releaseLine(@NotNull StringBuilder builder)
+  {
+    // don't keep excessively large builders around
+    if (builder.capacity() <= 4096)
+    {
+      if (virtualThread)
+        releaseSharedLine(builder);
+      else
+        line = builder;
+    }
+  }
+
+
+  private static @NotNull StringBuilder acquireSharedLine()
+  {
+    final int slots = SHARED_LINES.length();
+    final int start = (int)(currentThread().getId() % slots);
+
+    for(int n = 0; n < slots; n++)
+    {
+      final StringBuilder builder = SHARED_LINES.getAndSet((start + n) % slots, null);
+
+      if (builder != null)
+      {
+        builder.setLength(0);
+        return builder;
+      }
+    }
+
+    return new StringBuilder(128);
+  }
+
+
+  private static void releaseSharedLine(@NotNull StringBuilder builder)
+  {
+    final int slots = SHARED_LINES.length();
+    final int start = (int)(currentThread().getId() % slots);
+
+    for(int n = 0; n < slots; n++)
+      if (SHARED_LINES.compareAndSet((start + n) % slots, null, builder))
+        return;
+  }
+
+
+  @NotNull FlightRecording flightRecording(int capacity)
+  {
+    if (flightRecording == null)
+      flightRecording = new FlightRecording(capacity);
+
+    return flightRecording;
+  }
+
+
+  @NotNull RepeatedInvocations repeatedInvocations()
+  {
+    if (repeatedInvocations == null)
+      repeatedInvocations = new RepeatedInvocations();
+
+    return repeatedInvocations;
+  }
+
+
+  /**
+   * Leave a logged method invocation, restoring the call depth. Once the outermost invocation has
+   * been left, the reported exception is forgotten, so a reused exception instance is reported
+   * again by later, unrelated invocations. Pending repeated invocations are reported as well,
+   * instead of being held until the next invocation on this thread.
+   *
+   * @param depth  call depth of the invocation being left
+   */
+  void leave(int depth)
+  {
+    this.depth = depth;
+
+    if (depth == 0)
+    {
+      reportedThrowable = null;
+
+      if (repeatedInvocations != null)
+        repeatedInvocations.reportAll();
+    }
+  }
+
+
+  /**
+   * Marks the given {@code throwable} as reported on this thread.
+   *
+   * @param throwable  throwable to be reported, not {@code null}
+   *
+   * @return  {@code true} if the throwable has not been reported before, {@code false} if it has
+   *          already been reported by a nested method invocation
+   */
+  boolean report(@NotNull Throwable throwable)
+  {
+    if (reportedThrowable != null && reportedThrowable.get() == throwable)
+      return false;
+
+    reportedThrowable = new WeakReference<>(throwable);
+    return true;
+  }
+}
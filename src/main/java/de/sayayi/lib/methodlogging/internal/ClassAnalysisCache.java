@@ -0,0 +1,416 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.sayayi.lib.methodlogging.internal.AnalysisCost.add;
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.springframework.asm.ClassReader.SKIP_FRAMES;
+import static org.springframework.asm.SpringAsmInfo.ASM_VERSION;
+
+
+/**
+ * Cache of information derived from class files: the source file, the first line number of each
+ * method and the parameter names of each method.
+ * <p>
+ * If a cache file is provided, the analysis results are persisted, keyed by class name and a
+ * SHA-256 hash of the class bytes. Persisted entries are only used if the hash of the loaded
+ * class matches, so classes which have been modified since the cache file was written are
+ * analysed again. Only classes analysed or validated since the cache file was read are written
+ * back, so entries of classes which are no longer used are pruned.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class ClassAnalysisCache
+{
+  private static final int MAGIC = 0x4d4c4341;  // MLCA
+  private static final int VERSION = 1;
+
+  private final Path file;
+  private final @NotNull AnalysisCost analysisCost;
+  private final @NotNull ClassValue<ClassAnalysis> classAnalysis;
+
+  /** Class analyses read from the cache file and not validated yet, by class name. */
+  private final @NotNull Map<String,ClassAnalysis> persistedEntries;
+
+  /** Class analyses validated or created since the cache file was read, by class name. */
+  private final @NotNull Map<String,ClassAnalysis> entries;
+
+  /** Number of entries in the cache file. */
+  private int storedEntries;
+
+  private volatile boolean modified;
+
+
+  ClassAnalysisCache(Path file, @NotNull AnalysisCost analysisCost)
+  {
+    this.file = file;
+    this.analysisCost = analysisCost;
+
+    classAnalysis = new ClassValue<ClassAnalysis>() {
+      @Override
+      protected ClassAnalysis computeValue(Class<?> type) {
+        return analyse(type);
+      }
+    };
+    persistedEntries = new ConcurrentHashMap<>();
+    entries = new ConcurrentHashMap<>();
+
+    if (file != null)
+      load();
+  }
+
+
+  /**
+   * Returns the source file and first line number of the given method.
+   *
+   * @param method  method, not {@code null}
+   *
+   * @return  stack trace element describing the method location, never {@code null}
+   */
+  @NotNull StackTraceElement getMethodLocation(@NotNull Method method)
+  {
+    final Class<?> declaringClass = method.getDeclaringClass();
+    final ClassAnalysis analysis = classAnalysis.get(declaringClass);
+    final Integer line = analysis.lineNumbers.get(getMethodKey(method));
+
+    return new StackTraceElement(declaringClass.getName(), method.getName(),
+        analysis.sourceFile, line == null ? -1 : line);
+  }
+
+
+  /**
+   * Returns the parameter names of the given method. Parameter names are cached only if a cache
+   * file is provided.
+   *
+   * @param method  method, not {@code null}
+   * @param nameDiscoverer  discoverer for parameter names not found in the cache
+   *
+   * @return  parameter names or {@code null} if the parameter names cannot be determined
+   */
+  String[] getParameterNames(@NotNull Method method,
+                             @NotNull ParameterNameDiscoverer nameDiscoverer)
+  {
+    if (file == null)
+      return nameDiscoverer.getParameterNames(method);
+
+    final ClassAnalysis analysis = classAnalysis.get(method.getDeclaringClass());
+    if (analysis.hash == null)
+      return nameDiscoverer.getParameterNames(method);
+
+    final String methodKey = getMethodKey(method);
+    String[] parameterNames = analysis.parameterNames.get(methodKey);
+
+    if (parameterNames == null)
+    {
+      parameterNames = nameDiscoverer.getParameterNames(method);
+      analysis.parameterNames.put(methodKey,
+          parameterNames == null ? new String[0] : parameterNames);
+      modified = true;
+    }
+
+    return parameterNames.length == 0 ? null : parameterNames;
+  }
+
+
+  private @NotNull ClassAnalysis analyse(@NotNull Class<?> type)
+  {
+    final long startTime = nanoTime();
+
+    try {
+      return scan(type);
+    } finally {
+      add(analysisCost.classFileScanNanos, startTime);
+    }
+  }
+
+
+  private @NotNull ClassAnalysis scan(@NotNull Class<?> type)
+  {
+    final byte[] classBytes = readClassBytes(type);
+    if (classBytes == null)
+      return new ClassAnalysis(null, null);
+
+    final byte[] hash = file == null ? null : hash(classBytes);
+
+    if (hash != null)
+    {
+      final ClassAnalysis persisted = persistedEntries.remove(type.getName());
+      if (persisted != null && Arrays.equals(hash, persisted.hash))
+      {
+        entries.put(type.getName(), persisted);
+        analysisCost.cachedClasses.increment();
+        return persisted;
+      }
+    }
+
+    final ClassAnalysis analysis = new ClassAnalysis(hash, null);
+    analysisCost.classFileScans.increment();
+
+    try {
+      new ClassReader(classBytes).accept(new ClassVisitor(ASM_VERSION) {
+        @Override
+        public void visitSource(String source, String debug) {
+          analysis.sourceFile = source;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor,
+                                         String signature, String[] exceptions)
+        {
+          final String methodKey = name.concat(descriptor);
+
+          return new MethodVisitor(ASM_VERSION) {
+            @Override
+            public void visitLineNumber(int line, Label start) {
+              analysis.lineNumbers.putIfAbsent(methodKey, line);
+            }
+          };
+        }
+      }, SKIP_FRAMES);
+    } catch(RuntimeException ignored) {
+      // unsupported class file version; the class is analysed without location information
+      return new ClassAnalysis(null, null);
+    }
+
+    if (hash != null)
+    {
+      entries.put(type.getName(), analysis);
+      modified = true;
+    }
+
+    return analysis;
+  }
+
+
+  private static byte[] readClassBytes(@NotNull Class<?> type)
+  {
+    final ClassLoader classLoader = type.getClassLoader();
+    if (classLoader == null)
+      return null;
+
+    try(final InputStream classInputStream =
+            classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+      if (classInputStream == null)
+        return null;
+
+      final ByteArrayOutputStream classBytes = new ByteArrayOutputStream(4096);
+      final byte[] buffer = new byte[4096];
+
+      for(int n; (n = classInputStream.read(buffer)) > 0;)
+        classBytes.write(buffer, 0, n);
+
+      return classBytes.toByteArray();
+    } catch(IOException ex) {
+      return null;
+    }
+  }
+
+
+  private static @NotNull byte[] hash(@NotNull byte[] classBytes)
+  {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(classBytes);
+    } catch(NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+
+  private static @NotNull String getMethodKey(@NotNull Method method) {
+    return method.getName().concat(Type.getMethodDescriptor(method));
+  }
+
+
+  /**
+   * Read the cache file. If the cache file does not exist or cannot be read, all classes are
+   * analysed.
+   */
+  private void load()
+  {
+    if (!Files.isRegularFile(file))
+      return;
+
+    try(final DataInputStream in =
+            new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        return;
+
+      final Map<String,ClassAnalysis> loadedEntries = new HashMap<>();
+
+      for(int classes = in.readInt(); classes > 0; classes--)
+      {
+        final String className = in.readUTF();
+        final byte[] hash = new byte[in.readUnsignedByte()];
+        in.readFully(hash);
+
+        final ClassAnalysis analysis =
+            new ClassAnalysis(hash, in.readBoolean() ? in.readUTF() : null);
+
+        for(int methods = in.readInt(); methods > 0; methods--)
+          analysis.lineNumbers.put(in.readUTF(), in.readInt());
+
+        for(int methods = in.readInt(); methods > 0; methods--)
+        {
+          final String methodKey = in.readUTF();
+          final String[] parameterNames = new String[in.readUnsignedByte()];
+
+          for(int p = 0; p < parameterNames.length; p++)
+            parameterNames[p] = in.readUTF();
+
+          analysis.parameterNames.put(methodKey, parameterNames);
+        }
+
+        loadedEntries.put(className, analysis);
+      }
+
+      persistedEntries.putAll(loadedEntries);
+      storedEntries = loadedEntries.size();
+    } catch(IOException ignored) {
+      // corrupt or truncated cache file; it is rewritten on the next store
+    }
+  }
+
+
+  /**
+   * Write the cache file, if classes have been analysed or parameter names have been discovered
+   * since the cache file was read or written, or if the cache file contains entries which have
+   * not been validated. The cache file is replaced atomically, if supported by the file system.
+   */
+  synchronized void store()
+  {
+    if (file == null || (!modified && entries.size() == storedEntries))
+      return;
+
+    modified = false;
+
+    try {
+      final Path parent = file.toAbsolutePath().getParent();
+      if (parent != null)
+        Files.createDirectories(parent);
+
+      final Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+      try {
+        try(final DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+          write(out);
+        }
+
+        try {
+          Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException ex) {
+          Files.move(tempFile, file, REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch(IOException ex) {
+      modified = true;
+    }
+  }
+
+
+  private void write(@NotNull DataOutputStream out) throws IOException
+  {
+    final Map<String,ClassAnalysis> snapshot = new HashMap<>(entries);
+
+    storedEntries = snapshot.size();
+
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(snapshot.size());
+
+    for(final Entry<String,ClassAnalysis> entry: snapshot.entrySet())
+    {
+      final ClassAnalysis analysis = entry.getValue();
+
+      out.writeUTF(entry.getKey());
+      out.writeByte(analysis.hash.length);
+      out.write(analysis.hash);
+      out.writeBoolean(analysis.sourceFile != null);
+      if (analysis.sourceFile != null)
+        out.writeUTF(analysis.sourceFile);
+
+      final Map<String,Integer> lineNumbers = new HashMap<>(analysis.lineNumbers);
+
+      out.writeInt(lineNumbers.size());
+      for(final Entry<String,Integer> lineNumber: lineNumbers.entrySet())
+      {
+        out.writeUTF(lineNumber.getKey());
+        out.writeInt(lineNumber.getValue());
+      }
+
+      final Map<String,String[]> parameterNames = new HashMap<>(analysis.parameterNames);
+
+      out.writeInt(parameterNames.size());
+      for(final Entry<String,String[]> names: parameterNames.entrySet())
+      {
+        out.writeUTF(names.getKey());
+        out.writeByte(names.getValue().length);
+        for(final String name: names.getValue())
+          out.writeUTF(name);
+      }
+    }
+  }
+
+
+
+
+  private static final class ClassAnalysis
+  {
+    /** SHA-256 hash of the class bytes or {@code null} if the analysis is not persisted. */
+    final byte[] hash;
+
+    final @NotNull Map<String,Integer> lineNumbers;
+    final @NotNull Map<String,String[]> parameterNames;
+
+    String sourceFile;
+
+
+    private ClassAnalysis(byte[] hash, String sourceFile)
+    {
+      this.hash = hash;
+      this.sourceFile = sourceFile;
+
+      lineNumbers = new ConcurrentHashMap<>();
+      parameterNames = new ConcurrentHashMap<>();
+    }
+  }
+}
@@ -20,6 +20,8 @@ import org.springframework.context.annotation.AutoProxyRegistrar;
 import org.springframework.context.annotation.ImportSelector;
 import org.springframework.core.type.AnnotationMetadata;
 
+import static org.springframework.util.ClassUtils.isPresent;
+
 
 /**
  * @author Jeroen Gremmen
@@ -30,6 +32,17 @@ public final class EnableMethodLoggingSelector implements ImportSelector
   @Override
   public @NotNull String[] selectImports(@NotNull AnnotationMetadata importingClassMetadata)
   {
+    final ClassLoader classLoader = EnableMethodLoggingSelector.class.getClassLoader();
+
+    if (isPresent("io.opentelemetry.api.OpenTelemetry", classLoader))
+    {
+      return new String[] {
+        AutoProxyRegistrar.class.getName(),
+        MethodLoggingConfiguration.class.getName(),
+        MethodLoggingTracingConfiguration.class.getName()
+      };
+    }
+
     return new String[] {
       AutoProxyRegistrar.class.getName(),
       MethodLoggingConfiguration.class.getName()
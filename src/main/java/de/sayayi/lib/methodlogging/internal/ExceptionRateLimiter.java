@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import static java.lang.System.currentTimeMillis;
+
+
+/**
+ * Limits the number of detailed exception reports for a method.
+ * <p>
+ * Exceptions are counted per second for the most recently reported exception type. A different
+ * exception type starts a new count, discarding the number of suppressed reports.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class ExceptionRateLimiter
+{
+  private Class<?> exceptionType;
+  private long second;
+  private int reported;
+  private int suppressed;
+
+
+  /**
+   * Acquire a detailed exception report for the given {@code exceptionType}.
+   *
+   * @param exceptionType  exception type, not {@code null}
+   * @param limit          maximum number of detailed reports per second or {@code 0} for no limit
+   *
+   * @return  number of suppressed reports since the last detailed report or {@code -1} if the
+   *          rate limit has been exceeded
+   */
+  int acquire(@NotNull Class<?> exceptionType, int limit)
+  {
+    if (limit <= 0)
+      return 0;
+
+    final long now = currentTimeMillis() / 1000L;
+
+    synchronized(this) {
+      if (this.exceptionType != exceptionType)
+      {
+        this.exceptionType = exceptionType;
+        suppressed = 0;
+        second = now;
+        reported = 0;
+      }
+      else if (second != now)
+      {
+        second = now;
+        reported = 0;
+      }
+
+      if (reported < limit)
+      {
+        final int suppressedReports = suppressed;
+
+        reported++;
+        suppressed = 0;
+
+        return suppressedReports;
+      }
+
+      suppressed++;
+
+      return -1;
+    }
+  }
+}
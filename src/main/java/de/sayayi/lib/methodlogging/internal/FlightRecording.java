@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.MethodLogger;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Arrays.fill;
+
+
+/**
+ * Bounded per thread ring buffer of unformatted method logging events.
+ * <p>
+ * If the buffer is full, the oldest events are overwritten.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class FlightRecording
+{
+  static final byte ENTRY = 0;
+  static final byte RESULT = 1;
+  static final byte EXIT = 2;
+
+  final byte[] type;
+  final MethodDef[] methodDef;
+  final MethodLogger[] methodLogger;
+  final int[] depth;
+  final long[] startTime;
+  final long[] time;
+
+  /** Method arguments (entry), result (result) or throwable (exit). */
+  final Object[] value;
+
+  /** Index of the next event to be recorded. */
+  private int next;
+
+  /** Number of recorded events. */
+  private int size;
+
+
+  FlightRecording(int capacity)
+  {
+    type = new byte[capacity];
+    methodDef = new MethodDef[capacity];
+    methodLogger = new MethodLogger[capacity];
+    depth = new int[capacity];
+    startTime = new long[capacity];
+    time = new long[capacity];
+    value = new Object[capacity];
+  }
+
+
+  void record(byte type, @NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+              int depth, long startTime, long time, Object value)
+  {
+    final int n = next;
+
+    this.type[n] = type;
+    this.methodDef[n] = methodDef;
+    this.methodLogger[n] = methodLogger;
+    this.depth[n] = depth;
+    this.startTime[n] = startTime;
+    this.time[n] = time;
+    this.value[n] = value;
+
+    next = n + 1 == this.type.length ? 0 : n + 1;
+    if (size < this.type.length)
+      size++;
+  }
+
+
+  /**
+   * Returns the number of recorded events.
+   *
+   * @return  number of recorded events
+   */
+  int size() {
+    return size;
+  }
+
+
+  /**
+   * Returns the buffer index of the given recorded event.
+   *
+   * @param event  event number, {@code 0} being the oldest recorded event
+   *
+   * @return  buffer index
+   */
+  int index(int event)
+  {
+    final int index = next - size + event;
+
+    return index < 0 ? index + type.length : index;
+  }
+
+
+  /**
+   * Remove all recorded events, releasing the references to methods, arguments, results and
+   * exceptions.
+   */
+  void clear()
+  {
+    if (size > 0)
+    {
+      fill(methodDef, null);
+      fill(methodLogger, null);
+      fill(value, null);
+
+      next = size = 0;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.intellij.lang.annotations.Language;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+
+/**
+ * Parameter or result format consisting of literal text and plain placeholders only, like
+ * {@code %{parameter}=%{value}} or {@code result = %{result}}.
+ * <p>
+ * Such a format is rendered by appending its literal text and the values straight into the log
+ * line, without formatting a message. Formats with placeholder configurations, templates, escape
+ * sequences or surplus spaces are not parsed and remain with the message support.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@SuppressWarnings("UnknownLanguage")
+final class LineTemplate implements Serializable
+{
+  /** Text preceding the name placeholder, or the value placeholder if there's no name. */
+  final @NotNull String prefix;
+
+  /** Text between the name and value placeholder, empty if there's no name placeholder. */
+  final @NotNull String infix;
+
+  /** Text following the value placeholder. */
+  final @NotNull String suffix;
+
+  /**
+   * Tells whether the value placeholder is adjacent to a space. Message formats drop such spaces
+   * if the value is empty, so empty values are left to the message support.
+   */
+  final boolean spacedValue;
+
+
+  private LineTemplate(@NotNull String prefix, @NotNull String infix, @NotNull String suffix)
+  {
+    this.prefix = prefix;
+    this.infix = infix;
+    this.suffix = suffix;
+
+    final String preceding = infix.isEmpty() ? prefix : infix;
+
+    spacedValue = preceding.endsWith(" ") || suffix.startsWith(" ");
+  }
+
+
+  /**
+   * Parse a simple format with an optional name placeholder followed by a value placeholder.
+   *
+   * @param format  message format, not {@code null}
+   * @param name    name of the name placeholder or {@code null} if the format has no name
+   * @param value   name of the value placeholder, not {@code null}
+   *
+   * @return  line template or {@code null} if the format is not a simple format
+   */
+  @Contract(pure = true)
+  static LineTemplate parse(@NotNull @Language("MessageFormat") String format, String name,
+                            @NotNull String value)
+  {
+    final String valuePlaceholder = "%{" + value + '}';
+    final int valueIndex = format.indexOf(valuePlaceholder);
+
+    if (valueIndex < 0)
+      return null;
+
+    String prefix = format.substring(0, valueIndex);
+    String infix = "";
+
+    if (name != null)
+    {
+      final String namePlaceholder = "%{" + name + '}';
+      final int nameIndex = prefix.indexOf(namePlaceholder);
+
+      if (nameIndex < 0)
+        return null;
+
+      infix = prefix.substring(nameIndex + namePlaceholder.length());
+      prefix = prefix.substring(0, nameIndex);
+    }
+
+    final String suffix = format.substring(valueIndex + valuePlaceholder.length());
+
+    return isLiteral(prefix) && isLiteral(infix) && isLiteral(suffix) &&
+        !prefix.startsWith(" ") && !suffix.endsWith(" ")
+        ? new LineTemplate(prefix, infix, suffix) : null;
+  }
+
+
+  /**
+   * Tells whether {@code text} is rendered as is by a message format, that is, it contains no
+   * placeholders, escape sequences or characters other than single spaces.
+   */
+  @Contract(pure = true)
+  private static boolean isLiteral(@NotNull String text)
+  {
+    for(int n = 0, length = text.length(); n < length; n++)
+    {
+      final char c = text.charAt(n);
+
+      if (c == '%' || c == '\\' || c == '{' || c == '}' ||
+          (Character.isWhitespace(c) && (c != ' ' || (n > 0 && text.charAt(n - 1) == ' '))))
+        return false;
+    }
+
+    return true;
+  }
+}
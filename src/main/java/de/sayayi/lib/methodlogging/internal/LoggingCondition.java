@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Arrays;
+
+import static java.lang.Boolean.TRUE;
+import static java.lang.System.identityHashCode;
+
+
+/**
+ * Compiled {@code condition} and {@code resultCondition} expressions of a logged method.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class LoggingCondition
+{
+  private final Expression condition;
+  private final Expression resultCondition;
+  private final String[] parameterNames;
+
+  /** Class loader the expressions have been compiled with. */
+  private final ClassLoader classLoader;
+
+
+  LoggingCondition(Expression condition, Expression resultCondition,
+                   @NotNull String[] parameterNames, ClassLoader classLoader)
+  {
+    this.condition = condition;
+    this.resultCondition = resultCondition;
+    this.parameterNames = parameterNames;
+    this.classLoader = classLoader;
+  }
+
+
+  boolean hasResultCondition() {
+    return resultCondition != null;
+  }
+
+
+  /**
+   * Conditions are equal if their expressions are equal and have been compiled with the same
+   * class loader. Conditions of equally named classes loaded by different class loaders are never
+   * shared, as their compiled expressions refer to the classes of their own class loader.
+   */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof LoggingCondition))
+      return false;
+
+    final LoggingCondition that = (LoggingCondition)o;
+
+    return classLoader == that.classLoader &&
+        expressionString(condition).equals(expressionString(that.condition)) &&
+        expressionString(resultCondition).equals(expressionString(that.resultCondition)) &&
+        Arrays.equals(parameterNames, that.parameterNames);
+  }
+
+
+  @Override
+  public int hashCode()
+  {
+    return (identityHashCode(classLoader) * 31 + expressionString(condition).hashCode()) * 31 +
+        expressionString(resultCondition).hashCode();
+  }
+
+
+  /**
+   * Evaluate the condition on method entry.
+   *
+   * @param invocation  method invocation, not {@code null}
+   *
+   * @return  {@code true} if the method invocation is to be logged, {@code false} otherwise
+   */
+  boolean matches(@NotNull MethodInvocation invocation)
+  {
+    return condition == null || evaluate(condition, invocation, null, null, 0);
+  }
+
+
+  /**
+   * Evaluate the result condition on method exit.
+   *
+   * @param invocation  method invocation, not {@code null}
+   * @param result      method result or {@code null}
+   * @param exception   exception thrown by the method or {@code null}
+   * @param elapsedMs   time spent in the method in milliseconds
+   *
+   * @return  {@code true} if the method invocation is to be logged, {@code false} otherwise
+   */
+  boolean matchesResult(@NotNull MethodInvocation invocation, Object result, Throwable exception,
+                        long elapsedMs)
+  {
+    return resultCondition == null ||
+        evaluate(resultCondition, invocation, result, exception, elapsedMs);
+  }
+
+
+  private static @NotNull String expressionString(Expression expression) {
+    return expression == null ? "" : expression.getExpressionString();
+  }
+
+
+  private boolean evaluate(@NotNull Expression expression, @NotNull MethodInvocation invocation,
+                           Object result, Throwable exception, long elapsedMs)
+  {
+    final CallStack callStack = CallStack.get();
+    ConditionEvaluationContext context = callStack.evaluationContext;
+
+    // take the context from the call stack, as the expression may invoke a logged method itself
+    if (context == null)
+      context = new ConditionEvaluationContext();
+    else
+      callStack.evaluationContext = null;
+
+    final MethodLoggingExpressionRoot root = context.root;
+
+    root.method = invocation.getMethod();
+    root.target = invocation.getThis();
+    root.args = invocation.getArguments();
+    root.result = result;
+    root.exception = exception;
+    root.elapsedMs = elapsedMs;
+
+    context.parameterNames = parameterNames;
+
+    try {
+      return TRUE.equals(expression.getValue(context, Boolean.class));
+    } catch(RuntimeException ex) {
+      // evaluation failures and exceptions thrown by invoked methods: log anyway
+      return true;
+    } finally {
+      root.clear();
+      context.parameterNames = null;
+      callStack.evaluationContext = context;
+    }
+  }
+
+
+
+
+  /**
+   * Evaluation context resolving method parameters, {@code #result} and {@code #exception}
+   * directly from the root object. An instance is reused for all evaluations on a thread.
+   */
+  static final class ConditionEvaluationContext extends StandardEvaluationContext
+  {
+    final MethodLoggingExpressionRoot root;
+    String[] parameterNames;
+
+
+    ConditionEvaluationContext()
+    {
+      super(new MethodLoggingExpressionRoot());
+
+      root = (MethodLoggingExpressionRoot)getRootObject().getValue();
+    }
+
+
+    @Override
+    public Object lookupVariable(@NotNull String name)
+    {
+      final Object[] args = root.args;
+
+      if ("result".equals(name))
+        return root.result;
+      if ("exception".equals(name))
+        return root.exception;
+
+      for(int n = 0; n < parameterNames.length; n++)
+        if (parameterNames[n].equals(name))
+          return args[n];
+
+      final int index = parameterIndex(name);
+      if (index >= 0 && index < args.length)
+        return args[index];
+
+      return super.lookupVariable(name);
+    }
+
+
+    private static int parameterIndex(@NotNull String name)
+    {
+      final int length = name.length();
+
+      if (length < 2 || (name.charAt(0) != 'p' && name.charAt(0) != 'a'))
+        return -1;
+
+      int index = 0;
+
+      for(int n = 1; n < length; n++)
+      {
+        final char c = name.charAt(n);
+        if (c < '0' || c > '9')
+          return -1;
+
+        index = index * 10 + (c - '0');
+      }
+
+      return index;
+    }
+  }
+}
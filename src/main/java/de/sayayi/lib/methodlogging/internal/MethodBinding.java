@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.MethodLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Binding of an invoked method to its method definition, for a single bean class. The binding
+ * is matched by method identity, as proxies pass the same method instance on each invocation.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class MethodBinding
+{
+  static final MethodBinding[] NONE = new MethodBinding[0];
+
+  final @NotNull Method method;
+  final @NotNull Class<?> thisType;
+  final @NotNull MethodDef methodDef;
+
+  /** Method logger or {@code null} if the method logger must be resolved on each invocation. */
+  final MethodLogger methodLogger;
+
+  /** Method definition cache generation the method definition was resolved in. */
+  final int generation;
+
+
+  MethodBinding(@NotNull Method method, @NotNull Class<?> thisType, @NotNull MethodDef methodDef,
+                MethodLogger methodLogger, int generation)
+  {
+    this.method = method;
+    this.thisType = thisType;
+    this.methodDef = methodDef;
+    this.methodLogger = methodLogger;
+    this.generation = generation;
+  }
+
+
+  /**
+   * Returns the bindings with the given binding added, replacing a binding for the same method.
+   */
+  static @NotNull MethodBinding[] bind(@NotNull MethodBinding[] bindings,
+                                       @NotNull MethodBinding binding)
+  {
+    for(int n = 0; n < bindings.length; n++)
+      if (bindings[n].method == binding.method)
+      {
+        final MethodBinding[] newBindings = bindings.clone();
+        newBindings[n] = binding;
+
+        return newBindings;
+      }
+
+    final MethodBinding[] newBindings = new MethodBinding[bindings.length + 1];
+    System.arraycopy(bindings, 0, newBindings, 0, bindings.length);
+    newBindings[bindings.length] = binding;
+
+    return newBindings;
+  }
+}
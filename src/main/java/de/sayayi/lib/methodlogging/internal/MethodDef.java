@@ -17,21 +17,32 @@ package de.sayayi.lib.methodlogging.internal;
 
 import de.sayayi.lib.message.Message;
 import de.sayayi.lib.message.MessageSupport;
+import de.sayayi.lib.methodlogging.ParameterAppender;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig;
+import de.sayayi.lib.methodlogging.journal.InvocationJournal;
+import de.sayayi.lib.methodlogging.journal.JournaledMethod;
 import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility.SHOW;
 import static de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig.*;
+import static org.springframework.util.ClassUtils.getUserClass;
 
 
 /**
@@ -43,96 +54,354 @@ final class MethodDef implements Serializable
 {
   final String methodEntryPrefix;
   final String methodExitPrefix;
-  final List<ParameterDef> inlineParameters;
-  final List<ParameterDef> inMethodParameters;
-  @Language("MessageFormat") String inlineParameterFormat;
-  @Language("MessageFormat") String parameterFormat;
-  @Language("MessageFormat") String resultFormat;
+  final ParameterDef[] inlineParameters;
+  final ParameterDef[] inMethodParameters;
+  final @Language("MessageFormat") String inlineParameterFormat;
+  final @Language("MessageFormat") String parameterFormat;
+  final @Language("MessageFormat") String resultFormat;
+
+  /** Templates for simple formats, rendered without formatting a message, or {@code null}. */
+  final LineTemplate inlineParameterTemplate;
+  final LineTemplate parameterTemplate;
+  final LineTemplate resultTemplate;
+
+  final String className;
   final String methodName;
+  final String methodSignature;
   final int line;
-  final boolean showElapsedTime;
-  final boolean showResult;
+  final StackTraceElement location;
+  final boolean returnsValue;
+  final boolean asyncResult;
+  final boolean streamResult;
+  final boolean span;
   final Field loggerField;
-  final Level entryExitLevel;
-  final Level parameterLevel;
-  final Level resultLevel;
+  final MethodStatistics statistics;
+  final LoggingCondition condition;
+  final ExceptionRateLimiter exceptionRateLimiter;
+
+  /** Appender for non-null results, bound for the default result format only. */
+  final ParameterAppender resultAppender;
+
+  /** Maximum number of characters for results formatted by the message context, 0 = unlimited. */
+  final int resultMaxLength;
+
+  /** Elapsed time from which on deferred parameters are rendered, 0 = on exception only. */
+  final int slowCallThreshold;
+  final boolean deferredParameters;
+  final boolean snapshotParameters;
+
+  // runtime reconfigurable; only modified on a copy before it is published
+  boolean showParameters;
+  boolean showElapsedTime;
+  boolean showResult;
+  Level entryExitLevel;
+  Level parameterLevel;
+  Level resultLevel;
 
-  Message inlineParameterMessage;
-  Message parameterMessage;
-  Message resultMessage;
+  // compiled lazily without locking; concurrent first invocations may compile a message twice
+  volatile Message inlineParameterMessage;
+  volatile Message parameterMessage;
+  volatile Message resultMessage;
+
+  volatile JournaledMethod journaledMethod;
+
+  /** Span template, created by the method tracing on first use. */
+  volatile Object spanTemplate;
+
+  /** Time until which result formatting is disabled or {@code 0} if formatting is enabled. */
+  volatile long resultFormattingDisabledUntil;
+
+  /** Set on each cache lookup, cleared by cache eviction. */
+  boolean accessed;
 
 
   MethodDef(@NotNull MethodLoggingConfig methodLoggingConfig,
             @NotNull List<ParameterDef> parameters, @NotNull MethodLogging methodLogging,
-            @NotNull Method method, int line, Field loggerField)
+            @NotNull Method method, @NotNull Class<?> targetClass,
+            @NotNull StackTraceElement location, Field loggerField,
+            LoggingCondition condition, ParameterAppender resultAppender, int resultMaxLength)
   {
-    methodEntryPrefix = methodLoggingConfig.methodEntryPrefix();
-    methodExitPrefix = methodLoggingConfig.methodExitPrefix();
-
-    inlineParameters = new ArrayList<>();
-    inMethodParameters = new ArrayList<>();
+    methodEntryPrefix = methodLoggingConfig.methodEntryPrefix().intern();
+    methodExitPrefix = methodLoggingConfig.methodExitPrefix().intern();
 
-    parameters.forEach(parameterDef ->
-        (parameterDef.inline ? inlineParameters : inMethodParameters).add(parameterDef));
-
-    ((ArrayList<ParameterDef>)inlineParameters).trimToSize();
-    ((ArrayList<ParameterDef>)inMethodParameters).trimToSize();
+    inlineParameters = parameters.stream()
+        .filter(parameterDef -> parameterDef.inline)
+        .toArray(ParameterDef[]::new);
+    inMethodParameters = parameters.stream()
+        .filter(parameterDef -> !parameterDef.inline)
+        .toArray(ParameterDef[]::new);
+    deferredParameters = parameters.stream().anyMatch(parameterDef -> parameterDef.deferred);
+    snapshotParameters = parameters.stream().anyMatch(parameterDef -> parameterDef.snapshot);
 
     this.loggerField = loggerField;
-    this.line = line;
+    this.location = location;
+    line = location.getLineNumber();
+    this.condition = condition;
+    this.resultAppender = resultAppender;
+    this.resultMaxLength = resultMaxLength;
+
+    statistics = new MethodStatistics();
+    exceptionRateLimiter = new ExceptionRateLimiter();
 
-    methodName = method.getName();
+    className = getUserClass(targetClass).getName().intern();
+    methodName = method.getName().intern();
+    methodSignature = getMethodSignature(method).intern();
     inlineParameterFormat =
-        notEmpty(methodLogging.inlineParameterFormat(), DEFAULT_INLINE_PARAMETER_FORMAT);
-    parameterFormat = notEmpty(methodLogging.parameterFormat(), DEFAULT_PARAMETER_FORMAT);
-    resultFormat = notEmpty(methodLogging.resultFormat(), DEFAULT_RESULT_FORMAT);
+        notEmpty(methodLogging.inlineParameterFormat(), DEFAULT_INLINE_PARAMETER_FORMAT).intern();
+    parameterFormat =
+        notEmpty(methodLogging.parameterFormat(), DEFAULT_PARAMETER_FORMAT).intern();
+    resultFormat = notEmpty(methodLogging.resultFormat(), DEFAULT_RESULT_FORMAT).intern();
+    inlineParameterTemplate = LineTemplate.parse(inlineParameterFormat, "parameter", "value");
+    parameterTemplate = LineTemplate.parse(parameterFormat, "parameter", "value");
+    resultTemplate = LineTemplate.parse(resultFormat, null, "result");
+    showParameters = methodLogging.parameters() == SHOW;
     showElapsedTime = methodLogging.elapsedTime() == SHOW;
-    showResult = method.getReturnType() != void.class && methodLogging.result() == SHOW;
+    returnsValue = method.getReturnType() != void.class;
+    showResult = returnsValue && methodLogging.result() == SHOW;
+    asyncResult = isAsyncType(method.getReturnType());
+    streamResult = isStreamType(method.getReturnType());
+    span = methodLogging.span() == SHOW;
+    slowCallThreshold = methodLogging.slowCallThreshold();
     entryExitLevel = methodLogging.entryExitLevel();
     parameterLevel = methodLogging.parameterLevel();
     resultLevel = methodLogging.resultLevel();
   }
 
 
+  private MethodDef(@NotNull MethodDef methodDef)
+  {
+    methodEntryPrefix = methodDef.methodEntryPrefix;
+    methodExitPrefix = methodDef.methodExitPrefix;
+    inlineParameters = methodDef.inlineParameters;
+    inMethodParameters = methodDef.inMethodParameters;
+    inlineParameterFormat = methodDef.inlineParameterFormat;
+    parameterFormat = methodDef.parameterFormat;
+    resultFormat = methodDef.resultFormat;
+    inlineParameterTemplate = methodDef.inlineParameterTemplate;
+    parameterTemplate = methodDef.parameterTemplate;
+    resultTemplate = methodDef.resultTemplate;
+    inlineParameterMessage = methodDef.inlineParameterMessage;
+    parameterMessage = methodDef.parameterMessage;
+    resultMessage = methodDef.resultMessage;
+
+    journaledMethod = methodDef.journaledMethod;
+    spanTemplate = methodDef.spanTemplate;
+    resultFormattingDisabledUntil = methodDef.resultFormattingDisabledUntil;
+
+    className = methodDef.className;
+    methodName = methodDef.methodName;
+    methodSignature = methodDef.methodSignature;
+    line = methodDef.line;
+    location = methodDef.location;
+    returnsValue = methodDef.returnsValue;
+    asyncResult = methodDef.asyncResult;
+    streamResult = methodDef.streamResult;
+    span = methodDef.span;
+    loggerField = methodDef.loggerField;
+    condition = methodDef.condition;
+    resultAppender = methodDef.resultAppender;
+    resultMaxLength = methodDef.resultMaxLength;
+    slowCallThreshold = methodDef.slowCallThreshold;
+    deferredParameters = methodDef.deferredParameters;
+    snapshotParameters = methodDef.snapshotParameters;
+    statistics = methodDef.statistics;
+    exceptionRateLimiter = methodDef.exceptionRateLimiter;
+    showParameters = methodDef.showParameters;
+    showElapsedTime = methodDef.showElapsedTime;
+    showResult = methodDef.showResult;
+    entryExitLevel = methodDef.entryExitLevel;
+    parameterLevel = methodDef.parameterLevel;
+    resultLevel = methodDef.resultLevel;
+  }
+
+
+  /**
+   * Create a copy of this method definition. The copy can be reconfigured before it replaces
+   * this instance in the method definition cache.
+   *
+   * @return  copy of this method definition, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull MethodDef copy() {
+    return new MethodDef(this);
+  }
+
+
+  /**
+   * Tells whether this method definition matches the given {@code target}, which is either
+   * {@code *} (all methods), a class name, a class name and method name separated by {@code #}
+   * or a class name and method signature separated by {@code #}.
+   *
+   * @param target  target class/method, not {@code null}
+   *
+   * @return  {@code true} if this method definition matches the target, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean matches(@NotNull String target)
+  {
+    if ("*".equals(target))
+      return true;
+
+    final int hash = target.indexOf('#');
+    if (hash == -1)
+      return className.equals(target);
+
+    if (hash != className.length() || !target.startsWith(className))
+      return false;
+
+    final String method = target.substring(hash + 1);
+
+    return methodName.equals(method) || methodSignature.equals(method);
+  }
+
+
+  /**
+   * Method definitions are equal if they log method invocations in the same way. Runtime state,
+   * like compiled messages and statistics, is not compared.
+   */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof MethodDef))
+      return false;
+
+    final MethodDef that = (MethodDef)o;
+
+    return line == that.line && returnsValue == that.returnsValue &&
+        asyncResult == that.asyncResult && streamResult == that.streamResult &&
+        span == that.span &&
+        showParameters == that.showParameters &&
+        showElapsedTime == that.showElapsedTime && showResult == that.showResult &&
+        entryExitLevel == that.entryExitLevel && parameterLevel == that.parameterLevel &&
+        resultLevel == that.resultLevel && className.equals(that.className) &&
+        methodSignature.equals(that.methodSignature) &&
+        methodEntryPrefix.equals(that.methodEntryPrefix) &&
+        methodExitPrefix.equals(that.methodExitPrefix) &&
+        inlineParameterFormat.equals(that.inlineParameterFormat) &&
+        parameterFormat.equals(that.parameterFormat) && resultFormat.equals(that.resultFormat) &&
+        Objects.equals(loggerField, that.loggerField) &&
+        Objects.equals(condition, that.condition) && location.equals(that.location) &&
+        resultMaxLength == that.resultMaxLength && slowCallThreshold == that.slowCallThreshold &&
+        Objects.equals(resultAppender, that.resultAppender) &&
+        Arrays.equals(inlineParameters, that.inlineParameters) &&
+        Arrays.equals(inMethodParameters, that.inMethodParameters);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return (className.hashCode() * 31 + methodSignature.hashCode()) * 31 + line;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder s = new StringBuilder(className).append('#').append(methodSignature);
+
+    if (line > 0)
+      s.append(':').append(line);
+
+    s.append(" [entryExit=").append(entryExitLevel)
+     .append(", parameters=").append(showParameters ? parameterLevel.name() : "HIDE");
+
+    if (returnsValue)
+      s.append(", result=").append(showResult ? resultLevel.name() : "HIDE");
+
+    return s.append(", elapsedTime=").append(showElapsedTime ? "SHOW" : "HIDE")
+        .append(']').toString();
+  }
+
+
   @NotNull Message getInlineParameterMessage(@NotNull MessageSupport messageSupport)
   {
-    synchronized(this) {
-      if (inlineParameterMessage == null)
-      {
-        inlineParameterMessage = messageSupport.message(inlineParameterFormat).getMessage();
-        inlineParameterFormat = null;
-      }
-
-      return inlineParameterMessage;
-    }
+    Message message = inlineParameterMessage;
+
+    if (message == null)
+      inlineParameterMessage = message = messageSupport.message(inlineParameterFormat).getMessage();
+
+    return message;
   }
 
 
   @NotNull Message getParameterMessage(@NotNull MessageSupport messageSupport)
   {
-    synchronized(this) {
-      if (parameterMessage == null)
-      {
-        parameterMessage = messageSupport.message(parameterFormat).getMessage();
-        parameterFormat = null;
-      }
-
-      return parameterMessage;
-    }
+    Message message = parameterMessage;
+
+    if (message == null)
+      parameterMessage = message = messageSupport.message(parameterFormat).getMessage();
+
+    return message;
   }
 
 
   @NotNull Message getResultMessage(@NotNull MessageSupport messageSupport)
   {
-    synchronized(this) {
-      if (resultMessage == null)
-      {
-        resultMessage = messageSupport.message(resultFormat).getMessage();
-        resultFormat = null;
-      }
-
-      return resultMessage;
+    Message message = resultMessage;
+
+    if (message == null)
+      resultMessage = message = messageSupport.message(resultFormat).getMessage();
+
+    return message;
+  }
+
+
+  @NotNull JournaledMethod getJournaledMethod(@NotNull InvocationJournal invocationJournal)
+  {
+    JournaledMethod method = journaledMethod;
+
+    // registered lazily without locking; concurrent first invocations may register the method
+    // twice, which only adds an unused method definition to the journal
+    if (method == null)
+    {
+      final TreeMap<Integer,String> parameters = new TreeMap<>();
+
+      for(final ParameterDef parameterDef: inlineParameters)
+        parameters.put(parameterDef.index, parameterDef.name);
+      for(final ParameterDef parameterDef: inMethodParameters)
+        parameters.put(parameterDef.index, parameterDef.name);
+
+      journaledMethod = method = invocationJournal.method(className, methodName,
+          parameters.values().toArray(new String[0]),
+          parameters.keySet().stream().mapToInt(Integer::intValue).toArray());
     }
+
+    return method;
+  }
+
+
+
+  @Contract(pure = true)
+  private static @NotNull String getMethodSignature(@NotNull Method method)
+  {
+    final StringJoiner signature = new StringJoiner(",", method.getName() + '(', ")");
+
+    for(final Class<?> parameterType: method.getParameterTypes())
+      signature.add(parameterType.getSimpleName());
+
+    return signature.toString();
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isAsyncType(@NotNull Class<?> returnType)
+  {
+    return
+        CompletionStage.class.isAssignableFrom(returnType) ||
+        ListenableFuture.class.isAssignableFrom(returnType);
+  }
+
+
+  /**
+   * Tells whether the method result can be replaced by a lazy wrapper. This is only the case if
+   * the method is declared to return exactly a {@link Stream} or {@link Iterator}, as a wrapper
+   * cannot implement any subtype.
+   */
+  @Contract(pure = true)
+  private static boolean isStreamType(@NotNull Class<?> returnType) {
+    return returnType == Stream.class || returnType == Iterator.class;
   }
 
 
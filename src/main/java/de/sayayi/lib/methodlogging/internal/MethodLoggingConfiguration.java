@@ -21,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.AbstractBeanFactoryPointcutAdvisor;
 import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,6 +31,7 @@ import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
 
+import javax.management.JMException;
 import java.lang.reflect.Method;
 
 import static org.springframework.beans.factory.config.BeanDefinition.ROLE_INFRASTRUCTURE;
@@ -82,7 +84,7 @@ public class MethodLoggingConfiguration implements ImportAware
         return new StaticMethodMatcherPointcut() {
           @Override
           public boolean matches(@NotNull Method method, @NotNull Class<?> targetClass) {
-            return annotationMethodLoggingSource.getMethodDefinition(method, targetClass) != null;
+            return annotationMethodLoggingSource.isMethodLogged(method, targetClass);
           }
         };
       }
@@ -98,7 +100,29 @@ public class MethodLoggingConfiguration implements ImportAware
   @Bean @Role(ROLE_INFRASTRUCTURE)
   MethodLoggingInterceptor internalMethodLoggingInterceptor(
       AnnotationMethodLoggingSource annotationMethodLoggingSource,
-      ResourceLoader resourceLoader) {
-    return new MethodLoggingInterceptor(annotationMethodLoggingSource, resourceLoader);
+      ResourceLoader resourceLoader, ObjectProvider<MethodTracing> methodTracing)
+  {
+    return new MethodLoggingInterceptor(annotationMethodLoggingSource, resourceLoader,
+        methodTracing.getIfAvailable());
+  }
+
+
+  @Bean @Role(ROLE_INFRASTRUCTURE)
+  MethodLoggingPreAnalysis internalMethodLoggingPreAnalysis(
+      AnnotationMethodLoggingSource annotationMethodLoggingSource,
+      MethodLoggingInterceptor methodLoggingInterceptor)
+  {
+    return new MethodLoggingPreAnalysis(annotationMethodLoggingSource, methodLoggingInterceptor,
+        annotationMethodLoggingSource.methodLoggingConfigurer.analysisParallelism());
+  }
+
+
+  @Bean @Role(ROLE_INFRASTRUCTURE)
+  MethodLoggingMBeanRegistration internalMethodLoggingMBeanRegistration(
+      AnnotationMethodLoggingSource annotationMethodLoggingSource,
+      MethodLoggingInterceptor methodLoggingInterceptor) throws JMException
+  {
+    return new MethodLoggingMBeanRegistration(methodLoggingInterceptor,
+        annotationMethodLoggingSource.methodLoggingConfigurer.jmxObjectName());
   }
 }
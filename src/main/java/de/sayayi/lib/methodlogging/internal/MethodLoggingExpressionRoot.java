@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.annotation.MethodLogging;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Root object for {@link MethodLogging#condition()} and {@link MethodLogging#resultCondition()}
+ * expressions.
+ * <p>
+ * This class must be public, so compiled expressions can access its properties.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+public final class MethodLoggingExpressionRoot
+{
+  Method method;
+  Object target;
+  Object[] args;
+  Object result;
+  Throwable exception;
+  long elapsedMs;
+
+
+  MethodLoggingExpressionRoot() {
+  }
+
+
+  public Method getMethod() {
+    return method;
+  }
+
+
+  public Object getTarget() {
+    return target;
+  }
+
+
+  public Object[] getArgs() {
+    return args;
+  }
+
+
+  public Object getResult() {
+    return result;
+  }
+
+
+  public Throwable getException() {
+    return exception;
+  }
+
+
+  public long getElapsedMs() {
+    return elapsedMs;
+  }
+
+
+  void clear()
+  {
+    method = null;
+    target = null;
+    args = null;
+    result = null;
+    exception = null;
+    elapsedMs = 0;
+  }
+}
@@ -21,19 +21,66 @@ import de.sayayi.lib.message.formatter.DefaultFormatterService;
 import de.sayayi.lib.methodlogging.MethodLogger;
 import de.sayayi.lib.methodlogging.MethodLoggerFactory;
 import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
+import de.sayayi.lib.methodlogging.MethodLoggingConfigurer.CallNesting;
+import de.sayayi.lib.methodlogging.MethodLoggingConfigurer.ExceptionPolicy;
+import de.sayayi.lib.methodlogging.MethodLoggingControl;
+import de.sayayi.lib.methodlogging.MethodLoggingStatistics;
+import de.sayayi.lib.methodlogging.ParameterAppender;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility;
+import de.sayayi.lib.methodlogging.internal.MethodStatistics.Probe;
+import de.sayayi.lib.methodlogging.journal.InvocationJournal;
+import de.sayayi.lib.methodlogging.logger.AbstractMethodLoggerFactory;
 import de.sayayi.lib.methodlogging.logger.AutoDetectLoggerFactory;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.aop.TargetClassAware;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
-import java.util.StringJoiner;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static de.sayayi.lib.message.MessageFactory.NO_CACHE_INSTANCE;
+import static de.sayayi.lib.methodlogging.MethodLoggingConfigurer.CallNesting.*;
+import static de.sayayi.lib.methodlogging.MethodLoggingConfigurer.ExceptionPolicy.NAME;
+import static de.sayayi.lib.methodlogging.MethodLoggingConfigurer.ExceptionPolicy.STACK_TRACE;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility.SHOW;
+import static de.sayayi.lib.methodlogging.internal.FlightRecording.*;
+import static java.lang.Math.max;
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.identityHashCode;
+import static java.lang.System.nanoTime;
+import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.SIZED;
+import static java.util.Spliterator.SUBSIZED;
+import static java.util.stream.Collectors.toList;
 import static org.springframework.aop.framework.AopProxyUtils.ultimateTargetClass;
 import static org.springframework.util.StringUtils.hasLength;
 
@@ -42,18 +89,44 @@ import static org.springframework.util.StringUtils.hasLength;
  * @author Jeroen Gremmen
  * @since 0.1.0
  */
-public final class MethodLoggingInterceptor implements MethodInterceptor
+public final class MethodLoggingInterceptor implements MethodInterceptor, MethodLoggingControl
 {
   private final AnnotationMethodLoggingSource annotationMethodLoggingSource;
 
+  private final CallNesting callNesting;
+  private final int maxCallDepth;
+  private final ClassValue<ExceptionType> exceptionTypes;
+  private final Level stackTraceLevel;
+  private final int exceptionRateLimit;
+  private final InvocationJournal invocationJournal;
+  private final int flightRecorderSize;
+  private final Level flightRecorderLevel;
+  private final long collapseRepeatedInvocations;
+  private final long parameterFormattingBudget;
+  private final long parameterFormattingCooldown;
+  private final MethodTracing methodTracing;
+
+  /** Method bindings by bean class. */
+  private final ClassValue<AtomicReference<MethodBinding[]>> methodBindings =
+      new ClassValue<AtomicReference<MethodBinding[]>>() {
+        @Override
+        protected AtomicReference<MethodBinding[]> computeValue(Class<?> type) {
+          return new AtomicReference<>(MethodBinding.NONE);
+        }
+      };
+
   private MessageSupport messageSupport;
   private MethodLoggerFactory methodLoggerFactory;
 
+  private volatile boolean enabled = true;
+  private volatile boolean collectStatistics;
+
 
   MethodLoggingInterceptor(@NotNull AnnotationMethodLoggingSource annotationMethodLoggingSource,
-                           @NotNull ResourceLoader resourceLoader)
+                           @NotNull ResourceLoader resourceLoader, MethodTracing methodTracing)
   {
     this.annotationMethodLoggingSource = annotationMethodLoggingSource;
+    this.methodTracing = methodTracing;
 
     final MethodLoggingConfigurer methodLoggingConfigurer =
         annotationMethodLoggingSource.methodLoggingConfigurer;
@@ -67,182 +140,1997 @@ public final class MethodLoggingInterceptor implements MethodInterceptor
 
     if ((methodLoggerFactory = methodLoggingConfigurer.methodLoggerFactory()) == null)
       methodLoggerFactory = new AutoDetectLoggerFactory();
+
+    callNesting = requireNonNull(methodLoggingConfigurer.callNesting());
+    maxCallDepth = methodLoggingConfigurer.maxCallDepth();
+    collectStatistics = methodLoggingConfigurer.collectStatistics();
+    exceptionTypes = new ExceptionTypes(methodLoggingConfigurer);
+    stackTraceLevel = requireNonNull(methodLoggingConfigurer.stackTraceLevel());
+    exceptionRateLimit = methodLoggingConfigurer.exceptionRateLimit();
+    invocationJournal = methodLoggingConfigurer.invocationJournal();
+    flightRecorderSize = methodLoggingConfigurer.flightRecorderSize();
+    flightRecorderLevel = requireNonNull(methodLoggingConfigurer.flightRecorderLevel());
+    collapseRepeatedInvocations = methodLoggingConfigurer.collapseRepeatedInvocations();
+    parameterFormattingBudget = methodLoggingConfigurer.parameterFormattingBudget();
+    parameterFormattingCooldown = methodLoggingConfigurer.parameterFormattingCooldown();
   }
 
 
   @Override
   public Object invoke(@NotNull MethodInvocation invocation) throws Throwable
   {
+    if (!enabled)
+      return invocation.proceed();
+
     final Object _this = requireNonNull(invocation.getThis());
+    final MethodBinding methodBinding = getMethodBinding(invocation.getMethod(), _this);
+    if (methodBinding == null)
+      return invocation.proceed();
+
+    final MethodDef methodDef = methodBinding.methodDef;
+    MethodLogger methodLogger = methodBinding.methodLogger;
+
+    if (methodLogger == null)
+      methodLogger = methodLoggerFactory.from(methodDef.loggerField, _this, methodBinding.thisType);
+
+    if (methodTracing != null && methodDef.span)
+      return invokeTraced(invocation, methodDef, methodLogger);
+
+    return invocationJournal == null
+        ? invoke(invocation, methodDef, methodLogger)
+        : invokeJournaled(invocation, methodDef, methodLogger);
+  }
+
+
+  /**
+   * Invoke a method within a tracing span. The span is current while the method is logged and
+   * invoked, so spans of nested logged method invocations become its children. For methods
+   * returning a future or stream, the span ends when the method exit is logged, that is on
+   * completion of the future or when the stream is closed or exhausted.
+   */
+  private Object invokeTraced(@NotNull MethodInvocation invocation,
+                              @NotNull MethodDef methodDef,
+                              @NotNull MethodLogger methodLogger) throws Throwable
+  {
+    final Object span = methodTracing.startSpan(methodDef, invocation.getArguments());
+    final Object result;
+
+    try {
+      result = invocationJournal == null
+          ? invoke(invocation, methodDef, methodLogger)
+          : invokeJournaled(invocation, methodDef, methodLogger);
+    } catch(Throwable throwable) {
+      methodTracing.detachSpan(span);
+      methodTracing.endSpan(span, throwable);
+      throw throwable;
+    }
+
+    methodTracing.detachSpan(span);
+
+    if ((methodDef.asyncResult || methodDef.streamResult) && result != null)
+      return new SpanExit(span).attach(result);
+
+    methodTracing.endSpan(span, null);
+
+    return result;
+  }
+
+
+  /**
+   * Returns the method binding for the given method and bean. Bindings are kept per bean class
+   * and matched by method identity, so once a method has been bound, no method definition lookup
+   * is required. Bindings resolved before method definitions were reconfigured, reset or evicted
+   * are bound again.
+   */
+  private MethodBinding getMethodBinding(@NotNull Method method, @NotNull Object _this)
+  {
+    // the target class of a target class aware bean may vary per instance
+    if (_this instanceof TargetClassAware)
+      return bind(method, _this, annotationMethodLoggingSource.generation.get());
+
+    final AtomicReference<MethodBinding[]> classBindings = methodBindings.get(_this.getClass());
+    final int generation = annotationMethodLoggingSource.generation.get();
+
+    for(final MethodBinding methodBinding: classBindings.get())
+      if (methodBinding.method == method)
+      {
+        if (methodBinding.generation != generation)
+          break;
+
+        final MethodDef methodDef = methodBinding.methodDef;
+        if (!methodDef.accessed)
+          methodDef.accessed = true;
+
+        return methodBinding;
+      }
+
+    final MethodBinding methodBinding = bind(method, _this, generation);
+    if (methodBinding != null)
+      classBindings.updateAndGet(bindings -> MethodBinding.bind(bindings, methodBinding));
+
+    return methodBinding;
+  }
+
+
+  private MethodBinding bind(@NotNull Method method, @NotNull Object _this, int generation)
+  {
     final Class<?> thisType = ultimateTargetClass(_this);
     final MethodDef methodDef =
-        annotationMethodLoggingSource.getMethodDefinition(invocation.getMethod(), thisType);
+        annotationMethodLoggingSource.getMethodDefinition(method, thisType);
+
+    if (methodDef == null)
+      return null;
 
     final MethodLogger methodLogger =
-        methodLoggerFactory.from(methodDef.loggerField, _this, thisType);
-    if (!methodLogger.isLogEnabled(methodDef.entryExitLevel))
-      return invocation.proceed();
+        methodLoggerFactory instanceof AbstractMethodLoggerFactory &&
+        ((AbstractMethodLoggerFactory)methodLoggerFactory).isTypeLogger(methodDef.loggerField)
+            ? methodLoggerFactory.from(methodDef.loggerField, _this, thisType)
+            : null;
 
-    final long startTime = currentTimeMillis();
+    return new MethodBinding(method, thisType, methodDef, methodLogger, generation);
+  }
+
+
+  private Object invokeJournaled(@NotNull MethodInvocation invocation,
+                                 @NotNull MethodDef methodDef,
+                                 @NotNull MethodLogger methodLogger) throws Throwable
+  {
+    final long startTime = nanoTime();
     Throwable throwable = null;
 
-    logMethodEntry(methodDef, invocation.getArguments(), methodLogger);
     try {
-      return methodDef.showResult
-          ? logResult(methodDef, methodLogger, invocation.proceed())
-          : invocation.proceed();
+      return invoke(invocation, methodDef, methodLogger);
     } catch(Throwable ex) {
       throw throwable = ex;
     } finally {
-      logMethodExit(methodDef, methodLogger, startTime, throwable);
+      invocationJournal.record(methodDef.getJournaledMethod(invocationJournal), startTime,
+          nanoTime(), throwable, methodDef.showParameters ? invocation.getArguments() : null);
+    }
+  }
+
+
+  private Object invoke(@NotNull MethodInvocation invocation, @NotNull MethodDef methodDef,
+                        @NotNull MethodLogger methodLogger) throws Throwable
+  {
+    if (flightRecorderSize > 0)
+      return invokeRecorded(invocation, methodDef, methodLogger);
+
+    if (!methodLogger.isLogEnabled(methodDef.entryExitLevel))
+      return invocation.proceed();
+
+    final CallStack callStack = CallStack.get();
+    final int depth = callStack.depth;
+
+    if (maxCallDepth > 0 && depth >= maxCallDepth)
+      return invocation.proceed();
+
+    final LoggingCondition condition = methodDef.condition;
+    if (condition != null && !condition.matches(invocation))
+      return invocation.proceed();
+
+    callStack.depth++;
+    try {
+      if (condition != null && condition.hasResultCondition())
+        return invokeResultConditional(invocation, methodDef, methodLogger, condition);
+
+      return callNesting == COLLAPSE && depth > 0
+          ? invokeCollapsed(invocation, methodDef, callStack, depth)
+          : invoke(invocation, methodDef, methodLogger, callStack, depth);
+    } finally {
+      callStack.leave(depth);
     }
   }
 
 
-  private void logMethodEntry(@NotNull MethodDef methodDef, @NotNull Object[] arguments,
-                              @NotNull MethodLogger methodLogger)
+  private Object invoke(@NotNull MethodInvocation invocation, @NotNull MethodDef methodDef,
+                        @NotNull MethodLogger methodLogger, @NotNull CallStack callStack,
+                        int depth) throws Throwable
   {
-    final boolean printParameters = methodLogger.isLogEnabled(methodDef.parameterLevel);
-    final StringBuilder method =
-        new StringBuilder(methodDef.methodEntryPrefix).append(methodDef.methodName);
+    final int indent = callNesting == INDENT ? depth : 0;
+    final StringBuilder callTree = callNesting == COLLAPSE ? callStack.startCallTree() : null;
 
-    if (printParameters && !methodDef.inlineParameters.isEmpty())
+    final Probe probe = collectStatistics ? methodDef.statistics.probe() : null;
+    final long startTime = currentTimeMillis();
+    final Object result;
+
+    final Object[] arguments = invocation.getArguments();
+    final boolean collapseRepeats = collapseRepeatedInvocations > 0 &&
+        !methodDef.asyncResult && !methodDef.streamResult;
+    final boolean entryLogged =
+        logMethodEntry(methodDef, arguments, methodLogger, indent, collapseRepeats, true);
+    if (probe != null)
+      probe.entryLogged();
+
+    final Object[] deferredArguments = logMethodEntry_defer(methodDef, methodLogger, arguments);
+
+    if (!entryLogged)
     {
-      final StringJoiner parameterList = new StringJoiner(",", "(", ")");
-      for(final ParameterDef parameterDef: methodDef.inlineParameters)
+      return invokeRepeated(invocation, methodDef, methodLogger, probe, indent, startTime,
+          callTree, deferredArguments);
+    }
+
+    try {
+      result = invocation.proceed();
+    } catch(Throwable ex) {
+      if (probe != null)
+        probe.proceeded();
+
+      logMethodExit(methodDef, methodLogger, indent, startTime, -1, currentTimeMillis(), callTree,
+          deferredArguments, ex);
+      if (probe != null)
+        probe.exitLogged();
+
+      throw ex;
+    }
+
+    if (probe != null)
+      probe.proceeded();
+
+    if (methodDef.asyncResult && result != null)
+    {
+      new AsyncMethodExit(methodDef, methodLogger, probe, indent, startTime,
+          callTree == null ? null : callTree.toString(), deferredArguments).attach(result);
+    }
+    else if (methodDef.streamResult && result != null)
+    {
+      return new StreamMethodExit(methodDef, methodLogger, probe, indent, startTime,
+          callTree == null ? null : callTree.toString(), deferredArguments).wrap(result);
+    }
+    else
+    {
+      final long exitHash = logResultAndExit(methodDef, methodLogger, probe, indent, startTime,
+          -1, callTree, deferredArguments, result);
+
+      if (collapseRepeats)
+      {
+        final RepeatedInvocations repeated = callStack.repeatedInvocations();
+        repeated.recordExit(repeated.slot(methodDef), methodDef, exitHash);
+      }
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Invoke a method with a result condition. The entry is logged, together with the result and
+   * exit, only if the result condition holds after the method has returned. Logged invocations are
+   * never indented or collapsed as the entry is logged after any nested invocation. The invocation
+   * does count towards the call depth of nested invocations.
+   */
+  private Object invokeResultConditional(@NotNull MethodInvocation invocation,
+                                         @NotNull MethodDef methodDef,
+                                         @NotNull MethodLogger methodLogger,
+                                         @NotNull LoggingCondition condition) throws Throwable
+  {
+    final long startTime = currentTimeMillis();
+    final Object result;
+
+    try {
+      result = invocation.proceed();
+    } catch(Throwable ex) {
+      final long exitTime = currentTimeMillis();
+
+      if (condition.matchesResult(invocation, null, ex, exitTime - startTime))
       {
-        parameterList.add(
-            logMethodEntry_inlineParameter(methodDef, parameterDef, arguments[parameterDef.index]));
+        logMethodEntry(methodDef, invocation.getArguments(), methodLogger, 0, false, false);
+        logMethodExit(methodDef, methodLogger, 0, startTime, -1, exitTime, null, null, ex);
       }
 
-      method.append(parameterList);
+      throw ex;
     }
 
-    if (methodDef.line > 0)
-      method.append(':').append(methodDef.line);
+    if (condition.matchesResult(invocation, result, null, currentTimeMillis() - startTime))
+    {
+      logMethodEntry(methodDef, invocation.getArguments(), methodLogger, 0, false, false);
+
+      if (methodDef.asyncResult && result != null)
+        new AsyncMethodExit(methodDef, methodLogger, null, 0, startTime, null, null).attach(result);
+      else if (methodDef.streamResult && result != null)
+      {
+        return new StreamMethodExit(methodDef, methodLogger, null, 0, startTime, null, null)
+            .wrap(result);
+      }
+      else
+        logResultAndExit(methodDef, methodLogger, null, 0, startTime, -1, null, null, result);
+    }
+
+    return result;
+  }
 
-    methodLogger.log(methodDef.entryExitLevel, method.toString());
 
-    if (printParameters && !methodDef.inMethodParameters.isEmpty())
-      for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+  /**
+   * Invoke a method whose entry repeats the entry of the previously logged invocation. The
+   * invocation is collapsed only if its result and exit repeat those of the previously logged
+   * invocation as well. Otherwise, or if the method throws an exception, the invocation is logged
+   * in full.
+   */
+  private Object invokeRepeated(@NotNull MethodInvocation invocation,
+                                @NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                                Probe probe, int indent, long startTime, CharSequence callTree,
+                                Object[] deferredArguments) throws Throwable
+  {
+    final RepeatedInvocations repeated = CallStack.get().repeatedInvocations();
+    final int slot = repeated.slot(methodDef);
+    final Object[] arguments = invocation.getArguments();
+    final Object result;
+
+    try {
+      result = invocation.proceed();
+    } catch(Throwable ex) {
+      if (probe != null)
+        probe.proceeded();
+
+      // exceptions are never collapsed
+      if (repeated.methodDef[slot] == methodDef)
+        repeated.report(slot);
+
+      logMethodEntry(methodDef, arguments, methodLogger, indent, false, true);
+      logMethodExit(methodDef, methodLogger, indent, startTime, -1, currentTimeMillis(), callTree,
+          deferredArguments, ex);
+      if (probe != null)
+        probe.exitLogged();
+
+      throw ex;
+    }
+
+    if (probe != null)
+      probe.proceeded();
+
+    if (repeated.repeat(slot, methodDef, logResultAndExit_hash(methodDef, methodLogger, indent,
+        startTime, callTree, deferredArguments, result)))
+      return result;
+
+    // result or exit differ: report pending repeats and record this invocation instead
+    if (repeated.methodDef[slot] == methodDef)
+      repeated.report(slot);
+
+    logMethodEntry(methodDef, arguments, methodLogger, indent, true, true);
+    repeated.recordExit(slot, methodDef, logResultAndExit(methodDef, methodLogger, probe, indent,
+        startTime, -1, callTree, deferredArguments, result));
+
+    return result;
+  }
+
+
+  private Object invokeRecorded(@NotNull MethodInvocation invocation,
+                                @NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger)
+      throws Throwable
+  {
+    final CallStack callStack = CallStack.get();
+    final int depth = callStack.depth;
+
+    if (maxCallDepth > 0 && depth >= maxCallDepth)
+      return invocation.proceed();
+
+    final FlightRecording recording = callStack.flightRecording(flightRecorderSize);
+    final long startTime = currentTimeMillis();
+    Throwable throwable = null;
+
+    recording.record(ENTRY, methodDef, methodLogger, depth, startTime, startTime,
+        invocation.getArguments());
+
+    callStack.depth++;
+    try {
+      final Object result = invocation.proceed();
+
+      if (methodDef.showResult)
       {
-        methodLogger.log(methodDef.parameterLevel,
-            logMethodEntry_parameter(methodDef, parameterDef, arguments[parameterDef.index]));
+        recording.record(RESULT, methodDef, methodLogger, depth, startTime, currentTimeMillis(),
+            result);
+      }
+
+      return result;
+    } catch(Throwable ex) {
+      throw throwable = ex;
+    } finally {
+      final long exitTime = currentTimeMillis();
+
+      recording.record(EXIT, methodDef, methodLogger, depth, startTime, exitTime, throwable);
+
+      try {
+        if (depth == 0)
+        {
+          if (annotationMethodLoggingSource.methodLoggingConfigurer.flightRecorderTrigger(
+              invocation.getMethod(), throwable, exitTime - startTime))
+            logFlightRecording(recording);
+
+          recording.clear();
+        }
+      } finally {
+        callStack.leave(depth);
       }
+    }
   }
 
 
-  private @NotNull String logMethodEntry_inlineParameter(@NotNull MethodDef methodDef,
-                                                         @NotNull ParameterDef parameterDef,
-                                                         Object value)
+  private void logFlightRecording(@NotNull FlightRecording recording)
   {
-    return messageSupport
-        .message(methodDef.getInlineParameterMessage(messageSupport))
-        .with("parameter", parameterDef.name)
-        .with("value", messageSupport
-            .message(parameterDef.getFormatMessage(messageSupport))
-            .with("value", value)
-            .format())
-        .format();
+    for(int n = 0, size = recording.size(); n < size; n++)
+    {
+      final int event = recording.index(n);
+      final MethodDef methodDef = recording.methodDef[event];
+      final MethodLogger methodLogger =
+          new FlightRecorderLogger(recording.methodLogger[event], flightRecorderLevel);
+      final int indent = callNesting == INDENT ? recording.depth[event] : 0;
+
+      switch(recording.type[event])
+      {
+        case ENTRY:
+          logMethodEntry(methodDef, (Object[])recording.value[event], methodLogger, indent,
+              false, false);
+          break;
+
+        case RESULT:
+          logResult(methodDef, methodLogger, indent, recording.value[event]);
+          break;
+
+        case EXIT:
+          logMethodExit(methodDef, methodLogger, indent, recording.startTime[event], -1,
+              recording.time[event], null, null, (Throwable)recording.value[event]);
+          break;
+      }
+    }
   }
 
 
-  private @NotNull String logMethodEntry_parameter(@NotNull MethodDef methodDef,
-                                                   @NotNull ParameterDef parameterDef,
-                                                   Object value)
+  /**
+   * Compile all messages required to log invocations of the method described by
+   * {@code methodDef}.
+   *
+   * @param methodDef  method definition, not {@code null}
+   */
+  void compileMessages(@NotNull MethodDef methodDef)
   {
-    return messageSupport
-        .message(methodDef.getParameterMessage(messageSupport))
-        .with("parameter", parameterDef.name)
-        .with("value", messageSupport
-            .message(parameterDef.getFormatMessage(messageSupport))
-            .with("value", value)
-            .format())
-        .format();
+    if (methodDef.inlineParameters.length > 0)
+      methodDef.getInlineParameterMessage(messageSupport);
+    if (methodDef.inMethodParameters.length > 0)
+      methodDef.getParameterMessage(messageSupport);
+    if (methodDef.returnsValue)
+      methodDef.getResultMessage(messageSupport);
+
+    for(final ParameterDef parameterDef: methodDef.inlineParameters)
+      parameterDef.getFormatMessage(messageSupport);
+    for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+      parameterDef.getFormatMessage(messageSupport);
   }
 
 
-  private void logMethodExit(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
-                             long startTime, Throwable throwable)
+  private Object invokeCollapsed(@NotNull MethodInvocation invocation,
+                                 @NotNull MethodDef methodDef, @NotNull CallStack callStack,
+                                 int depth) throws Throwable
   {
-    final StringBuilder exit = new StringBuilder(methodDef.methodExitPrefix)
-        .append(methodDef.methodName);
+    final long startTime = currentTimeMillis();
+    Throwable throwable = null;
 
-    if (methodDef.line > 0)
-      exit.append(':').append(methodDef.line);
+    callStack.enterCallTree(depth, methodDef.methodName);
+    try {
+      return invocation.proceed();
+    } catch(Throwable ex) {
+      throw throwable = ex;
+    } finally {
+      final StringBuilder callTree = callStack.exitCallTree(depth);
 
-    if (methodDef.showElapsedTime)
+      logMethodExit_elapsed(callTree.append(' '), currentTimeMillis() - startTime);
+
+      if (throwable != null)
+        callTree.append(" -> ").append(exceptionTypes.get(throwable.getClass()).name);
+    }
+  }
+
+
+  /**
+   * Log the result and exit of a method invocation.
+   *
+   * @return  hash of the logged result and exit lines, if repeated invocations are collapsed
+   */
+  private long logResultAndExit(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                                Probe probe, int indent, long startTime, long returnTime,
+                                CharSequence callTree, Object[] deferredArguments,
+                                Object result)
+  {
+    long hash = 0;
+
+    if (methodDef.showResult)
     {
-      exit.append(" (elapsed ")
-          .append(logMethodExit_elapsed(currentTimeMillis() - startTime))
-          .append(')');
+      hash = logResult(methodDef, methodLogger, indent, result);
+      if (probe != null)
+        probe.resultLogged();
+    }
+
+    hash = hash * 31 + logMethodExit(methodDef, methodLogger, indent, startTime, returnTime,
+        currentTimeMillis(), callTree, deferredArguments, null);
+    if (probe != null)
+      probe.exitLogged();
+
+    return hash;
+  }
+
+
+  /**
+   * Returns the hash of the result and exit lines of a method invocation, as returned by
+   * {@link #logResultAndExit(MethodDef, MethodLogger, Probe, int, long, long, CharSequence,
+   * Object[], Object) logResultAndExit}, without logging them.
+   */
+  private long logResultAndExit_hash(@NotNull MethodDef methodDef,
+                                     @NotNull MethodLogger methodLogger, int indent,
+                                     long startTime, CharSequence callTree,
+                                     Object[] deferredArguments, Object result)
+  {
+    final CallStack callStack = CallStack.get();
+    final StringBuilder line = callStack.acquireLine();
+
+    try {
+      long hash = 0;
+
+      if (methodDef.showResult && methodLogger.isLogEnabled(methodDef.resultLevel))
+      {
+        logResult_line(indent(line, indent), methodDef, methodLogger, result);
+        hash = hash(line);
+        line.setLength(0);
+      }
+
+      logMethodExit_line(indent(line, indent), methodDef, methodLogger, startTime, -1,
+          currentTimeMillis(), callTree, deferredArguments, false);
+
+      return hash * 31 + hash(line);
+    } finally {
+      callStack.releaseLine(line);
     }
+  }
+
+
+  /**
+   * Log the method entry and its in-method parameters.
+   *
+   * @param deferParameters  {@code true} if deferred parameters are left to the method exit,
+   *                         {@code false} if all parameters are logged
+   *
+   * @return  {@code true} if the entry has been logged, {@code false} if it repeats the entry of
+   *          the previously logged invocation and has not been logged yet
+   */
+  private boolean logMethodEntry(@NotNull MethodDef methodDef, @NotNull Object[] arguments,
+                                 @NotNull MethodLogger methodLogger, int indent,
+                                 boolean collapseRepeats, boolean deferParameters)
+  {
+    final boolean printParameters =
+        methodDef.showParameters && methodLogger.isLogEnabled(methodDef.parameterLevel);
+    final CallStack callStack = CallStack.get();
+    final StringBuilder method = indent(callStack.acquireLine(), indent)
+        .append(methodDef.methodEntryPrefix).append(methodDef.methodName);
 
-    if (throwable != null)
+    if (printParameters && methodDef.inlineParameters.length > 0)
     {
-      exit.append(" -> ").append(throwable.getClass().getSimpleName());
+      char separator = '(';
 
-      final String msg = throwable.getLocalizedMessage();
+      for(final ParameterDef parameterDef: methodDef.inlineParameters)
+        if (!deferParameters || !parameterDef.deferred)
+        {
+          logMethodEntry_parameter(method.append(separator), methodDef, methodLogger,
+              parameterDef, arguments[parameterDef.index], true);
+          separator = ',';
+        }
+
+      if (separator == ',')
+        method.append(')');
+    }
+
+    if (methodDef.line > 0)
+      method.append(':').append(methodDef.line);
+
+    try {
+      if (collapseRepeats && logMethodEntry_repeat(callStack, methodDef, methodLogger, method,
+          printParameters ? arguments : null))
+        return false;
 
-      if (hasLength(msg))
-        exit.append('(').append(msg).append(')');
+      methodLogger.log(methodDef.entryExitLevel, method, null, methodDef.location);
+    } finally {
+      callStack.releaseLine(method);
     }
 
-    methodLogger.log(methodDef.entryExitLevel, exit.toString());
+    if (printParameters && methodDef.inMethodParameters.length > 0)
+      for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+      {
+        if (deferParameters && parameterDef.deferred)
+          continue;
+
+        final StringBuilder parameter = indent(callStack.acquireLine(), indent);
+
+        try {
+          logMethodEntry_parameter(parameter, methodDef, methodLogger, parameterDef,
+              arguments[parameterDef.index], false);
+          methodLogger.log(methodDef.parameterLevel, parameter, null, methodDef.location);
+        } finally {
+          callStack.releaseLine(parameter);
+        }
+      }
+
+    return true;
   }
 
 
-  private @NotNull String logMethodExit_elapsed(long millis)
+  /**
+   * Returns the arguments to be rendered on method exit, if the method has deferred parameters and
+   * parameters are logged. Arguments of deferred parameters marked for snapshot are copied.
+   *
+   * @return  method arguments or {@code null} if no parameters are deferred
+   */
+  private static Object[] logMethodEntry_defer(@NotNull MethodDef methodDef,
+                                               @NotNull MethodLogger methodLogger,
+                                               @NotNull Object[] arguments)
   {
-/*
-    h|m|s|ms           h|m|s|ms
-    0|0|0|0 -> ms      1|0|0|0 -> h,m
-    0|0|0|1 -> ms      1|0|0|1 -> h,m
-    0|0|1|0 -> s       1|0|1|0 -> h,m
-    0|0|1|1 -> s,ms    1|0|1|1 -> h,m
-    0|1|0|0 -> m       1|1|0|0 -> h,m
-    0|1|0|1 -> m,s     1|1|0|1 -> h,m
-    0|1|1|0 -> m,s     1|1|1|0 -> h,m
-    0|1|1|1 -> m,s     1|1|1|1 -> h,m
- */
-    final StringBuilder s = new StringBuilder();
-    final int hour = (int)((millis / 3600000L) % 60);
-    final int min = (int)((millis / 60000L) % 60);
+    if (!methodDef.deferredParameters || !methodDef.showParameters ||
+        !methodLogger.isLogEnabled(methodDef.parameterLevel))
+      return null;
 
-    if (hour > 0)
-      s.append(hour).append('h').append(min).append('m');
-    else
+    if (!methodDef.snapshotParameters)
+      return arguments;
+
+    final Object[] snapshot = arguments.clone();
+
+    for(final ParameterDef parameterDef: methodDef.inlineParameters)
+      if (parameterDef.snapshot)
+        snapshot[parameterDef.index] = logMethodEntry_snapshot(snapshot[parameterDef.index]);
+    for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+      if (parameterDef.snapshot)
+        snapshot[parameterDef.index] = logMethodEntry_snapshot(snapshot[parameterDef.index]);
+
+    return snapshot;
+  }
+
+
+  /**
+   * Returns a shallow copy of arrays, collections, maps and byte buffers and the string value of
+   * character sequences. Other values are returned as is.
+   */
+  private static Object logMethodEntry_snapshot(Object value)
+  {
+    if (value == null || value instanceof String)
+      return value;
+
+    if (value.getClass().isArray())
     {
-      if (min > 0)
-        s.append(min).append('m');
+      final int length = Array.getLength(value);
+      final Object copy = Array.newInstance(value.getClass().getComponentType(), length);
 
-      final int sec = (int)((millis / 1000L) % 60);
-      final int msec = (int)(millis % 1000);
+      System.arraycopy(value, 0, copy, 0, length);
 
-      if (sec > 0 || (min > 0 && msec > 0))
-        s.append(sec).append('s');
-      if (min == 0 && (sec == 0 || msec > 0))
-        s.append(msec).append("ms");
+      return copy;
+    }
+
+    if (value instanceof Set)
+      return new LinkedHashSet<>((Set<?>)value);
+    if (value instanceof Collection)
+      return new ArrayList<>((Collection<?>)value);
+    if (value instanceof Map)
+      return new LinkedHashMap<>((Map<?,?>)value);
+
+    if (value instanceof ByteBuffer)
+    {
+      final ByteBuffer buffer = (ByteBuffer)value;
+      final ByteBuffer copy = ByteBuffer.allocate(buffer.remaining()).put(buffer.duplicate());
+
+      copy.flip();
+
+      return copy;
     }
 
-    return s.toString();
+    return value instanceof CharSequence ? value.toString() : value;
   }
 
 
-  @Contract("_, _, _ -> param3")
-  private Object logResult(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
-                           Object result)
+  /**
+   * Checks whether the invocation entry repeats the entry of the previously logged invocation of
+   * the same method on this thread. Entries are compared by a hash of the entry line and the
+   * in-method parameter values. If the entry is not a repeat, pending repeats are logged and the
+   * invocation is recorded.
+   *
+   * @param arguments  method arguments or {@code null} if parameters are not logged
+   */
+  private boolean logMethodEntry_repeat(@NotNull CallStack callStack,
+                                        @NotNull MethodDef methodDef,
+                                        @NotNull MethodLogger methodLogger,
+                                        @NotNull CharSequence entry, Object[] arguments)
   {
-    final Level resultLevel = methodDef.resultLevel;
+    long hash = hash(entry);
+    boolean comparable = true;
 
-    if (methodLogger.isLogEnabled(resultLevel))
+    if (arguments != null)
     {
-      methodLogger.log(resultLevel, messageSupport
-          .message(methodDef.getResultMessage(messageSupport))
-          .with("result", result)
-          .format());
+      try {
+        for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+          hash = hash * 31 + Objects.hashCode(arguments[parameterDef.index]);
+      } catch(Exception | LinkageError | StackOverflowError ex) {
+        // the invocation cannot be compared with the previous one, so it is not collapsed
+        comparable = false;
+      }
     }
 
-    return result;
+    final RepeatedInvocations repeated = callStack.repeatedInvocations();
+    final int slot = repeated.slot(methodDef);
+    final long now = currentTimeMillis();
+
+    if (comparable &&
+        repeated.repeatEntry(slot, methodDef, hash, now - collapseRepeatedInvocations))
+      return true;
+
+    if (repeated.methodDef[slot] != null)
+      repeated.report(slot);
+
+    if (comparable)
+      repeated.record(slot, methodDef, methodLogger, hash, now);
+
+    return false;
+  }
+
+
+  /**
+   * Render a parameter into {@code line}, using the inline or in-method parameter format. Simple
+   * formats are rendered straight into the line; other formats, and simple formats dropping the
+   * spaces around an empty value, are formatted by the message support.
+   */
+  private void logMethodEntry_parameter(@NotNull StringBuilder line, @NotNull MethodDef methodDef,
+                                        @NotNull MethodLogger methodLogger,
+                                        @NotNull ParameterDef parameterDef, Object value,
+                                        boolean inline)
+  {
+    final LineTemplate template =
+        inline ? methodDef.inlineParameterTemplate : methodDef.parameterTemplate;
+    final int start = line.length();
+    final String formattedValue;
+
+    if (template != null)
+    {
+      line.append(template.prefix).append(parameterDef.name).append(template.infix);
+
+      final int valueStart = line.length();
+
+      logMethodEntry_value(line, methodDef, methodLogger, parameterDef, value);
+
+      if (line.length() > valueStart || !template.spacedValue)
+      {
+        line.append(template.suffix);
+        return;
+      }
+
+      formattedValue = "";
+    }
+    else
+    {
+      logMethodEntry_value(line, methodDef, methodLogger, parameterDef, value);
+      formattedValue = line.substring(start);
+    }
+
+    line.setLength(start);
+    line.append(messageSupport
+        .message(inline
+            ? methodDef.getInlineParameterMessage(messageSupport)
+            : methodDef.getParameterMessage(messageSupport))
+        .with("parameter", parameterDef.name)
+        .with("value", formattedValue)
+        .format());
+  }
+
+
+  /**
+   * Render a parameter value into {@code line}, guarded by a circuit breaker for the parameter. If
+   * formatting fails or exceeds the formatting budget, formatting for the parameter is disabled
+   * for the cool-down period and a placeholder is rendered instead.
+   */
+  private void logMethodEntry_value(@NotNull StringBuilder line, @NotNull MethodDef methodDef,
+                                    @NotNull MethodLogger methodLogger,
+                                    @NotNull ParameterDef parameterDef, Object value)
+  {
+    final long disabledUntil = parameterDef.formattingDisabledUntil;
+
+    if (disabledUntil != 0 && value != null)
+    {
+      if (currentTimeMillis() < disabledUntil)
+      {
+        logMethodEntry_placeholder(line, value);
+        return;
+      }
+
+      parameterDef.formattingDisabledUntil = 0;
+    }
+
+    final boolean measured = parameterFormattingBudget > 0;
+    final long startTime = measured ? nanoTime() : 0;
+    final int start = line.length();
+
+    try {
+      logMethodEntry_format(line, parameterDef, value);
+    } catch(Exception | LinkageError | StackOverflowError ex) {
+      line.setLength(start);
+      logMethodEntry_disableFormatting(methodDef, methodLogger, parameterDef,
+          ex.getClass().getSimpleName());
+
+      if (value != null)
+        logMethodEntry_placeholder(line, value);
+
+      return;
+    }
+
+    if (measured)
+    {
+      final long millis = (nanoTime() - startTime) / 1000000L;
+
+      if (millis > parameterFormattingBudget)
+      {
+        logMethodEntry_disableFormatting(methodDef, methodLogger, parameterDef,
+            "took " + logMethodExit_elapsed(millis));
+      }
+    }
+  }
+
+
+  private void logMethodEntry_disableFormatting(@NotNull MethodDef methodDef,
+                                                @NotNull MethodLogger methodLogger,
+                                                @NotNull ParameterDef parameterDef,
+                                                @NotNull String reason)
+  {
+    if (parameterDef.formattingDisabledUntil == 0)
+    {
+      parameterDef.formattingDisabledUntil = currentTimeMillis() + parameterFormattingCooldown;
+      logFormattingDisabled(methodDef, methodLogger, "parameter '" + parameterDef.name + '\'',
+          reason);
+    }
+  }
+
+
+  private void logFormattingDisabled(@NotNull MethodDef methodDef,
+                                     @NotNull MethodLogger methodLogger, @NotNull String subject,
+                                     @NotNull String reason)
+  {
+    methodLogger.log(methodDef.entryExitLevel, methodDef.methodName + ": formatting of " +
+        subject + " disabled for " + logMethodExit_elapsed(parameterFormattingCooldown) + " (" +
+        reason + ')', null, methodDef.location);
+  }
+
+
+  @Contract("_, _ -> param1")
+  private static @NotNull StringBuilder logMethodEntry_placeholder(@NotNull StringBuilder s,
+                                                                  @NotNull Object value)
+  {
+    return s.append('<').append(value.getClass().getSimpleName()).append('@')
+        .append(Integer.toHexString(identityHashCode(value))).append(", formatting disabled>");
+  }
+
+
+  /**
+   * Render a parameter value into {@code line}. Values with a bound appender are appended
+   * directly, other values are formatted by the message support.
+   */
+  private void logMethodEntry_format(@NotNull StringBuilder line,
+                                     @NotNull ParameterDef parameterDef, Object value)
+  {
+    final ParameterAppender appender = parameterDef.appender;
+
+    if (appender != null && value != null)
+      appender.append(line, value);
+    else
+    {
+      final int start = line.length();
+
+      line.append(messageSupport
+          .message(parameterDef.getFormatMessage(messageSupport))
+          .with("value", value)
+          .format());
+      truncate(line, start, parameterDef.maxLength);
+    }
+  }
+
+
+  /**
+   * Truncate the text rendered into {@code s} from {@code start} on to {@code maxLength}
+   * characters, followed by an ellipsis.
+   */
+  private static void truncate(@NotNull StringBuilder s, int start, int maxLength)
+  {
+    if (maxLength > 0 && s.length() - start > maxLength)
+    {
+      s.setLength(start + maxLength);
+      s.append("...");
+    }
+  }
+
+
+  /**
+   * Log the exit of a method invocation.
+   *
+   * @return  hash of the logged exit line, if repeated invocations are collapsed and no exception
+   *          has been thrown
+   */
+  private long logMethodExit(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                             int indent, long startTime, long returnTime, long exitTime,
+                             CharSequence callTree, Object[] deferredArguments,
+                             Throwable throwable)
+  {
+    final CallStack callStack = CallStack.get();
+    final StringBuilder exit = indent(callStack.acquireLine(), indent);
+
+    try {
+      logMethodExit_line(exit, methodDef, methodLogger, startTime, returnTime, exitTime, callTree,
+          deferredArguments, throwable != null);
+
+      if (throwable == null)
+      {
+        methodLogger.log(methodDef.entryExitLevel, exit, null, methodDef.location);
+
+        return collapseRepeatedInvocations > 0 ? hash(exit) : 0;
+      }
+
+      final Throwable stackTrace = logMethodExit_exception(methodDef, methodLogger, exit, throwable);
+
+      methodLogger.log(methodDef.entryExitLevel, exit, stackTrace, methodDef.location);
+
+      return 0;
+    } finally {
+      callStack.releaseLine(exit);
+    }
+  }
+
+
+  /**
+   * Render the method exit line into {@code exit}, except for the exception report.
+   *
+   * @param failed  {@code true} if the method has thrown an exception, {@code false} otherwise
+   */
+  private void logMethodExit_line(@NotNull StringBuilder exit, @NotNull MethodDef methodDef,
+                                  @NotNull MethodLogger methodLogger, long startTime,
+                                  long returnTime, long exitTime, CharSequence callTree,
+                                  Object[] deferredArguments, boolean failed)
+  {
+    exit.append(methodDef.methodExitPrefix).append(methodDef.methodName);
+
+    if (deferredArguments != null && (failed ||
+        (methodDef.slowCallThreshold > 0 && exitTime - startTime >= methodDef.slowCallThreshold)))
+      logMethodExit_deferredParameters(methodDef, methodLogger, exit, deferredArguments);
+
+    if (methodDef.line > 0)
+      exit.append(':').append(methodDef.line);
+
+    if (methodDef.showElapsedTime)
+    {
+      logMethodExit_elapsed(exit.append(" (elapsed "), exitTime - startTime);
+
+      if (returnTime >= 0)
+        logMethodExit_elapsed(exit.append(", returned after "), returnTime - startTime);
+
+      exit.append(')');
+    }
+
+    if (callTree != null && callTree.length() > 0)
+      exit.append(" {").append(callTree).append('}');
+  }
+
+
+  /**
+   * Append the deferred parameters to the method exit line, in the same way inline parameters
+   * are appended to the method entry line.
+   */
+  private void logMethodExit_deferredParameters(@NotNull MethodDef methodDef,
+                                                @NotNull MethodLogger methodLogger,
+                                                @NotNull StringBuilder exit,
+                                                @NotNull Object[] deferredArguments)
+  {
+    char separator = '(';
+
+    for(final ParameterDef parameterDef: methodDef.inlineParameters)
+      if (parameterDef.deferred)
+      {
+        logMethodEntry_parameter(exit.append(separator), methodDef, methodLogger, parameterDef,
+            deferredArguments[parameterDef.index], true);
+        separator = ',';
+      }
+
+    for(final ParameterDef parameterDef: methodDef.inMethodParameters)
+      if (parameterDef.deferred)
+      {
+        logMethodEntry_parameter(exit.append(separator), methodDef, methodLogger, parameterDef,
+            deferredArguments[parameterDef.index], true);
+        separator = ',';
+      }
+
+    exit.append(')');
+  }
+
+
+  /**
+   * Append the exception report to the method exit line.
+   *
+   * @return  throwable to be logged along with the exit line or {@code null}
+   */
+  private Throwable logMethodExit_exception(@NotNull MethodDef methodDef,
+                                            @NotNull MethodLogger methodLogger,
+                                            @NotNull StringBuilder exit,
+                                            @NotNull Throwable throwable)
+  {
+    final ExceptionType exceptionType = exceptionTypes.get(throwable.getClass());
+
+    exit.append(" -> ").append(exceptionType.name);
+
+    if (!CallStack.get().report(throwable))
+    {
+      exit.append(" (propagated)");
+      return null;
+    }
+
+    if (exceptionType.policy == NAME)
+      return null;
+
+    final int suppressed =
+        methodDef.exceptionRateLimiter.acquire(throwable.getClass(), exceptionRateLimit);
+    if (suppressed < 0)
+    {
+      exit.append(" (rate limited)");
+      return null;
+    }
+
+    final String msg = throwable.getLocalizedMessage();
+
+    if (hasLength(msg))
+      exit.append('(').append(msg).append(')');
+
+    if (suppressed > 0)
+      exit.append(" [").append(suppressed).append(" similar suppressed]");
+
+    return exceptionType.policy == STACK_TRACE && methodLogger.isLogEnabled(stackTraceLevel)
+        ? throwable : null;
+  }
+
+
+  private @NotNull String logMethodExit_elapsed(long millis) {
+    return logMethodExit_elapsed(new StringBuilder(), millis).toString();
+  }
+
+
+  @Contract("_, _ -> param1")
+  private @NotNull StringBuilder logMethodExit_elapsed(@NotNull StringBuilder s, long millis)
+  {
+/*
+    h|m|s|ms           h|m|s|ms
+    0|0|0|0 -> ms      1|0|0|0 -> h,m
+    0|0|0|1 -> ms      1|0|0|1 -> h,m
+    0|0|1|0 -> s       1|0|1|0 -> h,m
+    0|0|1|1 -> s,ms    1|0|1|1 -> h,m
+    0|1|0|0 -> m       1|1|0|0 -> h,m
+    0|1|0|1 -> m,s     1|1|0|1 -> h,m
+    0|1|1|0 -> m,s     1|1|1|0 -> h,m
+    0|1|1|1 -> m,s     1|1|1|1 -> h,m
+ */
+    final int hour = (int)((millis / 3600000L) % 60);
+    final int min = (int)((millis / 60000L) % 60);
+
+    if (hour > 0)
+      s.append(hour).append('h').append(min).append('m');
+    else
+    {
+      if (min > 0)
+        s.append(min).append('m');
+
+      final int sec = (int)((millis / 1000L) % 60);
+      final int msec = (int)(millis % 1000);
+
+      if (sec > 0 || (min > 0 && msec > 0))
+        s.append(sec).append('s');
+      if (min == 0 && (sec == 0 || msec > 0))
+        s.append(msec).append("ms");
+    }
+
+    return s;
+  }
+
+
+  /**
+   * Log the result of a method invocation.
+   *
+   * @return  hash of the logged result line, if repeated invocations are collapsed
+   */
+  private long logResult(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                         int indent, Object result)
+  {
+    final Level resultLevel = methodDef.resultLevel;
+
+    if (!methodLogger.isLogEnabled(resultLevel))
+      return 0;
+
+    final CallStack callStack = CallStack.get();
+    final StringBuilder line = indent(callStack.acquireLine(), indent);
+
+    try {
+      logResult_line(line, methodDef, methodLogger, result);
+      methodLogger.log(resultLevel, line, null, methodDef.location);
+
+      return collapseRepeatedInvocations > 0 ? hash(line) : 0;
+    } finally {
+      callStack.releaseLine(line);
+    }
+  }
+
+
+  /**
+   * Render the result line into {@code line}, guarded by the same circuit breaker as parameter
+   * values. If formatting fails or exceeds the formatting budget, result formatting for the method
+   * is disabled for the cool-down period and a placeholder is rendered instead.
+   */
+  private void logResult_line(@NotNull StringBuilder line, @NotNull MethodDef methodDef,
+                              @NotNull MethodLogger methodLogger, Object result)
+  {
+    final long disabledUntil = methodDef.resultFormattingDisabledUntil;
+
+    if (disabledUntil != 0 && result != null)
+    {
+      if (currentTimeMillis() < disabledUntil)
+      {
+        logResult_placeholder(line, methodDef, result);
+        return;
+      }
+
+      methodDef.resultFormattingDisabledUntil = 0;
+    }
+
+    final boolean measured = parameterFormattingBudget > 0;
+    final long startTime = measured ? nanoTime() : 0;
+    final int start = line.length();
+
+    try {
+      logResult_format(line, methodDef, result);
+    } catch(Exception | LinkageError | StackOverflowError ex) {
+      line.setLength(start);
+      logResult_disableFormatting(methodDef, methodLogger, ex.getClass().getSimpleName());
+      logResult_placeholder(line, methodDef, result);
+
+      return;
+    }
+
+    if (measured)
+    {
+      final long millis = (nanoTime() - startTime) / 1000000L;
+
+      if (millis > parameterFormattingBudget)
+      {
+        logResult_disableFormatting(methodDef, methodLogger,
+            "took " + logMethodExit_elapsed(millis));
+      }
+    }
+  }
+
+
+  private void logResult_disableFormatting(@NotNull MethodDef methodDef,
+                                           @NotNull MethodLogger methodLogger,
+                                           @NotNull String reason)
+  {
+    if (methodDef.resultFormattingDisabledUntil == 0)
+    {
+      methodDef.resultFormattingDisabledUntil = currentTimeMillis() + parameterFormattingCooldown;
+      logFormattingDisabled(methodDef, methodLogger, "result", reason);
+    }
+  }
+
+
+  private void logResult_placeholder(@NotNull StringBuilder line, @NotNull MethodDef methodDef,
+                                     Object result)
+  {
+    final LineTemplate template = methodDef.resultTemplate;
+
+    if (template != null)
+    {
+      line.append(template.prefix);
+
+      if (result == null)
+        line.append("null");
+      else
+        logMethodEntry_placeholder(line, result);
+
+      line.append(template.suffix);
+      return;
+    }
+
+    final String placeholder = result == null
+        ? "null" : logMethodEntry_placeholder(new StringBuilder(), result).toString();
+    final int start = line.length();
+
+    try {
+      line.append(messageSupport
+          .message(methodDef.getResultMessage(messageSupport))
+          .with("result", placeholder)
+          .format());
+    } catch(Exception | LinkageError | StackOverflowError ex) {
+      line.setLength(start);
+      line.append(placeholder);
+    }
+  }
+
+
+  /**
+   * Render the result into {@code line}. Results with a bound appender and string results are
+   * rendered straight into the line if the result format is simple; other results are formatted
+   * by the message support. Results rendered without an appender are truncated.
+   */
+  private void logResult_format(@NotNull StringBuilder line, @NotNull MethodDef methodDef,
+                                Object result)
+  {
+    final ParameterAppender resultAppender = result == null ? null : methodDef.resultAppender;
+    final LineTemplate template = methodDef.resultTemplate;
+    final int start = line.length();
+
+    if (resultAppender != null || (template != null && result instanceof String))
+    {
+      if (template != null)
+        line.append(template.prefix);
+
+      final int valueStart = line.length();
+
+      if (resultAppender != null)
+        resultAppender.append(line, result);
+      else
+        line.append((String)result);
+
+      if (template != null && (line.length() > valueStart || !template.spacedValue))
+      {
+        line.append(template.suffix);
+
+        if (resultAppender == null)
+          truncate(line, start, methodDef.resultMaxLength);
+
+        return;
+      }
+
+      result = line.substring(valueStart);
+      line.setLength(start);
+    }
+
+    line.append(messageSupport
+        .message(methodDef.getResultMessage(messageSupport))
+        .with("result", result)
+        .format());
+
+    if (resultAppender == null)
+      truncate(line, start, methodDef.resultMaxLength);
+  }
+
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+
+  @Override
+  public @NotNull List<String> getMethods()
+  {
+    return annotationMethodLoggingSource.getMethodDefinitions()
+        .stream()
+        .map(MethodDef::toString)
+        .sorted()
+        .collect(toList());
+  }
+
+
+  @Override
+  public int setEntryExitLevel(@NotNull String target, @NotNull Level level)
+  {
+    final Level entryExitLevel = requireLevel(level);
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.entryExitLevel = entryExitLevel);
+  }
+
+
+  @Override
+  public int setParameterLevel(@NotNull String target, @NotNull Level level)
+  {
+    final Level parameterLevel = requireLevel(level);
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.parameterLevel = parameterLevel);
+  }
+
+
+  @Override
+  public int setResultLevel(@NotNull String target, @NotNull Level level)
+  {
+    final Level resultLevel = requireLevel(level);
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.resultLevel = resultLevel);
+  }
+
+
+  @Override
+  public int setParameters(@NotNull String target, @NotNull Visibility visibility)
+  {
+    final boolean showParameters = requireVisibility(visibility) == SHOW;
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.showParameters = showParameters);
+  }
+
+
+  @Override
+  public int setResult(@NotNull String target, @NotNull Visibility visibility)
+  {
+    final boolean showResult = requireVisibility(visibility) == SHOW;
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.showResult = methodDef.returnsValue && showResult);
+  }
+
+
+  @Override
+  public int setElapsedTime(@NotNull String target, @NotNull Visibility visibility)
+  {
+    final boolean showElapsedTime = requireVisibility(visibility) == SHOW;
+
+    return annotationMethodLoggingSource.reconfigure(target,
+        methodDef -> methodDef.showElapsedTime = showElapsedTime);
+  }
+
+
+  @Override
+  public boolean isStatisticsEnabled() {
+    return collectStatistics;
+  }
+
+
+  @Override
+  public void setStatisticsEnabled(boolean statisticsEnabled) {
+    collectStatistics = statisticsEnabled;
+  }
+
+
+  @Override
+  public @NotNull List<MethodLoggingStatistics> getStatistics()
+  {
+    final Map<MethodStatistics,String> methods = new IdentityHashMap<>();
+
+    for(final MethodDef methodDef: annotationMethodLoggingSource.getMethodDefinitions())
+    {
+      methods.putIfAbsent(methodDef.statistics,
+          methodDef.className + '#' + methodDef.methodSignature);
+    }
+
+    return methods
+        .entrySet()
+        .stream()
+        .map(entry -> entry.getKey().snapshot(entry.getValue()))
+        .sorted(comparingLong(MethodLoggingStatistics::getLoggingTime).reversed())
+        .collect(toList());
+  }
+
+
+  @Override
+  public @NotNull MethodLoggingStatistics getTotalStatistics()
+  {
+    long invocations = 0, entryTime = 0, resultTime = 0, exitTime = 0, proceedTime = 0;
+    long allocatedBytes = 0;
+
+    for(final MethodLoggingStatistics statistics: getStatistics())
+    {
+      invocations += statistics.getInvocations();
+      entryTime += statistics.getEntryTime();
+      resultTime += statistics.getResultTime();
+      exitTime += statistics.getExitTime();
+      proceedTime += statistics.getProceedTime();
+      allocatedBytes = statistics.getAllocatedBytes() < 0
+          ? -1 : allocatedBytes + statistics.getAllocatedBytes();
+    }
+
+    return new MethodLoggingStatistics("*", invocations, entryTime, resultTime, exitTime,
+        proceedTime, allocatedBytes);
+  }
+
+
+  @Override
+  public @NotNull List<MethodLoggingStatistics> getTopOffenders(int count)
+  {
+    final List<MethodLoggingStatistics> statistics = getStatistics();
+
+    return statistics.size() <= count
+        ? statistics : new ArrayList<>(statistics.subList(0, max(count, 0)));
+  }
+
+
+  @Override
+  public void resetStatistics()
+  {
+    for(final MethodDef methodDef: annotationMethodLoggingSource.getMethodDefinitions())
+      methodDef.statistics.reset();
+  }
+
+
+  @Override
+  public int reset(@NotNull String target) {
+    return annotationMethodLoggingSource.reset(target);
+  }
+
+
+  @Override
+  public @NotNull String getCacheFootprint() {
+    return annotationMethodLoggingSource.getCacheFootprint();
+  }
+
+
+  @Contract(value = "null -> fail", pure = true)
+  private static @NotNull Level requireLevel(Level level)
+  {
+    if (level == null || level == Level.DEFAULT)
+      throw new IllegalArgumentException("level must be one of TRACE, DEBUG or INFO");
+
+    return level;
+  }
+
+
+  @Contract(value = "null -> fail", pure = true)
+  private static @NotNull Visibility requireVisibility(Visibility visibility)
+  {
+    if (visibility == null || visibility == Visibility.DEFAULT)
+      throw new IllegalArgumentException("visibility must be one of SHOW or HIDE");
+
+    return visibility;
+  }
+
+
+  @Contract("_, _ -> param1")
+  private static @NotNull StringBuilder indent(@NotNull StringBuilder s, int indent)
+  {
+    for(int n = indent * 2; n-- > 0;)
+      s.append(' ');
+
+    return s;
+  }
+
+
+  @Contract(pure = true)
+  private static long hash(@NotNull CharSequence s)
+  {
+    final int length = s.length();
+    long hash = length;
+
+    for(int n = 0; n < length; n++)
+      hash = hash * 31 + s.charAt(n);
+
+    return hash;
+  }
+
+
+
+
+  /**
+   * Completion hook for methods returning a {@link CompletionStage} or {@link ListenableFuture}.
+   * The method exit (and result) is logged as soon as the returned future completes, reporting
+   * the time to completion as the elapsed time and the time it took the method to return the
+   * future separately.
+   */
+  private final class AsyncMethodExit
+      implements BiConsumer<Object,Throwable>, ListenableFutureCallback<Object>
+  {
+    private final @NotNull MethodDef methodDef;
+    private final @NotNull MethodLogger methodLogger;
+    private final Probe probe;
+    private final int indent;
+    private final long startTime;
+    private final long returnTime;
+    private final String callTree;
+    private final Object[] deferredArguments;
+
+
+    private AsyncMethodExit(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                            Probe probe, int indent, long startTime, String callTree,
+                            Object[] deferredArguments)
+    {
+      this.methodDef = methodDef;
+      this.methodLogger = methodLogger;
+      this.probe = probe;
+      this.indent = indent;
+      this.startTime = startTime;
+      this.callTree = callTree;
+      this.deferredArguments = deferredArguments;
+
+      returnTime = currentTimeMillis();
+    }
+
+
+    private void attach(@NotNull Object future)
+    {
+      if (future instanceof CompletionStage)
+        ((CompletionStage<?>)future).whenComplete(this);
+      else if (future instanceof ListenableFuture)
+        ((ListenableFuture<?>)future).addCallback(this);
+      else
+        logResultAndExit(methodDef, methodLogger, probe, indent, startTime, -1, callTree,
+            deferredArguments, future);
+    }
+
+
+    @Override
+    public void accept(Object result, Throwable throwable)
+    {
+      if (throwable instanceof CompletionException && throwable.getCause() != null)
+        throwable = throwable.getCause();
+
+      if (throwable != null)
+        onFailure(throwable);
+      else
+        onSuccess(result);
+    }
+
+
+    @Override
+    public void onSuccess(Object result)
+    {
+      if (probe != null)
+        probe.resume();
+
+      logResultAndExit(methodDef, methodLogger, probe, indent, startTime, returnTime, callTree,
+          deferredArguments, result);
+    }
+
+
+    @Override
+    public void onFailure(@NotNull Throwable throwable)
+    {
+      if (probe != null)
+        probe.resume();
+
+      logMethodExit(methodDef, methodLogger, indent, startTime, returnTime, currentTimeMillis(),
+          callTree, deferredArguments, throwable);
+      if (probe != null)
+        probe.exitLogged();
+    }
+  }
+
+
+
+
+  /**
+   * Wraps a stream or iterator in order to report its first element and exit to
+   * {@code streamExit}. Elements are neither buffered nor materialized. Sequential streams are
+   * wrapped on spliterator level in order to detect exhaustion; parallel streams are counted by
+   * peeking and report their exit on close only.
+   *
+   * @return  wrapped stream or iterator, or {@code null} if {@code result} is neither a stream
+   *          nor an iterator
+   */
+  private static Object wrapStream(@NotNull Object result, @NotNull StreamExit streamExit)
+  {
+    if (result instanceof Stream)
+    {
+      final Stream<?> stream = (Stream<?>)result;
+
+      if (stream.isParallel())
+      {
+        final AtomicLong count = new AtomicLong();
+
+        return stream
+            .peek(element -> {
+              if (count.getAndIncrement() == 0)
+                streamExit.firstElement();
+            })
+            .onClose(() -> streamExit.exit(count.get()));
+      }
+
+      final ElementCountingSpliterator<?> spliterator =
+          new ElementCountingSpliterator<>(stream.spliterator(), streamExit);
+
+      return StreamSupport.stream(spliterator, false)
+          .onClose(stream::close)
+          .onClose(spliterator::exit);
+    }
+
+    if (result instanceof Iterator)
+      return new ElementCountingIterator<>((Iterator<?>)result, streamExit);
+
+    return null;
+  }
+
+
+
+
+  /**
+   * Lazy wrapper for methods returning a {@link Stream} or {@link Iterator}. The method exit is
+   * logged as soon as the returned stream is closed or the stream or iterator is exhausted,
+   * whichever comes first. Instead of the stream or iterator itself, the result line reports the
+   * number of consumed elements, the consumption time and the time to the first element.
+   *
+   * @see #wrapStream(Object, StreamExit)
+   */
+  private final class StreamMethodExit implements StreamExit
+  {
+    private final @NotNull MethodDef methodDef;
+    private final @NotNull MethodLogger methodLogger;
+    private final Probe probe;
+    private final int indent;
+    private final long startTime;
+    private final long returnTime;
+    private final String callTree;
+    private final Object[] deferredArguments;
+
+    private volatile long firstElementTime = -1;
+    private boolean exited;
+
+
+    private StreamMethodExit(@NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+                             Probe probe, int indent, long startTime, String callTree,
+                             Object[] deferredArguments)
+    {
+      this.methodDef = methodDef;
+      this.methodLogger = methodLogger;
+      this.probe = probe;
+      this.indent = indent;
+      this.startTime = startTime;
+      this.callTree = callTree;
+      this.deferredArguments = deferredArguments;
+
+      returnTime = currentTimeMillis();
+    }
+
+
+    private @NotNull Object wrap(@NotNull Object result)
+    {
+      final Object wrappedResult = wrapStream(result, this);
+      if (wrappedResult != null)
+        return wrappedResult;
+
+      logResultAndExit(methodDef, methodLogger, probe, indent, startTime, -1, callTree,
+          deferredArguments, result);
+
+      return result;
+    }
+
+
+    @Override
+    public void firstElement() {
+      firstElementTime = currentTimeMillis();
+    }
+
+
+    @Override
+    public synchronized void exit(long count)
+    {
+      if (!exited)
+      {
+        exited = true;
+
+        if (probe != null)
+          probe.resume();
+
+        final long exitTime = currentTimeMillis();
+        final StringBuilder result = logMethodExit_elapsed(new StringBuilder().append(count)
+            .append(count == 1 ? " element in " : " elements in "), exitTime - returnTime);
+
+        if (firstElementTime >= 0)
+          logMethodExit_elapsed(result.append(", first after "), firstElementTime - startTime);
+
+        logResultAndExit(methodDef, methodLogger, probe, indent, startTime, returnTime, callTree,
+            deferredArguments, result.toString());
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Receives the first element and the exit of a stream or iterator returned by a method.
+   */
+  private interface StreamExit
+  {
+    void firstElement();
+
+
+    /**
+     * Invoked when the stream is closed or the stream or iterator is exhausted. This method may be
+     * invoked more than once.
+     *
+     * @param count  number of consumed elements
+     */
+    void exit(long count);
+  }
+
+
+
+
+  private static final class ElementCountingSpliterator<T>
+      implements Spliterator<T>, Consumer<T>
+  {
+    private final @NotNull Spliterator<T> spliterator;
+    private final @NotNull StreamExit streamExit;
+    private Consumer<? super T> action;
+    private long count;
+
+
+    private ElementCountingSpliterator(@NotNull Spliterator<T> spliterator,
+                                       @NotNull StreamExit streamExit)
+    {
+      this.spliterator = spliterator;
+      this.streamExit = streamExit;
+    }
+
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action)
+    {
+      this.action = action;
+
+      if (spliterator.tryAdvance(this))
+        return true;
+
+      exit();
+      return false;
+    }
+
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action)
+    {
+      this.action = action;
+
+      spliterator.forEachRemaining(this);
+      exit();
+    }
+
+
+    @Override
+    public void accept(T element)
+    {
+      if (count++ == 0)
+        streamExit.firstElement();
+
+      action.accept(element);
+    }
+
+
+    @Override
+    public Spliterator<T> trySplit() {
+      return null;
+    }
+
+
+    @Override
+    public long estimateSize() {
+      return spliterator.estimateSize();
+    }
+
+
+    @Override
+    public int characteristics()
+    {
+      // not sized, so terminal operations like count() cannot skip the traversal
+      return spliterator.characteristics() & ~(SIZED | SUBSIZED);
+    }
+
+
+    @Override
+    public Comparator<? super T> getComparator() {
+      return spliterator.getComparator();
+    }
+
+
+    private void exit() {
+      streamExit.exit(count);
+    }
+  }
+
+
+
+
+  private static final class ElementCountingIterator<T> implements Iterator<T>
+  {
+    private final @NotNull Iterator<T> iterator;
+    private final @NotNull StreamExit streamExit;
+    private long count;
+
+
+    private ElementCountingIterator(@NotNull Iterator<T> iterator, @NotNull StreamExit streamExit)
+    {
+      this.iterator = iterator;
+      this.streamExit = streamExit;
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+      if (iterator.hasNext())
+        return true;
+
+      streamExit.exit(count);
+      return false;
+    }
+
+
+    @Override
+    public T next()
+    {
+      final T element = iterator.next();
+
+      if (count++ == 0)
+        streamExit.firstElement();
+
+      return element;
+    }
+
+
+    @Override
+    public void remove() {
+      iterator.remove();
+    }
+  }
+
+
+
+
+  /**
+   * Ends the tracing span of a method returning a {@link CompletionStage},
+   * {@link ListenableFuture}, {@link Stream} or {@link Iterator} at the same point where the method
+   * exit is logged: on completion of the future, or when the stream is closed or the stream or
+   * iterator is exhausted.
+   */
+  private final class SpanExit
+      implements BiConsumer<Object,Throwable>, ListenableFutureCallback<Object>, StreamExit
+  {
+    private final @NotNull Object span;
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+
+    private SpanExit(@NotNull Object span) {
+      this.span = span;
+    }
+
+
+    private @NotNull Object attach(@NotNull Object result)
+    {
+      if (result instanceof CompletionStage)
+        ((CompletionStage<?>)result).whenComplete(this);
+      else if (result instanceof ListenableFuture)
+        ((ListenableFuture<?>)result).addCallback(this);
+      else
+      {
+        final Object wrappedResult = wrapStream(result, this);
+        if (wrappedResult != null)
+          return wrappedResult;
+
+        end(null);
+      }
+
+      return result;
+    }
+
+
+    @Override
+    public void accept(Object result, Throwable throwable)
+    {
+      if (throwable instanceof CompletionException && throwable.getCause() != null)
+        throwable = throwable.getCause();
+
+      end(throwable);
+    }
+
+
+    @Override
+    public void onSuccess(Object result) {
+      end(null);
+    }
+
+
+    @Override
+    public void onFailure(@NotNull Throwable throwable) {
+      end(throwable);
+    }
+
+
+    @Override
+    public void firstElement() {
+    }
+
+
+    @Override
+    public void exit(long count) {
+      end(null);
+    }
+
+
+    private void end(Throwable throwable)
+    {
+      if (ended.compareAndSet(false, true))
+        methodTracing.endSpan(span, throwable);
+    }
+  }
+
+
+
+
+  /**
+   * Method logger logging all messages with the flight recorder level.
+   */
+  private static final class FlightRecorderLogger implements MethodLogger
+  {
+    private final MethodLogger methodLogger;
+    private final Level level;
+
+
+    private FlightRecorderLogger(@NotNull MethodLogger methodLogger, @NotNull Level level)
+    {
+      this.methodLogger = methodLogger;
+      this.level = level;
+    }
+
+
+    @Override
+    public void log(@NotNull Level level, String message) {
+      methodLogger.log(this.level, message);
+    }
+
+
+    @Override
+    public void log(@NotNull Level level, CharSequence message) {
+      methodLogger.log(this.level, message);
+    }
+
+
+    @Override
+    public void log(@NotNull Level level, String message, Throwable throwable) {
+      methodLogger.log(this.level, message, throwable);
+    }
+
+
+    @Override
+    public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                    StackTraceElement location)
+    {
+      methodLogger.log(this.level, message, throwable, location);
+    }
+
+
+    @Override
+    public boolean isLogEnabled(@NotNull Level level) {
+      return methodLogger.isLogEnabled(this.level);
+    }
+  }
+
+
+
+
+  private static final class ExceptionType
+  {
+    final String name;
+    final ExceptionPolicy policy;
+
+
+    private ExceptionType(@NotNull String name, @NotNull ExceptionPolicy policy)
+    {
+      this.name = name;
+      this.policy = policy;
+    }
+  }
+
+
+
+
+  private static final class ExceptionTypes extends ClassValue<ExceptionType>
+  {
+    private final MethodLoggingConfigurer methodLoggingConfigurer;
+
+
+    private ExceptionTypes(@NotNull MethodLoggingConfigurer methodLoggingConfigurer) {
+      this.methodLoggingConfigurer = methodLoggingConfigurer;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected ExceptionType computeValue(Class<?> type)
+    {
+      return new ExceptionType(type.getSimpleName(), requireNonNull(methodLoggingConfigurer
+          .exceptionPolicy((Class<? extends Throwable>)type)));
+    }
   }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.MethodLoggingControl;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+
+
+/**
+ * Registers the method logging control with the platform MBean server for the lifetime of the
+ * application context.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class MethodLoggingMBeanRegistration implements InitializingBean, DisposableBean
+{
+  private final @NotNull MethodLoggingControl methodLoggingControl;
+  private final ObjectName objectName;
+
+  private boolean registered;
+
+
+  MethodLoggingMBeanRegistration(@NotNull MethodLoggingControl methodLoggingControl,
+                                 String objectName) throws JMException
+  {
+    this.methodLoggingControl = methodLoggingControl;
+    this.objectName = objectName == null ? null : new ObjectName(objectName);
+  }
+
+
+  @Override
+  public void afterPropertiesSet() throws JMException
+  {
+    if (objectName != null)
+    {
+      getPlatformMBeanServer().registerMBean(
+          new StandardMBean(methodLoggingControl, MethodLoggingControl.class, true), objectName);
+      registered = true;
+    }
+  }
+
+
+  @Override
+  public void destroy() throws JMException
+  {
+    if (registered)
+    {
+      getPlatformMBeanServer().unregisterMBean(objectName);
+      registered = false;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.sayayi.lib.methodlogging.internal.AnalysisCost.add;
+import static de.sayayi.lib.methodlogging.internal.AnalysisCost.millis;
+import static java.lang.System.nanoTime;
+import static org.springframework.aop.framework.AopProxyUtils.ultimateTargetClass;
+import static org.springframework.aop.support.AopUtils.isJdkDynamicProxy;
+import static org.springframework.util.ReflectionUtils.getUniqueDeclaredMethods;
+
+
+/**
+ * Analyses the logged methods of all advised singleton beans in parallel, after all singletons
+ * have been instantiated. The analysis cache is written after the analysis and again when the
+ * application context is closed, to include methods analysed on their first invocation.
+ * <p>
+ * The analysis is recorded as {@code methodlogging.analysis} startup step, with a nested
+ * {@code methodlogging.analysis.bean} step for each advised bean and a nested
+ * {@code methodlogging.analysis.methods} step for the parallel analysis. Once done, the
+ * accumulated analysis cost, including methods analysed before, is logged.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class MethodLoggingPreAnalysis
+    implements SmartInitializingSingleton, BeanFactoryAware, DisposableBean
+{
+  private static final Log LOG = LogFactory.getLog(MethodLoggingPreAnalysis.class);
+
+  private final @NotNull AnnotationMethodLoggingSource annotationMethodLoggingSource;
+  private final @NotNull MethodLoggingInterceptor methodLoggingInterceptor;
+  private final int parallelism;
+
+  private ConfigurableListableBeanFactory beanFactory;
+  private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+
+  MethodLoggingPreAnalysis(@NotNull AnnotationMethodLoggingSource annotationMethodLoggingSource,
+                           @NotNull MethodLoggingInterceptor methodLoggingInterceptor,
+                           int parallelism)
+  {
+    this.annotationMethodLoggingSource = annotationMethodLoggingSource;
+    this.methodLoggingInterceptor = methodLoggingInterceptor;
+    this.parallelism = parallelism;
+  }
+
+
+  @Override
+  public void setBeanFactory(@NotNull BeanFactory beanFactory) throws BeansException
+  {
+    if (beanFactory instanceof ConfigurableListableBeanFactory)
+    {
+      this.beanFactory = (ConfigurableListableBeanFactory)beanFactory;
+      applicationStartup = this.beanFactory.getApplicationStartup();
+    }
+  }
+
+
+  @Override
+  public void afterSingletonsInstantiated()
+  {
+    final AnalysisCost analysisCost = annotationMethodLoggingSource.analysisCost;
+    final StartupStep step = applicationStartup.start("methodlogging.analysis");
+
+    if (parallelism > 0 && beanFactory != null)
+      analyse();
+
+    annotationMethodLoggingSource.storeAnalysisCache();
+
+    step.tag("methods", Long.toString(analysisCost.analysedMethods.sum()))
+        .tag("analysisTime", millis(analysisCost.analysisNanos))
+        .tag("classFileScans", Long.toString(analysisCost.classFileScans.sum()))
+        .tag("classFileScanTime", millis(analysisCost.classFileScanNanos))
+        .tag("cachedClasses", Long.toString(analysisCost.cachedClasses.sum()))
+        .tag("pointcutMatches", Long.toString(analysisCost.matches.sum()))
+        .tag("pointcutMatchTime", millis(analysisCost.matchNanos))
+        .tag("compileTime", millis(analysisCost.compileNanos))
+        .end();
+
+    if (LOG.isInfoEnabled())
+      LOG.info("Method logging: " + analysisCost);
+  }
+
+
+  @Override
+  public void destroy() {
+    annotationMethodLoggingSource.storeAnalysisCache();
+  }
+
+
+  private void analyse()
+  {
+    final List<MethodClass> methods = findLoggedMethods();
+    if (methods.isEmpty())
+      return;
+
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    final StartupStep step = applicationStartup.start("methodlogging.analysis.methods")
+        .tag("methods", Integer.toString(methods.size()))
+        .tag("parallelism", Integer.toString(parallelism));
+
+    try {
+      pool.submit(() -> methods.parallelStream().forEach(this::analyse)).get();
+    } catch(InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch(ExecutionException ignored) {
+      // methods which failed to be analysed are analysed again on their first invocation
+    } finally {
+      pool.shutdown();
+      step.end();
+    }
+  }
+
+
+  private @NotNull List<MethodClass> findLoggedMethods()
+  {
+    final List<MethodClass> methods = new ArrayList<>();
+
+    for(final String beanName: beanFactory.getSingletonNames())
+    {
+      final Object bean = beanFactory.getSingleton(beanName);
+
+      if (bean instanceof Advised && isAdvisedByMethodLogging((Advised)bean))
+      {
+        final Class<?> targetClass = ultimateTargetClass(bean);
+        final Set<Method> candidateMethods = new LinkedHashSet<>();
+        final StartupStep step = applicationStartup.start("methodlogging.analysis.bean")
+            .tag("beanName", beanName)
+            .tag("beanType", targetClass.getName());
+        final int firstMethod = methods.size();
+
+        if (isJdkDynamicProxy(bean))
+        {
+          for(final Class<?> proxiedInterface: ((Advised)bean).getProxiedInterfaces())
+            for(final Method method: proxiedInterface.getMethods())
+              candidateMethods.add(method);
+        }
+        else
+        {
+          for(final Method method: getUniqueDeclaredMethods(targetClass))
+            candidateMethods.add(method);
+        }
+
+        for(final Method method: candidateMethods)
+          if (method.getDeclaringClass() != Object.class &&
+              annotationMethodLoggingSource.isMethodLogged(method, targetClass))
+            methods.add(new MethodClass(method, targetClass));
+
+        step.tag("methods", Integer.toString(methods.size() - firstMethod)).end();
+      }
+    }
+
+    return methods;
+  }
+
+
+  private boolean isAdvisedByMethodLogging(@NotNull Advised advised)
+  {
+    for(final Advisor advisor: advised.getAdvisors())
+      if (advisor.getAdvice() == methodLoggingInterceptor)
+        return true;
+
+    return false;
+  }
+
+
+  private void analyse(@NotNull MethodClass methodClass)
+  {
+    try {
+      final MethodDef methodDef = annotationMethodLoggingSource
+          .getMethodDefinition(methodClass.method, methodClass.targetClass);
+
+      if (methodDef != null)
+      {
+        final AnalysisCost analysisCost = annotationMethodLoggingSource.analysisCost;
+        final long startTime = nanoTime();
+
+        methodLoggingInterceptor.compileMessages(methodDef);
+        analysisCost.compiledMethods.increment();
+        add(analysisCost.compileNanos, startTime);
+      }
+    } catch(RuntimeException ignored) {
+      // the failure is reported on the first invocation of the method
+    }
+  }
+
+
+
+
+  private static final class MethodClass
+  {
+    final Method method;
+    final Class<?> targetClass;
+
+
+    private MethodClass(@NotNull Method method, @NotNull Class<?> targetClass)
+    {
+      this.method = method;
+      this.targetClass = targetClass;
+    }
+  }
+}
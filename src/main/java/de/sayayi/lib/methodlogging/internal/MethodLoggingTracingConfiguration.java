@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import static de.sayayi.lib.methodlogging.internal.OpenTelemetryMethodTracing.INSTRUMENTATION_SCOPE;
+import static org.springframework.beans.factory.config.BeanDefinition.ROLE_INFRASTRUCTURE;
+
+
+/**
+ * Method tracing configuration, imported only if the OpenTelemetry API is available.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see EnableMethodLoggingSelector
+ */
+@Configuration(proxyBeanMethods = false)
+@Role(ROLE_INFRASTRUCTURE)
+@SuppressWarnings("SpringFacetCodeInspection")
+public class MethodLoggingTracingConfiguration
+{
+  /**
+   * Returns the method tracing for the {@code OpenTelemetry} bean, or {@code null} if there is
+   * no unique {@code OpenTelemetry} bean.
+   */
+  @Bean @Role(ROLE_INFRASTRUCTURE)
+  MethodTracing internalMethodTracing(ObjectProvider<OpenTelemetry> openTelemetry)
+  {
+    final OpenTelemetry otel = openTelemetry.getIfUnique();
+
+    return otel == null
+        ? null
+        : new OpenTelemetryMethodTracing(otel.getTracer(INSTRUMENTATION_SCOPE));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.MethodLoggingStatistics;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.System.nanoTime;
+
+
+/**
+ * Accumulated logging overhead for a method. Method definition copies share the same statistics
+ * instance, so runtime reconfiguration does not reset the statistics.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class MethodStatistics
+{
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+  private final LongAdder invocations = new LongAdder();
+  private final LongAdder entryTime = new LongAdder();
+  private final LongAdder resultTime = new LongAdder();
+  private final LongAdder exitTime = new LongAdder();
+  private final LongAdder proceedTime = new LongAdder();
+  private final LongAdder allocatedBytes = new LongAdder();
+
+
+  /**
+   * Start measuring a method invocation.
+   *
+   * @return  probe for the method invocation, never {@code null}
+   */
+  @Contract("-> new")
+  @NotNull Probe probe()
+  {
+    invocations.increment();
+
+    return new Probe();
+  }
+
+
+  void reset()
+  {
+    invocations.reset();
+    entryTime.reset();
+    resultTime.reset();
+    exitTime.reset();
+    proceedTime.reset();
+    allocatedBytes.reset();
+  }
+
+
+  @Contract(value = "_ -> new", pure = true)
+  @NotNull MethodLoggingStatistics snapshot(@NotNull String method)
+  {
+    return new MethodLoggingStatistics(method, invocations.sum(), entryTime.sum(),
+        resultTime.sum(), exitTime.sum(), proceedTime.sum(),
+        THREAD_MX_BEAN == null ? -1 : allocatedBytes.sum());
+  }
+
+
+  @Contract(pure = true)
+  private static long currentThreadAllocatedBytes()
+  {
+    return THREAD_MX_BEAN == null
+        ? 0 : THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+
+  private static com.sun.management.ThreadMXBean getThreadMXBean()
+  {
+    try {
+      final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+      {
+        final com.sun.management.ThreadMXBean sunThreadMXBean =
+            (com.sun.management.ThreadMXBean)threadMXBean;
+
+        if (sunThreadMXBean.isThreadAllocatedMemorySupported() &&
+            sunThreadMXBean.isThreadAllocatedMemoryEnabled())
+          return sunThreadMXBean;
+      }
+    } catch(LinkageError | SecurityException ignored) {
+    }
+
+    return null;
+  }
+
+
+
+
+  /**
+   * Measures the phases of a single method invocation. Each phase is measured from the end of the
+   * previous phase.
+   */
+  final class Probe
+  {
+    private long time;
+    private long bytes;
+
+
+    private Probe() {
+      mark();
+    }
+
+
+    void entryLogged() {
+      record(entryTime);
+    }
+
+
+    void proceeded()
+    {
+      proceedTime.add(nanoTime() - time);
+      mark();
+    }
+
+
+    void resultLogged() {
+      record(resultTime);
+    }
+
+
+    void exitLogged() {
+      record(exitTime);
+    }
+
+
+    void resume() {
+      mark();
+    }
+
+
+    private void record(@NotNull LongAdder phaseTime)
+    {
+      phaseTime.add(nanoTime() - time);
+      allocatedBytes.add(currentThreadAllocatedBytes() - bytes);
+      mark();
+    }
+
+
+    private void mark()
+    {
+      bytes = currentThreadAllocatedBytes();
+      time = nanoTime();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Creates tracing spans for logged method invocations. This interface does not depend on any
+ * tracing library, so the interceptor can be loaded without it.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see OpenTelemetryMethodTracing
+ */
+interface MethodTracing
+{
+  /**
+   * Starts a span for the given method invocation and makes it the current span.
+   *
+   * @param methodDef  method definition, not {@code null}
+   * @param arguments  method arguments, not {@code null}
+   *
+   * @return  started span, to be passed to {@link #endSpan(Object, Throwable)}
+   */
+  @NotNull Object startSpan(@NotNull MethodDef methodDef, @NotNull Object[] arguments);
+
+
+  /**
+   * Restores the span which was current before {@link #startSpan(MethodDef, Object[])} was
+   * invoked. This method is invoked on the thread which started the span, as soon as the method
+   * returns.
+   *
+   * @param span  span, not {@code null}
+   */
+  void detachSpan(@NotNull Object span);
+
+
+  /**
+   * Ends a span started by {@link #startSpan(MethodDef, Object[])}. For methods returning a future
+   * or stream, this method is invoked on completion of the result, possibly on a different
+   * thread.
+   *
+   * @param span       span, not {@code null}
+   * @param throwable  exception thrown by the method or {@code null}
+   */
+  void endSpan(@NotNull Object span, Throwable throwable);
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.ParameterAppender;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+
+/**
+ * Method tracing using the OpenTelemetry API.
+ * <p>
+ * Each span carries the method name, class, line number and, if parameters are shown, the
+ * logged parameters as attributes {@code param.<name>}. Span names and attribute keys are created
+ * once per method definition.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class OpenTelemetryMethodTracing implements MethodTracing
+{
+  static final String INSTRUMENTATION_SCOPE = "de.sayayi.lib.methodlogging";
+
+  private static final AttributeKey<String> CODE_NAMESPACE = stringKey("code.namespace");
+  private static final AttributeKey<String> CODE_FUNCTION = stringKey("code.function");
+  private static final AttributeKey<Long> CODE_LINENO = longKey("code.lineno");
+
+  private final @NotNull Tracer tracer;
+
+
+  OpenTelemetryMethodTracing(@NotNull Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+
+  @Override
+  public @NotNull Object startSpan(@NotNull MethodDef methodDef, @NotNull Object[] arguments)
+  {
+    final SpanTemplate spanTemplate = getSpanTemplate(methodDef);
+    final Span span = tracer.spanBuilder(spanTemplate.name)
+        .setAllAttributes(spanTemplate.attributes)
+        .startSpan();
+
+    if (methodDef.showParameters)
+    {
+      final ParameterDef[] parameters = spanTemplate.parameters;
+
+      for(int n = 0; n < parameters.length; n++)
+      {
+        final Object value = arguments[parameters[n].index];
+
+        if (value != null)
+        {
+          try {
+            span.setAttribute(spanTemplate.parameterKeys[n], render(parameters[n], value));
+          } catch(Exception ignored) {
+            // the parameter attribute is omitted
+          }
+        }
+      }
+    }
+
+    return new SpanScope(span, span.makeCurrent());
+  }
+
+
+  @Override
+  public void detachSpan(@NotNull Object span) {
+    ((SpanScope)span).scope.close();
+  }
+
+
+  @Override
+  public void endSpan(@NotNull Object span, Throwable throwable)
+  {
+    final SpanScope spanScope = (SpanScope)span;
+
+    if (throwable != null)
+    {
+      spanScope.span.recordException(throwable);
+      spanScope.span.setStatus(StatusCode.ERROR);
+    }
+
+    spanScope.span.end();
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull String render(@NotNull ParameterDef parameterDef, @NotNull Object value)
+  {
+    final ParameterAppender appender = parameterDef.appender;
+
+    if (appender != null)
+    {
+      final StringBuilder s = new StringBuilder();
+      appender.append(s, value);
+
+      return s.toString();
+    }
+
+    final String s = String.valueOf(value);
+    final int maxLength = parameterDef.maxLength;
+
+    return maxLength == 0 || s.length() <= maxLength ? s : s.substring(0, maxLength) + "...";
+  }
+
+
+  private static @NotNull SpanTemplate getSpanTemplate(@NotNull MethodDef methodDef)
+  {
+    Object spanTemplate = methodDef.spanTemplate;
+
+    // created lazily without locking; concurrent first invocations may create a template twice
+    if (spanTemplate == null)
+      methodDef.spanTemplate = spanTemplate = new SpanTemplate(methodDef);
+
+    return (SpanTemplate)spanTemplate;
+  }
+
+
+
+
+  /**
+   * Span name and attributes of a method definition.
+   */
+  private static final class SpanTemplate
+  {
+    final @NotNull String name;
+    final @NotNull Attributes attributes;
+    final @NotNull ParameterDef[] parameters;
+    final @NotNull AttributeKey<String>[] parameterKeys;
+
+
+    @SuppressWarnings("unchecked")
+    private SpanTemplate(@NotNull MethodDef methodDef)
+    {
+      final String className = methodDef.className;
+
+      name = className.substring(className.lastIndexOf('.') + 1) + '.' + methodDef.methodName;
+
+      final AttributesBuilder attributesBuilder = Attributes.builder()
+          .put(CODE_NAMESPACE, className)
+          .put(CODE_FUNCTION, methodDef.methodName);
+      if (methodDef.line > 0)
+        attributesBuilder.put(CODE_LINENO, (long)methodDef.line);
+      attributes = attributesBuilder.build();
+
+      final int inlineParameters = methodDef.inlineParameters.length;
+
+      parameters = new ParameterDef[inlineParameters + methodDef.inMethodParameters.length];
+      System.arraycopy(methodDef.inlineParameters, 0, parameters, 0, inlineParameters);
+      System.arraycopy(methodDef.inMethodParameters, 0, parameters, inlineParameters,
+          methodDef.inMethodParameters.length);
+
+      parameterKeys = new AttributeKey[parameters.length];
+      for(int n = 0; n < parameters.length; n++)
+        parameterKeys[n] = stringKey("param." + parameters[n].name);
+    }
+  }
+
+
+
+
+  private static final class SpanScope
+  {
+    final @NotNull Span span;
+    final @NotNull Scope scope;
+
+
+    private SpanScope(@NotNull Span span, @NotNull Scope scope)
+    {
+      this.span = span;
+      this.scope = scope;
+    }
+  }
+}
@@ -17,10 +17,12 @@ package de.sayayi.lib.methodlogging.internal;
 
 import de.sayayi.lib.message.Message;
 import de.sayayi.lib.message.MessageSupport;
+import de.sayayi.lib.methodlogging.ParameterAppender;
 import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 
 /**
@@ -34,20 +36,55 @@ final class ParameterDef implements Serializable
   String name;
   boolean inline;
 
+  /** Rendered on method exit for failed or slow invocations only. */
+  boolean deferred;
+
+  /** Copied on method entry, for deferred parameters only. */
+  boolean snapshot;
+
   @Language("MessageFormat") String format;
-  Message formatMessage;
+  volatile Message formatMessage;
+
+  /** Appender for non-null values, bound for parameters with the default format only. */
+  ParameterAppender appender;
+
+  /** Maximum number of characters for values formatted by the message context, 0 = unlimited. */
+  int maxLength;
+
+  /** Time until which formatting is disabled or {@code 0} if formatting is enabled. */
+  volatile long formattingDisabledUntil;
 
 
   @NotNull Message getFormatMessage(@NotNull MessageSupport messageContext)
   {
-    synchronized(this) {
-      if (formatMessage == null)
-      {
-        formatMessage = messageContext.message(format).getMessage();
-        format = null;
-      }
-
-      return formatMessage;
-    }
+    Message message = formatMessage;
+
+    if (message == null)
+      formatMessage = message = messageContext.message(format).getMessage();
+
+    return message;
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof ParameterDef))
+      return false;
+
+    final ParameterDef that = (ParameterDef)o;
+
+    return index == that.index && inline == that.inline && deferred == that.deferred &&
+        snapshot == that.snapshot && name.equals(that.name) &&
+        format.equals(that.format) && maxLength == that.maxLength &&
+        Objects.equals(appender, that.appender);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return name.hashCode() * 31 + index;
   }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import de.sayayi.lib.methodlogging.MethodLogger;
+import org.jetbrains.annotations.NotNull;
+
+import static java.lang.System.identityHashCode;
+
+
+/**
+ * Per thread record of the most recently logged invocations, used for collapsing repeated
+ * identical invocations.
+ * <p>
+ * An invocation is a repeat if its entry, result and exit lines would be identical to those of
+ * the recorded invocation. Repeats are collapsed within the outermost logged invocation on the
+ * thread only; once it returns, pending repeats are reported and the record is cleared.
+ * <p>
+ * Methods are mapped onto a small, fixed number of slots. If methods share a slot, the more
+ * recent one evicts the other, reporting its pending repeats. The record is confined to its
+ * thread, so it requires no locking and does not allocate any memory once it has been created.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class RepeatedInvocations
+{
+  private static final int SLOTS = 8;
+
+  final MethodDef[] methodDef = new MethodDef[SLOTS];
+  private final MethodLogger[] methodLogger = new MethodLogger[SLOTS];
+  private final long[] entryHash = new long[SLOTS];
+  private final long[] exitHash = new long[SLOTS];
+  private final boolean[] exited = new boolean[SLOTS];
+  private final long[] time = new long[SLOTS];
+  private final int[] repeats = new int[SLOTS];
+
+
+  int slot(@NotNull MethodDef methodDef) {
+    return identityHashCode(methodDef) & (SLOTS - 1);
+  }
+
+
+  /**
+   * Checks whether an invocation entry repeats the entry of the invocation recorded in
+   * {@code slot}. The invocation is a repeat only if its result and exit repeat those of the
+   * recorded invocation as well, see {@link #repeat(int, MethodDef, long)}.
+   *
+   * @param slot       slot for {@code methodDef}
+   * @param methodDef  invoked method, not {@code null}
+   * @param entryHash  hash of the invocation entry
+   * @param since      time after which the recorded invocation must have been logged
+   *
+   * @return  {@code true} if the entry is a repeat and must not be logged yet, {@code false}
+   *          otherwise
+   */
+  boolean repeatEntry(int slot, @NotNull MethodDef methodDef, long entryHash, long since)
+  {
+    return this.methodDef[slot] == methodDef && exited[slot] &&
+        this.entryHash[slot] == entryHash && time[slot] >= since;
+  }
+
+
+  /**
+   * Checks whether the result and exit of an invocation, whose entry is a repeat, repeat the
+   * result and exit of the invocation recorded in {@code slot}. If so, the repeat is counted.
+   *
+   * @param slot       slot for {@code methodDef}
+   * @param methodDef  invoked method, not {@code null}
+   * @param exitHash   hash of the invocation result and exit
+   *
+   * @return  {@code true} if the invocation is a repeat and must not be logged, {@code false}
+   *          otherwise
+   */
+  boolean repeat(int slot, @NotNull MethodDef methodDef, long exitHash)
+  {
+    if (this.methodDef[slot] == methodDef && exited[slot] && this.exitHash[slot] == exitHash)
+    {
+      repeats[slot]++;
+      return true;
+    }
+
+    return false;
+  }
+
+
+  void record(int slot, @NotNull MethodDef methodDef, @NotNull MethodLogger methodLogger,
+              long entryHash, long time)
+  {
+    this.methodDef[slot] = methodDef;
+    this.methodLogger[slot] = methodLogger;
+    this.entryHash[slot] = entryHash;
+    this.exited[slot] = false;
+    this.time[slot] = time;
+  }
+
+
+  /**
+   * Record the result and exit of the invocation recorded in {@code slot}. Until then, the
+   * invocation cannot be repeated.
+   *
+   * @param slot       slot for {@code methodDef}
+   * @param methodDef  invoked method, not {@code null}
+   * @param exitHash   hash of the invocation result and exit
+   */
+  void recordExit(int slot, @NotNull MethodDef methodDef, long exitHash)
+  {
+    if (this.methodDef[slot] == methodDef)
+    {
+      this.exitHash[slot] = exitHash;
+      exited[slot] = true;
+    }
+  }
+
+
+  /**
+   * Report the pending repeats of the invocation recorded in {@code slot} and clear the slot.
+   *
+   * @param slot  slot to report and clear
+   */
+  void report(int slot)
+  {
+    final MethodDef methodDef = this.methodDef[slot];
+    final MethodLogger methodLogger = this.methodLogger[slot];
+    final int pendingRepeats = repeats[slot];
+
+    this.methodDef[slot] = null;
+    this.methodLogger[slot] = null;
+    exited[slot] = false;
+    repeats[slot] = 0;
+
+    if (pendingRepeats > 0)
+    {
+      methodLogger.log(methodDef.entryExitLevel, methodDef.methodName +
+          ": last message repeated " + pendingRepeats +
+          (pendingRepeats == 1 ? " time" : " times"), null, methodDef.location);
+    }
+  }
+
+
+  /**
+   * Report the pending repeats of all recorded invocations and clear the record.
+   */
+  void reportAll()
+  {
+    for(int slot = 0; slot < SLOTS; slot++)
+      if (methodDef[slot] != null)
+        report(slot);
+  }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.journal;
+
+import de.sayayi.lib.methodlogging.MethodLoggingConfigurer;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.identityHashCode;
+import static java.lang.System.nanoTime;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+import static java.util.stream.Collectors.toList;
+
+
+/**
+ * Binary journal of logged method invocations.
+ * <p>
+ * Each invocation is written as a compact binary record into memory-mapped segment files, without
+ * formatting any of its parameters. A record contains the method id, thread id, start and end
+ * time in nanoseconds, the exception class (if any) and the method parameters in raw form.
+ * Primitive wrappers are stored as is, short strings, enum names and class names are stored as ids
+ * of a string dictionary and other objects are stored by their class name and identity hash code.
+ * <p>
+ * Each segment is self-contained: method and string definitions are written to a segment before
+ * the first record referring to them. If a segment is full, a new segment is started. Only the
+ * most recent {@code maxSegments} segments are kept.
+ * <p>
+ * Segments can be converted to text or CSV using {@link JournalDecoder}.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see MethodLoggingConfigurer#invocationJournal()
+ */
+public final class InvocationJournal implements Closeable
+{
+  static final int MAGIC = 0x4d4c4a31;  // MLJ1
+  static final short VERSION = 1;
+  static final int HEADER_SIZE = 4 + 2 + 8 + 8;
+
+  static final String SEGMENT_PREFIX = "journal-";
+  static final String SEGMENT_SUFFIX = ".mlj";
+
+  static final byte END = 0;
+  static final byte METHOD = 1;
+  static final byte STRING = 2;
+  static final byte INVOCATION = 3;
+
+  static final byte ARG_NULL = 0;
+  static final byte ARG_BOOLEAN = 1;
+  static final byte ARG_BYTE = 2;
+  static final byte ARG_SHORT = 3;
+  static final byte ARG_CHAR = 4;
+  static final byte ARG_INT = 5;
+  static final byte ARG_LONG = 6;
+  static final byte ARG_FLOAT = 7;
+  static final byte ARG_DOUBLE = 8;
+  static final byte ARG_STRING = 9;
+  static final byte ARG_TEXT = 10;
+  static final byte ARG_ENUM = 11;
+  static final byte ARG_OBJECT = 12;
+
+  /** Maximum length of strings stored in the string dictionary or inline. */
+  static final int MAX_STRING_LENGTH = 64;
+
+  /** Maximum number of parameter strings in the string dictionary. */
+  private static final int MAX_DICTIONARY_SIZE = 65536;
+
+  private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int maxSegments;
+
+  private final ThreadLocal<Encoder> encoder = ThreadLocal.withInitial(Encoder::new);
+  private final ConcurrentMap<String,Integer> stringIds = new ConcurrentHashMap<>();
+
+  /**
+   * Guards the dictionary and the current segment. Writing may block while a new segment is
+   * mapped, so a lock is used instead of synchronization, which pins virtual threads.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // guarded by lock
+  private final List<byte[]> stringDefinitions = new ArrayList<>();
+  private final List<byte[]> methodDefinitions = new ArrayList<>();
+  private final BitSet segmentStrings = new BitSet();
+  private final BitSet segmentMethods = new BitSet();
+  private final Deque<Path> segments = new ArrayDeque<>();
+  private int dictionaryParameterStrings;
+  private int segmentNumber;
+  private MappedByteBuffer segment;
+  private IOException failure;
+
+
+  /**
+   * Create an invocation journal with 16MB segments, keeping at most 8 segments.
+   *
+   * @param directory  directory to write the segment files to, not {@code null}
+   *
+   * @throws IOException  if the directory or the first segment could not be created
+   */
+  public InvocationJournal(@NotNull Path directory) throws IOException {
+    this(directory, 16 * 1024 * 1024, 8);
+  }
+
+
+  /**
+   * Create an invocation journal.
+   * <p>
+   * Segment files from a previous journal in the same directory are counted towards
+   * {@code maxSegments} and deleted first when new segments are created.
+   *
+   * @param directory    directory to write the segment files to, not {@code null}
+   * @param segmentSize  size of each segment file in bytes, at least 64KB
+   * @param maxSegments  maximum number of segment files to keep, at least 1
+   *
+   * @throws IOException  if the directory or the first segment could not be created
+   */
+  public InvocationJournal(@NotNull Path directory, int segmentSize, int maxSegments)
+      throws IOException
+  {
+    if (segmentSize < MIN_SEGMENT_SIZE)
+      throw new IllegalArgumentException("segmentSize must be at least " + MIN_SEGMENT_SIZE);
+    if (maxSegments < 1)
+      throw new IllegalArgumentException("maxSegments must be at least 1");
+
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+
+    for(final Path existingSegment: listSegments(directory))
+    {
+      segments.add(existingSegment);
+      segmentNumber = Math.max(segmentNumber, segmentNumber(existingSegment));
+    }
+
+    lock.lock();
+    try {
+      openSegment();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Register a method with this journal.
+   *
+   * @param className         name of the class declaring the method, not {@code null}
+   * @param methodName        method name, not {@code null}
+   * @param parameterNames    names of the parameters to record, not {@code null}
+   * @param parameterIndices  indices of the parameters to record in the method argument list,
+   *                          not {@code null}
+   *
+   * @return  journaled method, never {@code null}
+   */
+  @Contract("_, _, _, _ -> new")
+  public @NotNull JournaledMethod method(@NotNull String className, @NotNull String methodName,
+                                        @NotNull String[] parameterNames,
+                                        @NotNull int[] parameterIndices)
+  {
+    if (parameterNames.length != parameterIndices.length || parameterNames.length > 255)
+      throw new IllegalArgumentException("parameterNames and parameterIndices mismatch");
+
+    final byte[][] strings = new byte[parameterNames.length + 2][];
+    int size = 1 + 4 + 1;
+
+    strings[0] = utf8(className);
+    strings[1] = utf8(methodName);
+    for(int n = 0; n < parameterNames.length; n++)
+      strings[n + 2] = utf8(parameterNames[n]);
+    for(final byte[] string: strings)
+      size += 2 + string.length;
+
+    lock.lock();
+    try {
+      final int id = methodDefinitions.size();
+      final ByteBuffer definition = ByteBuffer.allocate(size)
+          .put(METHOD)
+          .putInt(id)
+          .put((byte)parameterNames.length);
+      for(final byte[] string: strings)
+        definition.putShort((short)string.length).put(string);
+
+      methodDefinitions.add(definition.array());
+
+      return new JournaledMethod(id, parameterIndices.clone());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Record a method invocation.
+   * <p>
+   * This method never throws an exception. If a new segment cannot be created, recording stops
+   * and the failure is reported by {@link #close()}.
+   *
+   * @param method      journaled method, not {@code null}
+   * @param startNanos  {@link System#nanoTime()} at method entry
+   * @param endNanos    {@link System#nanoTime()} at method exit
+   * @param throwable   exception thrown by the method or {@code null}
+   * @param arguments   method arguments or {@code null} if the parameters are not to be recorded
+   */
+  public void record(@NotNull JournaledMethod method, long startNanos, long endNanos,
+                     Throwable throwable, Object[] arguments)
+  {
+    final Encoder encoder = this.encoder.get();
+    final ByteBuffer buffer = encoder.reset();
+
+    buffer
+        .put(INVOCATION)
+        .putInt(method.id)
+        .putLong(Thread.currentThread().getId())
+        .putLong(startNanos)
+        .putLong(endNanos)
+        .putInt(throwable == null ? -1 : encoder.string(throwable.getClass().getName(), false));
+
+    final int argumentCountPosition = buffer.position();
+    int argumentCount = 0;
+
+    buffer.put((byte)0);
+
+    if (arguments != null)
+    {
+      int position = buffer.position();
+
+      try {
+        for(final int index: method.parameterIndices)
+        {
+          encoder.argument(arguments[index]);
+          position = buffer.position();
+          argumentCount++;
+        }
+      } catch(BufferOverflowException ex) {
+        buffer.position(position);
+      }
+
+      buffer.put(argumentCountPosition, (byte)argumentCount);
+    }
+
+    buffer.flip();
+    write(method.id, encoder);
+  }
+
+
+  /**
+   * Flush and close the current segment. Invocations recorded after closing the journal are
+   * discarded.
+   *
+   * @throws IOException  if creating a segment failed while recording invocations
+   */
+  @Override
+  public void close() throws IOException
+  {
+    lock.lock();
+    try {
+      if (segment != null)
+      {
+        segment.force();
+        segment = null;
+      }
+
+      if (failure != null)
+        throw failure;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  private void write(int methodId, @NotNull Encoder encoder)
+  {
+    lock.lock();
+    try {
+      if (segment == null)
+        return;
+
+      final ByteBuffer record = encoder.buffer;
+      final int[] strings = encoder.strings;
+      final int stringCount = encoder.stringCount;
+
+      for(;;)
+      {
+        int size = record.remaining();
+
+        if (!segmentMethods.get(methodId))
+          size += methodDefinitions.get(methodId).length;
+        for(int n = 0; n < stringCount; n++)
+          if (!segmentStrings.get(strings[n]))
+            size += stringDefinitions.get(strings[n]).length;
+
+        if (size <= segment.remaining())
+          break;
+
+        // record does not fit into an empty segment
+        if (segment.position() == HEADER_SIZE)
+          return;
+
+        segment.force();
+
+        try {
+          openSegment();
+        } catch(IOException ex) {
+          failure = ex;
+          segment = null;
+          return;
+        }
+      }
+
+      if (!segmentMethods.get(methodId))
+      {
+        segment.put(methodDefinitions.get(methodId));
+        segmentMethods.set(methodId);
+      }
+
+      for(int n = 0; n < stringCount; n++)
+        if (!segmentStrings.get(strings[n]))
+        {
+          segment.put(stringDefinitions.get(strings[n]));
+          segmentStrings.set(strings[n]);
+        }
+
+      segment.put(record);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  private void openSegment() throws IOException
+  {
+    final Path path = directory.resolve(
+        String.format("%s%06d%s", SEGMENT_PREFIX, ++segmentNumber, SEGMENT_SUFFIX));
+
+    try(final FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE)) {
+      segment = channel.map(READ_WRITE, 0, segmentSize);
+    }
+
+    segment
+        .putInt(MAGIC)
+        .putShort(VERSION)
+        .putLong(currentTimeMillis())
+        .putLong(nanoTime());
+
+    segmentMethods.clear();
+    segmentStrings.clear();
+
+    for(segments.add(path); segments.size() > maxSegments;)
+    {
+      try {
+        Files.deleteIfExists(segments.removeFirst());
+      } catch(IOException ignored) {
+        // segment may still be mapped on some platforms
+      }
+    }
+  }
+
+
+  /**
+   * Returns the dictionary id for the given {@code string}.
+   *
+   * @param string     string, not {@code null}
+   * @param parameter  {@code true} if the string is a parameter value, {@code false} if it is a
+   *                   class or enum name
+   *
+   * @return  string id or {@code -1} if the dictionary is full
+   */
+  private int stringId(@NotNull String string, boolean parameter)
+  {
+    final Integer id = stringIds.get(string);
+    if (id != null)
+      return id;
+
+    lock.lock();
+    try {
+      Integer newId = stringIds.get(string);
+
+      if (newId == null)
+      {
+        if (parameter && dictionaryParameterStrings >= MAX_DICTIONARY_SIZE)
+          return -1;
+
+        final byte[] utf8 = utf8(string);
+
+        newId = stringDefinitions.size();
+        stringDefinitions.add(ByteBuffer.allocate(1 + 4 + 2 + utf8.length)
+            .put(STRING)
+            .putInt(newId)
+            .putShort((short)utf8.length)
+            .put(utf8)
+            .array());
+
+        if (parameter)
+          dictionaryParameterStrings++;
+
+        stringIds.put(string, newId);
+      }
+
+      return newId;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  @Contract(pure = true)
+  private static byte[] utf8(@NotNull String s)
+  {
+    final byte[] utf8 = s.getBytes(UTF_8);
+    if (utf8.length > 0xffff)
+      throw new IllegalArgumentException("string too long: " + s.substring(0, 32) + "...");
+
+    return utf8;
+  }
+
+
+  static @NotNull List<Path> listSegments(@NotNull Path directory) throws IOException
+  {
+    try(final Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(InvocationJournal::isSegment)
+          .sorted()
+          .collect(toList());
+    }
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isSegment(@NotNull Path path)
+  {
+    final String name = path.getFileName().toString();
+
+    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) &&
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())
+            .chars().allMatch(Character::isDigit);
+  }
+
+
+  @Contract(pure = true)
+  private static int segmentNumber(@NotNull Path path)
+  {
+    final String name = path.getFileName().toString();
+
+    return Integer.parseInt(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+
+
+
+  /**
+   * Per thread record encoder.
+   */
+  private final class Encoder
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    int[] strings = new int[16];
+    int stringCount;
+
+
+    @NotNull ByteBuffer reset()
+    {
+      stringCount = 0;
+      buffer.clear();
+
+      return buffer;
+    }
+
+
+    int string(@NotNull String string, boolean parameter)
+    {
+      final int id = stringId(string, parameter);
+
+      if (id >= 0)
+      {
+        if (stringCount == strings.length)
+          strings = copyOf(strings, stringCount * 2);
+
+        strings[stringCount++] = id;
+      }
+
+      return id;
+    }
+
+
+    void argument(Object value)
+    {
+      if (value == null)
+        buffer.put(ARG_NULL);
+      else if (value instanceof String)
+        argument_string((String)value);
+      else if (value instanceof Integer)
+        buffer.put(ARG_INT).putInt((Integer)value);
+      else if (value instanceof Long)
+        buffer.put(ARG_LONG).putLong((Long)value);
+      else if (value instanceof Boolean)
+        buffer.put(ARG_BOOLEAN).put((byte)((Boolean)value ? 1 : 0));
+      else if (value instanceof Double)
+        buffer.put(ARG_DOUBLE).putDouble((Double)value);
+      else if (value instanceof Float)
+        buffer.put(ARG_FLOAT).putFloat((Float)value);
+      else if (value instanceof Character)
+        buffer.put(ARG_CHAR).putChar((Character)value);
+      else if (value instanceof Short)
+        buffer.put(ARG_SHORT).putShort((Short)value);
+      else if (value instanceof Byte)
+        buffer.put(ARG_BYTE).put((Byte)value);
+      else if (value instanceof Enum)
+        buffer.put(ARG_ENUM).putInt(string(((Enum<?>)value).name(), false));
+      else
+      {
+        buffer
+            .put(ARG_OBJECT)
+            .putInt(string(value.getClass().getName(), false))
+            .putInt(identityHashCode(value));
+      }
+    }
+
+
+    private void argument_string(@NotNull String value)
+    {
+      final int length = value.length();
+      final int id = length <= MAX_STRING_LENGTH ? string(value, true) : -1;
+
+      if (id >= 0)
+        buffer.put(ARG_STRING).putInt(id);
+      else
+      {
+        final byte[] utf8 =
+            (length <= MAX_STRING_LENGTH ? value : value.substring(0, MAX_STRING_LENGTH))
+                .getBytes(UTF_8);
+
+        buffer.put(ARG_TEXT).putInt(length).putShort((short)utf8.length).put(utf8);
+      }
+    }
+  }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.journal;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static de.sayayi.lib.methodlogging.journal.InvocationJournal.*;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Comparator.comparingLong;
+
+
+/**
+ * Converts the segment files written by {@link InvocationJournal} into text or CSV.
+ * <p>
+ * Text output contains a method entry and a method exit line for each recorded invocation, in the
+ * order of their occurrence:
+ * <pre>
+ *   2026-01-01 12:00:00.000120 [1] com.example.Service &gt; process(id=42)
+ *   2026-01-01 12:00:00.000851 [1] com.example.Service &lt; process (elapsed 0.731ms)
+ * </pre>
+ * CSV output contains a single line for each recorded invocation.
+ * <p>
+ * Usage: {@code java de.sayayi.lib.methodlogging.journal.JournalDecoder [--csv] <segment file or
+ * directory>...}
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+public final class JournalDecoder
+{
+  private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS").withZone(ZoneId.systemDefault());
+
+  private static final Comparator<Event> EVENT_ORDER = comparingLong(Event::time)
+      // exit before entry
+      .thenComparing(event -> event.entry)
+      // outer invocation first on entry, inner invocation first on exit
+      .thenComparingLong(event ->
+          event.entry ? -event.invocation.endNanos : -event.invocation.startNanos);
+
+  private final boolean csv;
+
+
+  /**
+   * Create a journal decoder.
+   *
+   * @param csv  {@code true} for CSV output, {@code false} for text output
+   */
+  public JournalDecoder(boolean csv) {
+    this.csv = csv;
+  }
+
+
+  public static void main(String[] args) throws IOException
+  {
+    final List<Path> segments = new ArrayList<>();
+    boolean csv = false;
+
+    for(final String arg: args)
+    {
+      if ("--csv".equals(arg))
+        csv = true;
+      else
+      {
+        final Path path = Paths.get(arg);
+
+        if (Files.isDirectory(path))
+          segments.addAll(listSegments(path));
+        else
+          segments.add(path);
+      }
+    }
+
+    if (segments.isEmpty())
+    {
+      System.err.println("usage: " + JournalDecoder.class.getName() +
+          " [--csv] <segment file or directory>...");
+      System.exit(1);
+    }
+
+    final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+    final JournalDecoder decoder = new JournalDecoder(csv);
+
+    decoder.header(out);
+    for(final Path segment: segments)
+      decoder.decode(segment, out);
+
+    out.flush();
+  }
+
+
+  /**
+   * Write the output header, if any.
+   *
+   * @param out  output writer, not {@code null}
+   *
+   * @throws IOException  if writing fails
+   */
+  public void header(@NotNull Writer out) throws IOException
+  {
+    if (csv)
+      out.write("thread,start,end,elapsed_ns,class,method,exception,parameters\n");
+  }
+
+
+  /**
+   * Decode a single segment file.
+   *
+   * @param segment  segment file, not {@code null}
+   * @param out      output writer, not {@code null}
+   *
+   * @throws IOException  if the segment cannot be read or is not a valid segment file
+   */
+  public void decode(@NotNull Path segment, @NotNull Writer out) throws IOException
+  {
+    final ByteBuffer buffer;
+
+    try(final FileChannel channel = FileChannel.open(segment, READ)) {
+      buffer = channel.map(READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ||
+        buffer.getShort() != VERSION)
+      throw new IOException(segment + " is not a method logging journal segment");
+
+    final long epochMillis = buffer.getLong();
+    final long anchorNanos = buffer.getLong();
+    final List<Invocation> invocations = read(buffer);
+
+    if (csv)
+    {
+      invocations.sort(comparingLong(invocation -> invocation.startNanos));
+
+      for(final Invocation invocation: invocations)
+        csv(out, invocation, epochMillis, anchorNanos);
+    }
+    else
+    {
+      final List<Event> events = new ArrayList<>(invocations.size() * 2);
+
+      for(final Invocation invocation: invocations)
+      {
+        events.add(new Event(invocation, true));
+        events.add(new Event(invocation, false));
+      }
+
+      events.sort(EVENT_ORDER);
+
+      for(final Event event: events)
+        text(out, event, epochMillis, anchorNanos);
+    }
+  }
+
+
+  /**
+   * Read all records from the segment. A segment which ends with an incomplete record, eg. a
+   * partially copied segment file, is read up to its last complete record.
+   */
+  private @NotNull List<Invocation> read(@NotNull ByteBuffer buffer) throws IOException
+  {
+    final Map<Integer,String> strings = new HashMap<>();
+    final Map<Integer,MethodInfo> methods = new HashMap<>();
+    final List<Invocation> invocations = new ArrayList<>();
+
+    try {
+      while(buffer.hasRemaining() && read(buffer, strings, methods, invocations))
+        ;
+    } catch(BufferUnderflowException ignored) {
+      // incomplete record
+    }
+
+    return invocations;
+  }
+
+
+  /**
+   * Read a single record from the segment.
+   *
+   * @return  {@code true} if a record has been read, {@code false} if the end of the segment has
+   *          been reached
+   */
+  private boolean read(@NotNull ByteBuffer buffer, @NotNull Map<Integer,String> strings,
+                       @NotNull Map<Integer,MethodInfo> methods,
+                       @NotNull List<Invocation> invocations) throws IOException
+  {
+    final byte type = buffer.get();
+
+    switch(type)
+    {
+      case END:
+        return false;
+
+      case METHOD: {
+        final int id = buffer.getInt();
+        final String[] parameterNames = new String[buffer.get() & 0xff];
+        final String className = readString(buffer);
+        final String methodName = readString(buffer);
+
+        for(int n = 0; n < parameterNames.length; n++)
+          parameterNames[n] = readString(buffer);
+
+        methods.put(id, new MethodInfo(className, methodName, parameterNames));
+        return true;
+      }
+
+      case STRING:
+        strings.put(buffer.getInt(), readString(buffer));
+        return true;
+
+      case INVOCATION: {
+        final MethodInfo method = methods.get(buffer.getInt());
+        if (method == null)
+          throw new IOException("invocation of undefined method");
+
+        final long thread = buffer.getLong();
+        final long startNanos = buffer.getLong();
+        final long endNanos = buffer.getLong();
+        final int exceptionId = buffer.getInt();
+        final int argumentCount = buffer.get() & 0xff;
+        final StringJoiner parameters = new StringJoiner(",");
+
+        for(int n = 0; n < argumentCount; n++)
+          parameters.add(method.parameterNames[n] + '=' + readArgument(buffer, strings));
+
+        invocations.add(new Invocation(method, thread, startNanos, endNanos,
+            exceptionId == -1 ? null : strings.get(exceptionId), parameters.toString()));
+        return true;
+      }
+
+      default:
+        throw new IOException("unknown record type " + type);
+    }
+  }
+
+
+  private @NotNull String readArgument(@NotNull ByteBuffer buffer,
+                                       @NotNull Map<Integer,String> strings) throws IOException
+  {
+    final byte type = buffer.get();
+
+    switch(type)
+    {
+      case ARG_NULL:      return "null";
+      case ARG_BOOLEAN:   return Boolean.toString(buffer.get() != 0);
+      case ARG_BYTE:      return Byte.toString(buffer.get());
+      case ARG_SHORT:     return Short.toString(buffer.getShort());
+      case ARG_CHAR:      return Character.toString(buffer.getChar());
+      case ARG_INT:       return Integer.toString(buffer.getInt());
+      case ARG_LONG:      return Long.toString(buffer.getLong());
+      case ARG_FLOAT:     return Float.toString(buffer.getFloat());
+      case ARG_DOUBLE:    return Double.toString(buffer.getDouble());
+      case ARG_STRING:
+      case ARG_ENUM:      return strings.get(buffer.getInt());
+
+      case ARG_TEXT: {
+        final int length = buffer.getInt();
+        final String text = readString(buffer);
+
+        return length > text.length() ? text + "..." : text;
+      }
+
+      case ARG_OBJECT: {
+        final String className = strings.get(buffer.getInt());
+
+        return className.substring(className.lastIndexOf('.') + 1) + '@' +
+            Integer.toHexString(buffer.getInt());
+      }
+
+      default:
+        throw new IOException("unknown argument type " + type);
+    }
+  }
+
+
+  private void text(@NotNull Writer out, @NotNull Event event, long epochMillis,
+                    long anchorNanos) throws IOException
+  {
+    final Invocation invocation = event.invocation;
+    final MethodInfo method = invocation.method;
+    final StringBuilder line = new StringBuilder(128)
+        .append(timestamp(event.time(), epochMillis, anchorNanos))
+        .append(" [").append(invocation.thread).append("] ")
+        .append(method.className).append(' ');
+
+    if (event.entry)
+    {
+      line.append("> ").append(method.methodName);
+      if (method.parameterNames.length > 0 && !invocation.parameters.isEmpty())
+        line.append('(').append(invocation.parameters).append(')');
+    }
+    else
+    {
+      line.append("< ").append(method.methodName).append(" (elapsed ")
+          .append(elapsed(invocation.endNanos - invocation.startNanos)).append(')');
+
+      if (invocation.exception != null)
+        line.append(" -> ").append(invocation.exception);
+    }
+
+    out.write(line.append('\n').toString());
+  }
+
+
+  private void csv(@NotNull Writer out, @NotNull Invocation invocation, long epochMillis,
+                   long anchorNanos) throws IOException
+  {
+    final MethodInfo method = invocation.method;
+
+    out.write(new StringJoiner(",", "", "\n")
+        .add(Long.toString(invocation.thread))
+        .add(timestamp(invocation.startNanos, epochMillis, anchorNanos))
+        .add(timestamp(invocation.endNanos, epochMillis, anchorNanos))
+        .add(Long.toString(invocation.endNanos - invocation.startNanos))
+        .add(csvValue(method.className))
+        .add(csvValue(method.methodName))
+        .add(csvValue(invocation.exception == null ? "" : invocation.exception))
+        .add(csvValue(invocation.parameters))
+        .toString());
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull String timestamp(long nanos, long epochMillis, long anchorNanos)
+  {
+    final long epochNanos = epochMillis * 1000000L + (nanos - anchorNanos);
+
+    return TIMESTAMP_FORMATTER.format(Instant.ofEpochSecond(
+        Math.floorDiv(epochNanos, 1000000000L), Math.floorMod(epochNanos, 1000000000L)));
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull String elapsed(long nanos) {
+    return String.format("%d.%03dms", nanos / 1000000L, (nanos / 1000L) % 1000L);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull String csvValue(@NotNull String value)
+  {
+    return value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+        ? '"' + value.replace("\"", "\"\"") + '"'
+        : value;
+  }
+
+
+  private static @NotNull String readString(@NotNull ByteBuffer buffer)
+  {
+    final byte[] utf8 = new byte[buffer.getShort() & 0xffff];
+
+    buffer.get(utf8);
+
+    return new String(utf8, UTF_8);
+  }
+
+
+
+
+  private static final class MethodInfo
+  {
+    final String className;
+    final String methodName;
+    final String[] parameterNames;
+
+
+    private MethodInfo(@NotNull String className, @NotNull String methodName,
+                       @NotNull String[] parameterNames)
+    {
+      this.className = className;
+      this.methodName = methodName;
+      this.parameterNames = parameterNames;
+    }
+  }
+
+
+
+
+  private static final class Invocation
+  {
+    final MethodInfo method;
+    final long thread;
+    final long startNanos;
+    final long endNanos;
+    final String exception;
+    final String parameters;
+
+
+    private Invocation(@NotNull MethodInfo method, long thread, long startNanos, long endNanos,
+                       String exception, @NotNull String parameters)
+    {
+      this.method = method;
+      this.thread = thread;
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+      this.exception = exception;
+      this.parameters = parameters;
+    }
+  }
+
+
+
+
+  private static final class Event
+  {
+    final Invocation invocation;
+    final boolean entry;
+
+
+    private Event(@NotNull Invocation invocation, boolean entry)
+    {
+      this.invocation = invocation;
+      this.entry = entry;
+    }
+
+
+    long time() {
+      return entry ? invocation.startNanos : invocation.endNanos;
+    }
+  }
+}
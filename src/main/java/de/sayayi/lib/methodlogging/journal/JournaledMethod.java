@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Method registered with an {@link InvocationJournal}.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see InvocationJournal#method(String, String, String[], int[])
+ */
+public final class JournaledMethod
+{
+  final int id;
+  final int[] parameterIndices;
+
+
+  JournaledMethod(int id, @NotNull int[] parameterIndices)
+  {
+    this.id = id;
+    this.parameterIndices = parameterIndices;
+  }
+
+
+  @Override
+  public String toString() {
+    return "JournaledMethod[id=" + id + ']';
+  }
+}
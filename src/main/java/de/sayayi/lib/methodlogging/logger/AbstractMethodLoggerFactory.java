@@ -21,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Field;
 import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.reflect.Modifier.FINAL;
 import static java.lang.reflect.Modifier.STATIC;
@@ -33,8 +34,15 @@ import static java.lang.reflect.Modifier.STATIC;
 public abstract class AbstractMethodLoggerFactory implements MethodLoggerFactory
 {
   private final WeakHashMap<Class<?>,MethodLogger> loggerCache = new WeakHashMap<>();
+  private final WeakHashMap<Class<?>,MethodLogger> classLoggerCache = new WeakHashMap<>();
   private final boolean createLoggerOnNoField;
 
+  /**
+   * Guards both logger caches. Creating a logger may block while the logging framework
+   * initializes, so a lock is used instead of synchronization, which pins virtual threads.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
 
   protected AbstractMethodLoggerFactory(boolean createLoggerOnNoField) {
     this.createLoggerOnNoField = createLoggerOnNoField;
@@ -52,14 +60,22 @@ public abstract class AbstractMethodLoggerFactory implements MethodLoggerFactory
             " or one of its superclasses must provide a logger field");
       }
 
-      return createMethodLogger(type);
+      lock.lock();
+      try {
+        return classLoggerCache.computeIfAbsent(type, this::createMethodLogger);
+      } finally {
+        lock.unlock();
+      }
     }
     else
     {
-      if ((loggerField.getModifiers() & (STATIC | FINAL)) == (STATIC | FINAL))
+      if (isTypeLogger(loggerField))
       {
-        synchronized(loggerCache) {
+        lock.lock();
+        try {
           return loggerCache.computeIfAbsent(type, cl -> createMethodLogger(loggerField, obj));
+        } finally {
+          lock.unlock();
         }
       }
 
@@ -68,6 +84,25 @@ public abstract class AbstractMethodLoggerFactory implements MethodLoggerFactory
   }
 
 
+  /**
+   * Tells whether the method logger for the given logger field only depends on the target type.
+   * This is the case if there's no logger field or if the logger field is static and final. Such
+   * method loggers are cached by this factory and may be cached by the caller as well.
+   *
+   * @param loggerField  logger field or {@code null} if no logger field was found
+   *
+   * @return  {@code true} if the method logger only depends on the target type,
+   *          {@code false} otherwise
+   *
+   * @since 0.4.4
+   */
+  public boolean isTypeLogger(Field loggerField)
+  {
+    return loggerField == null ||
+        (loggerField.getModifiers() & (STATIC | FINAL)) == (STATIC | FINAL);
+  }
+
+
   protected abstract @NotNull MethodLogger createMethodLogger(@NotNull Class<?> clazz);
 
 
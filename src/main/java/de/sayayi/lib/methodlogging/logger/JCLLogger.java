@@ -31,13 +31,15 @@ import static java.util.Objects.requireNonNull;
  * @since 0.3.0
  */
 @SuppressWarnings("DuplicatedCode")
-final class JCLLogger implements MethodLogger
+final class JCLLogger extends LevelCachingMethodLogger
 {
   private final @NotNull Log logger;
 
 
-  JCLLogger(Log logger) {
-    this.logger = requireNonNull(logger);
+  JCLLogger(Log logger)
+  {
+    super(requireNonNull(logger));
+    this.logger = logger;
   }
 
 
@@ -62,7 +64,40 @@ final class JCLLogger implements MethodLogger
 
 
   @Override
-  public boolean isLogEnabled(@NotNull Level level)
+  public void log(@NotNull Level level, String message, Throwable throwable)
+  {
+    switch(level)
+    {
+      case TRACE:
+        logger.trace(message, throwable);
+        break;
+
+      case DEBUG:
+        logger.debug(message, throwable);
+        break;
+
+      case INFO:
+        logger.info(message, throwable);
+        break;
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Commons Logging has no API accepting a caller location, so {@code location} is ignored and
+   * the logging backend determines the caller on its own, if required.
+   */
+  @Override
+  public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                  StackTraceElement location) {
+    log(level, message == null ? null : message.toString(), throwable);
+  }
+
+
+  @Override
+  protected boolean isLevelEnabled(@NotNull Level level)
   {
     switch(level)
     {
@@ -31,7 +31,7 @@ import static java.util.logging.Level.*;
  * @author Jeroen Gremmen
  * @since 0.1.0
  */
-final class JULLogger implements MethodLogger
+final class JULLogger extends LevelCachingMethodLogger
 {
   private static final java.util.logging.Level[] LEVELS = new java.util.logging.Level[] {
       null, FINEST, FINE, INFO
@@ -39,8 +39,10 @@ final class JULLogger implements MethodLogger
 
   private final @NotNull Logger logger;
 
-  JULLogger(Logger logger) {
-    this.logger = requireNonNull(logger);
+  JULLogger(Logger logger)
+  {
+    super(requireNonNull(logger));
+    this.logger = logger;
   }
 
   @Override
@@ -50,7 +52,27 @@ final class JULLogger implements MethodLogger
 
 
   @Override
-  public boolean isLogEnabled(@NotNull Level level) {
+  public void log(@NotNull Level level, String message, Throwable throwable) {
+    logger.log(LEVELS[level.ordinal()], message, throwable);
+  }
+
+
+  @Override
+  public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                  StackTraceElement location)
+  {
+    if (location == null)
+      super.log(level, message, throwable, null);
+    else
+    {
+      logger.logp(LEVELS[level.ordinal()], location.getClassName(), location.getMethodName(),
+          message == null ? null : message.toString(), throwable);
+    }
+  }
+
+
+  @Override
+  protected boolean isLevelEnabled(@NotNull Level level) {
     return logger.isLoggable(LEVELS[level.ordinal()]);
   }
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.logger;
+
+import de.sayayi.lib.methodlogging.MethodLogger;
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import org.jetbrains.annotations.NotNull;
+
+import static de.sayayi.lib.methodlogging.logger.LogLevelCache.GENERATION_MASK;
+
+
+/**
+ * Method logger which caches the enabled state for each logging level.
+ * <p>
+ * Levels are not cached for loggers backed by jdk logging, as levels changed by
+ * {@link java.util.logging.Logger#setLevel(java.util.logging.Level)} cannot be detected. Checking
+ * a level in jdk logging is cheap anyway.
+ * <p>
+ * The cached state is a bitset containing the cache generation (bits 8-31), a valid flag
+ * (bits 4-6) and an enabled flag (bits 0-2) for each level. Updating the bitset is not
+ * synchronized; concurrent updates at worst lose a cached level which is re-evaluated on the next
+ * check.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ *
+ * @see LogLevelCache
+ */
+abstract class LevelCachingMethodLogger implements MethodLogger
+{
+  private final boolean cached;
+  private int enabledLevels;
+
+
+  /**
+   * @param backend  logger instance of the underlying logging framework, not {@code null}
+   */
+  LevelCachingMethodLogger(@NotNull Object backend) {
+    cached = !LogLevelCache.isJdkLogging(backend);
+  }
+
+
+  @Override
+  public final boolean isLogEnabled(@NotNull Level level)
+  {
+    if (!cached)
+      return level != Level.DEFAULT && isLevelEnabled(level);
+
+    final int levelBit = 1 << (level.ordinal() - 1);
+    final int generation = LogLevelCache.generation();
+    int levels = enabledLevels;
+
+    if ((levels >>> 8) == generation && (levels & (levelBit << 4)) != 0)
+      return (levels & levelBit) != 0;
+
+    if (level == Level.DEFAULT)
+      return false;
+
+    final boolean enabled = isLevelEnabled(level);
+
+    if ((levels >>> 8) != generation)
+      levels = (generation & GENERATION_MASK) << 8;
+
+    enabledLevels = levels | (levelBit << 4) | (enabled ? levelBit : 0);
+
+    return enabled;
+  }
+
+
+  /**
+   * Checks whether logging for messages with {@code level} is enabled in the underlying logging
+   * framework.
+   *
+   * @param level  logging level to check for, never {@code null} or {@link Level#DEFAULT}
+   *
+   * @return  {@code true} if logging is enabled, {@code false} otherwise
+   */
+  protected abstract boolean isLevelEnabled(@NotNull Level level);
+}
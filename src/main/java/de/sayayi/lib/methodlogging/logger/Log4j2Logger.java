@@ -18,6 +18,8 @@ package de.sayayi.lib.methodlogging.logger;
 import de.sayayi.lib.methodlogging.MethodLogger;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableSimpleMessage;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
@@ -30,7 +32,7 @@ import static java.util.Objects.requireNonNull;
  * @author Jeroen Gremmen
  * @since 0.1.0
  */
-final class Log4j2Logger implements MethodLogger
+final class Log4j2Logger extends LevelCachingMethodLogger
 {
   private static final org.apache.logging.log4j.Level[] LEVELS = new org.apache.logging.log4j.Level[] {
       null,
@@ -39,11 +41,20 @@ final class Log4j2Logger implements MethodLogger
       org.apache.logging.log4j.Level.INFO
   };
 
+  /**
+   * Reusable message for each thread, {@code null} while in use. Log4j2 copies the content of a
+   * reusable message into its log event by formatting it into a string builder.
+   */
+  private static final ThreadLocal<ReusableSimpleMessage[]> MESSAGE =
+      ThreadLocal.withInitial(() -> new ReusableSimpleMessage[1]);
+
   private final @NotNull Logger logger;
 
 
-  Log4j2Logger(Logger logger) {
-    this.logger = requireNonNull(logger);
+  Log4j2Logger(Logger logger)
+  {
+    super(requireNonNull(logger));
+    this.logger = logger;
   }
 
 
@@ -53,8 +64,85 @@ final class Log4j2Logger implements MethodLogger
   }
 
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The message is passed to Log4j2 as a reusable message, which appends the character sequence
+   * to the layout's or event's string builder without creating a string.
+   */
+  @Override
+  public void log(@NotNull Level level, CharSequence message)
+  {
+    final ReusableSimpleMessage reusableMessage = acquireMessage(message);
+
+    try {
+      logger.log(LEVELS[level.ordinal()], (Message)reusableMessage);
+    } finally {
+      releaseMessage(reusableMessage);
+    }
+  }
+
+
+  @Override
+  public void log(@NotNull Level level, String message, Throwable throwable) {
+    logger.log(LEVELS[level.ordinal()], message, throwable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The location is passed to Log4j2 using a log builder, so Log4j2 does not walk the stack if the
+   * layout requires location information.
+   */
+  @Override
+  public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                  StackTraceElement location)
+  {
+    if (location == null)
+      super.log(level, message, throwable, null);
+    else
+    {
+      final ReusableSimpleMessage reusableMessage = acquireMessage(message);
+
+      try {
+        logger.atLevel(LEVELS[level.ordinal()])
+            .withLocation(location)
+            .withThrowable(throwable)
+            .log((Message)reusableMessage);
+      } finally {
+        releaseMessage(reusableMessage);
+      }
+    }
+  }
+
+
+  private static @NotNull ReusableSimpleMessage acquireMessage(CharSequence message)
+  {
+    final ReusableSimpleMessage[] messageSlot = MESSAGE.get();
+    ReusableSimpleMessage reusableMessage = messageSlot[0];
+
+    // a nested logging call on the same thread uses a new message
+    if (reusableMessage == null)
+      reusableMessage = new ReusableSimpleMessage();
+    else
+      messageSlot[0] = null;
+
+    reusableMessage.set(message);
+
+    return reusableMessage;
+  }
+
+
+  private static void releaseMessage(@NotNull ReusableSimpleMessage reusableMessage)
+  {
+    reusableMessage.clear();
+    MESSAGE.get()[0] = reusableMessage;
+  }
+
+
   @Override
-  public boolean isLogEnabled(@NotNull Level level) {
+  protected boolean isLevelEnabled(@NotNull Level level) {
     return logger.isEnabled(LEVELS[level.ordinal()]);
   }
 
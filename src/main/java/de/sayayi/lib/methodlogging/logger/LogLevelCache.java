@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.logger;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.util.ClassUtils.isPresent;
+
+
+/**
+ * Method loggers provided by this package cache whether a logging level is enabled. The cache is
+ * invalidated whenever the configuration of a logging framework changes.
+ * <p>
+ * Configuration changes are detected automatically for Logback (level changes and context
+ * resets) and Log4j2 (configuration changes, including {@code Configurator.setLevel}). Logging
+ * levels are not cached for loggers backed by jdk logging, directly or through Slf4j, Log4j2 or
+ * Apache commons logging, as {@link java.util.logging.Logger#setLevel(java.util.logging.Level)}
+ * cannot be observed. Changing logging levels in any other way is not detected. In that case
+ * {@link #invalidate()} must be invoked explicitly.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+public final class LogLevelCache
+{
+  static final int GENERATION_MASK = 0x00ffffff;
+
+  private static final AtomicInteger GENERATION = new AtomicInteger(1);
+
+  /** Logger classes of logging framework adapters delegating to jdk logging. */
+  private static final Set<String> JDK_LOGGING_ADAPTERS = new HashSet<>(Arrays.asList(
+      "org.apache.commons.logging.LogAdapter$JavaUtilLog",
+      "org.apache.commons.logging.impl.Jdk14Logger",
+      "org.apache.commons.logging.impl.Jdk13LumberjackLogger",
+      "org.apache.logging.log4j.tojul.JULLogger",
+      "org.slf4j.impl.JDK14LoggerAdapter",
+      "org.slf4j.jul.JDK14LoggerAdapter"));
+
+  static {
+    registerListeners();
+  }
+
+
+  private LogLevelCache() {
+  }
+
+
+  /**
+   * Invalidate the cached logging level state of all method loggers.
+   */
+  public static void invalidate()
+  {
+    GENERATION.updateAndGet(generation -> {
+      final int nextGeneration = (generation + 1) & GENERATION_MASK;
+      return nextGeneration == 0 ? 1 : nextGeneration;
+    });
+  }
+
+
+  /**
+   * Returns the current cache generation.
+   *
+   * @return  cache generation, never {@code 0}
+   */
+  @Contract(pure = true)
+  static int generation() {
+    return GENERATION.get();
+  }
+
+
+  /**
+   * Tells whether {@code logger} is a jdk logger or delegates to jdk logging.
+   *
+   * @param logger  logger instance of any logging framework, not {@code null}
+   *
+   * @return  {@code true} if {@code logger} uses jdk logging, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  static boolean isJdkLogging(@NotNull Object logger)
+  {
+    return logger instanceof java.util.logging.Logger ||
+        JDK_LOGGING_ADAPTERS.contains(logger.getClass().getName());
+  }
+
+
+  private static void registerListeners()
+  {
+    final ClassLoader classLoader = LogLevelCache.class.getClassLoader();
+
+    if (isPresent("ch.qos.logback.classic.LoggerContext", classLoader))
+    {
+      try {
+        LogbackLevelChangeListener.register();
+      } catch(Exception | LinkageError ignored) {
+      }
+    }
+
+    if (isPresent("org.apache.logging.log4j.LogManager", classLoader))
+    {
+      try {
+        final Object log4j2Context = org.apache.logging.log4j.LogManager.getContext(false);
+
+        log4j2Context.getClass()
+            .getMethod("addPropertyChangeListener", PropertyChangeListener.class)
+            .invoke(log4j2Context, (PropertyChangeListener)event -> invalidate());
+      } catch(Exception | LinkageError ignored) {
+        // log4j-core is not available
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.logger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Invalidates the log level cache on Logback level changes and context resets.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class LogbackLevelChangeListener implements LoggerContextListener
+{
+  private LogbackLevelChangeListener() {
+  }
+
+
+  static void register()
+  {
+    final Object loggerFactory = LoggerFactory.getILoggerFactory();
+
+    if (loggerFactory instanceof LoggerContext)
+      ((LoggerContext)loggerFactory).addListener(new LogbackLevelChangeListener());
+  }
+
+
+  @Override
+  public boolean isResetResistant() {
+    return true;
+  }
+
+
+  @Override
+  public void onStart(LoggerContext context) {
+    LogLevelCache.invalidate();
+  }
+
+
+  @Override
+  public void onReset(LoggerContext context) {
+    LogLevelCache.invalidate();
+  }
+
+
+  @Override
+  public void onStop(LoggerContext context) {
+    LogLevelCache.invalidate();
+  }
+
+
+  @Override
+  public void onLevelChange(Logger logger, Level level) {
+    LogLevelCache.invalidate();
+  }
+}
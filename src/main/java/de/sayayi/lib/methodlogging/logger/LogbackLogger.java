@@ -16,6 +16,9 @@
 package de.sayayi.lib.methodlogging.logger;
 
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.TurboFilterList;
+import ch.qos.logback.core.spi.FilterReply;
 import de.sayayi.lib.methodlogging.MethodLogger;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import org.jetbrains.annotations.Contract;
@@ -23,6 +26,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Field;
 
+import static ch.qos.logback.core.spi.FilterReply.ACCEPT;
+import static ch.qos.logback.core.spi.FilterReply.NEUTRAL;
 import static java.util.Objects.requireNonNull;
 
 
@@ -31,13 +36,24 @@ import static java.util.Objects.requireNonNull;
  * @since 0.4.3
  */
 @SuppressWarnings("DuplicatedCode")
-final class LogbackLogger implements MethodLogger
+final class LogbackLogger extends LevelCachingMethodLogger
 {
+  private static final String FQCN = LogbackLogger.class.getName();
+
+  private static final ch.qos.logback.classic.Level[] LEVELS = new ch.qos.logback.classic.Level[] {
+      null,
+      ch.qos.logback.classic.Level.TRACE,
+      ch.qos.logback.classic.Level.DEBUG,
+      ch.qos.logback.classic.Level.INFO
+  };
+
   private final @NotNull Logger logger;
 
 
-  LogbackLogger(Logger logger) {
-    this.logger = requireNonNull(logger);
+  LogbackLogger(Logger logger)
+  {
+    super(requireNonNull(logger));
+    this.logger = logger;
   }
 
 
@@ -62,7 +78,62 @@ final class LogbackLogger implements MethodLogger
 
 
   @Override
-  public boolean isLogEnabled(@NotNull Level level)
+  public void log(@NotNull Level level, String message, Throwable throwable)
+  {
+    switch(level)
+    {
+      case TRACE:
+        logger.trace(message, throwable);
+        break;
+
+      case DEBUG:
+        logger.debug(message, throwable);
+        break;
+
+      case INFO:
+        logger.info(message, throwable);
+        break;
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The logging event is created with the location as its caller data, so Logback does not walk
+   * the stack if an appender requires caller data. Turbo filters are consulted in the same way
+   * as for regular logging calls.
+   */
+  @Override
+  public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                  StackTraceElement location)
+  {
+    if (location == null)
+    {
+      super.log(level, message, throwable, null);
+      return;
+    }
+
+    final ch.qos.logback.classic.Level logbackLevel = LEVELS[level.ordinal()];
+    final String msg = message == null ? null : message.toString();
+    final TurboFilterList turboFilters = logger.getLoggerContext().getTurboFilterList();
+    final FilterReply decision = turboFilters.isEmpty() ? NEUTRAL
+        : turboFilters.getTurboFilterChainDecision(null, logger, logbackLevel, msg, null,
+            throwable);
+
+    if (decision == ACCEPT || (decision == NEUTRAL && logger.isEnabledFor(logbackLevel)))
+    {
+      final LoggingEvent event =
+          new LoggingEvent(FQCN, logger, logbackLevel, msg, throwable, null);
+
+      event.setCallerData(new StackTraceElement[] { location });
+      logger.callAppenders(event);
+    }
+  }
+
+
+  @Override
+  protected boolean isLevelEnabled(@NotNull Level level)
   {
     switch(level)
     {
@@ -20,10 +20,14 @@ import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
+import org.slf4j.spi.LocationAwareLogger;
 
 import java.lang.reflect.Field;
 
 import static java.util.Objects.requireNonNull;
+import static org.slf4j.spi.LocationAwareLogger.DEBUG_INT;
+import static org.slf4j.spi.LocationAwareLogger.INFO_INT;
+import static org.slf4j.spi.LocationAwareLogger.TRACE_INT;
 
 
 /**
@@ -31,13 +35,19 @@ import static java.util.Objects.requireNonNull;
  * @since 0.1.0
  */
 @SuppressWarnings("DuplicatedCode")
-final class Slf4jLogger implements MethodLogger
+final class Slf4jLogger extends LevelCachingMethodLogger
 {
+  private static final String FQCN = Slf4jLogger.class.getName();
+
+  private static final int[] LEVELS = new int[] { 0, TRACE_INT, DEBUG_INT, INFO_INT };
+
   private final @NotNull Logger logger;
 
 
-  Slf4jLogger(Logger logger) {
-    this.logger = requireNonNull(logger);
+  Slf4jLogger(Logger logger)
+  {
+    super(requireNonNull(logger));
+    this.logger = logger;
   }
 
 
@@ -62,7 +72,49 @@ final class Slf4jLogger implements MethodLogger
 
 
   @Override
-  public boolean isLogEnabled(@NotNull Level level)
+  public void log(@NotNull Level level, String message, Throwable throwable)
+  {
+    switch(level)
+    {
+      case TRACE:
+        logger.trace(message, throwable);
+        break;
+
+      case DEBUG:
+        logger.debug(message, throwable);
+        break;
+
+      case INFO:
+        logger.info(message, throwable);
+        break;
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * SLF4J does not accept a caller location. If the logger is location aware, the message is
+   * logged with this class as the fully qualified caller class name instead, so a backend
+   * determining the caller skips this method logger and reports the method logging interceptor
+   * rather than this adapter.
+   */
+  @Override
+  public void log(@NotNull Level level, CharSequence message, Throwable throwable,
+                  StackTraceElement location)
+  {
+    if (logger instanceof LocationAwareLogger)
+    {
+      ((LocationAwareLogger)logger).log(null, FQCN, LEVELS[level.ordinal()],
+          message == null ? null : message.toString(), null, throwable);
+    }
+    else
+      super.log(level, message, throwable, location);
+  }
+
+
+  @Override
+  protected boolean isLevelEnabled(@NotNull Level level)
   {
     switch(level)
     {
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+
+
+/**
+ * Virtual thread detection.
+ * <p>
+ * This is the Java 21 variant of the class, packaged in {@code META-INF/versions/21} of the
+ * multi-release jar.
+ *
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+final class VirtualThreads
+{
+  private VirtualThreads() {
+  }
+
+
+  @Contract(pure = true)
+  static boolean isVirtual(@NotNull Thread thread) {
+    return thread.isVirtual();
+  }
+}
@@ -26,7 +26,15 @@ import de.sayayi.lib.methodlogging.annotation.MethodLogging;
 import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
 import de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig;
 import de.sayayi.lib.methodlogging.annotation.ParamLog;
+import de.sayayi.lib.methodlogging.appender.ParameterAppenders;
 import de.sayayi.lib.methodlogging.logger.JULLoggerFactory;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import lombok.Setter;
 import lombok.experimental.Delegate;
 import lombok.extern.java.Log;
@@ -35,25 +43,62 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.stereotype.Component;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
 
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
 
 import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Level.DEBUG;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Level.INFO;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Level.TRACE;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.ParameterMode.DEFERRED;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Rendering.SUMMARY;
 import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility.HIDE;
 import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Visibility.SHOW;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.joining;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.aop.support.AopUtils.isAopProxy;
 import static org.springframework.context.annotation.ScopedProxyMode.INTERFACES;
 
 
@@ -72,8 +117,10 @@ public class MethodLoggingTest
   @Autowired private JULLoggerBean julLoggerBean;
   @Autowired private MethodLoggerFactoryDelegate methodLoggerFactoryDelegate;
   @Autowired private MyBean myBean;
+  @Autowired private MyCallerBean myCallerBean;
   @Autowired private MyBeanIf myBeanIf;
   @Autowired private Supplier<String> mySupplier;
+  @Autowired private TraceOnlyBean traceOnlyBean;
 
 
   @Test
@@ -173,6 +220,53 @@ public class MethodLoggingTest
   }
 
 
+  @Test
+  @DisplayName("Built-in parameter appenders")
+  void testMethod_parameterAppenders()
+  {
+    // built-in appenders are opt-in
+    assertNull(new MyConfiguration().parameterAppender(ResolvableType.forClass(List.class),
+        RenderLimits.DEFAULT));
+
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(AppenderConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+
+      bean.appenders(Arrays.asList("a", "b"), new byte[3], new int[] { 1, 2, 3 },
+          singletonMap("a", 1));
+
+      assertEquals("INFO|> appenders(names=[a, b],data=byte[3],ids=[1, 2, 3],map={a=1})",
+          factory.log.get(0));
+
+      bean.limited(Arrays.asList("a", "b", "c"), new byte[] { 1, 2, 3 }, "abcdefghijkl");
+
+      assertEquals(
+          "INFO|> limited(names=List[size=3],data=byte[3]{0102, +1 more},text=abcdefgh...)",
+          factory.log.get(2));
+      assertEquals("INFO|result = [a, b, +...", factory.log.get(3));
+    }
+  }
+
+
+  @Test
+  @DisplayName("Methods below minimum level")
+  void testMethod_minimumLevel()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    assertEquals(42, myBean.traceOnly(42));
+    assertEquals(42, traceOnlyBean.trace(42));
+    assertTrue(factory.log.isEmpty());
+
+    // beans without any method at or above the minimum level are not advised at all
+    assertTrue(isAopProxy(myBean));
+    assertFalse(isAopProxy(traceOnlyBean));
+  }
+
+
   @Test
   @DisplayName("Exception handling")
   void testMethod_exception()
@@ -180,19 +274,1016 @@ public class MethodLoggingTest
     val factory = new ListMethodLoggerFactory();
     methodLoggerFactoryDelegate.setFactory(factory);
 
-    assertEquals("314", assertThrowsExactly(IllegalArgumentException.class,
-        () -> myBean.exception(314)).getMessage());
-    assertEquals("INFO|> exception(id=314)", factory.log.get(0));
-    assertEquals("INFO|< exception -> IllegalArgumentException(314)", factory.log.get(1));
-  }
+    assertEquals("314", assertThrowsExactly(IllegalArgumentException.class,
+        () -> myBean.exception(314)).getMessage());
+    assertEquals("INFO|> exception(id=314)", factory.log.get(0));
+    assertEquals("INFO|< exception -> IllegalArgumentException(314)", factory.log.get(1));
+  }
+
+
+  @Test
+  @DisplayName("Deferred parameters")
+  void testMethod_deferredParameters()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    myBean.deferred(1, new ArrayList<>(Arrays.asList("a", "b")));
+    assertEquals("INFO|> deferred(id=1)", factory.log.get(0));
+    assertEquals("INFO|< deferred", factory.log.get(1));
+
+    assertThrowsExactly(IllegalStateException.class,
+        () -> myBean.deferred(-1, new ArrayList<>(Arrays.asList("a", "b"))));
+    assertEquals("INFO|> deferred(id=-1)", factory.log.get(2));
+    assertEquals("INFO|< deferred(names=[a, b]) -> IllegalStateException(-1)",
+        factory.log.get(3));
+  }
+
+
+  @Test
+  @DisplayName("Reused exception instance")
+  void testMethod_reusedException()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    assertSame(MyBean.SHARED_EXCEPTION,
+        assertThrowsExactly(IllegalStateException.class, () -> myBean.sharedException()));
+    assertSame(MyBean.SHARED_EXCEPTION,
+        assertThrowsExactly(IllegalStateException.class, () -> myBean.sharedException()));
+
+    assertEquals("INFO|< sharedException -> IllegalStateException(shared)", factory.log.get(1));
+    assertEquals("INFO|< sharedException -> IllegalStateException(shared)", factory.log.get(3));
+  }
+
+
+  @Test
+  @DisplayName("Propagated exception handling")
+  void testMethod_propagatedException()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    assertThrowsExactly(IllegalArgumentException.class, () -> myCallerBean.callException(42));
+    assertEquals("INFO|> callException(id=42)", factory.log.get(0));
+    assertEquals("INFO|> exception(id=42)", factory.log.get(1));
+    assertEquals("INFO|< exception -> IllegalArgumentException(42)", factory.log.get(2));
+    assertEquals("INFO|< callException -> IllegalArgumentException (propagated)",
+        factory.log.get(3));
+  }
+
+
+  @Test
+  @DisplayName("Asynchronous method result")
+  void testMethod_async()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    val future = new CompletableFuture<String>();
+
+    assertSame(future, myBean.async(future));
+    assertEquals(1, factory.log.size());
+    assertEquals("INFO|> async", factory.log.get(0));
+
+    future.complete("done");
+
+    assertEquals(3, factory.log.size());
+    assertEquals("DEBUG|result = done", factory.log.get(1));
+    assertEquals("INFO|< async", factory.log.get(2));
+  }
+
+
+  @Test
+  @DisplayName("Stream method result")
+  void testMethod_stream()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    try(val stream = myBean.stream("a", "b", "c")) {
+      assertEquals(1, factory.log.size());
+      assertEquals("abc", stream.collect(joining()));
+    }
+
+    assertEquals(3, factory.log.size());
+    assertEquals("INFO|> stream", factory.log.get(0));
+    assertTrue(factory.log.get(1).startsWith("DEBUG|result = 3 elements in "));
+    assertTrue(factory.log.get(1).contains(", first after "));
+    assertEquals("INFO|< stream", factory.log.get(2));
+  }
+
+
+  @Test
+  @DisplayName("Conditional method logging")
+  void testMethod_condition()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    assertEquals(5, myBean.conditional(5));
+    assertEquals(120, myBean.conditional(120));
+    assertEquals(3, factory.log.size());
+    assertEquals("INFO|> conditional(id=120)", factory.log.get(0));
+    assertEquals("DEBUG|result = 120", factory.log.get(1));
+    assertEquals("INFO|< conditional", factory.log.get(2));
+
+    factory.log.clear();
+
+    assertEquals(-1, myBean.resultConditional(-1));
+    assertEquals(7, myBean.resultConditional(7));
+    assertEquals(3, factory.log.size());
+    assertEquals("INFO|> resultConditional(id=-1)", factory.log.get(0));
+    assertEquals("DEBUG|result = -1", factory.log.get(1));
+    assertEquals("INFO|< resultConditional", factory.log.get(2));
+  }
+
+
+  @Test
+  @DisplayName("Log method if condition throws an exception")
+  void testMethod_failingCondition()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    assertEquals("5", myBean.failingCondition("5"));
+    assertTrue(factory.log.isEmpty());
+
+    assertEquals("x", myBean.failingCondition("x"));
+    assertEquals(3, factory.log.size());
+    assertEquals("INFO|> failingCondition(text=x)", factory.log.get(0));
+    assertEquals("INFO|< failingCondition", factory.log.get(2));
+  }
+
+
+  @Test
+  @DisplayName("Parameter formatting circuit breaker")
+  void testMethod_parameterFormattingDisabled() throws InterruptedException
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    myBean.format(new Value("ok", 0));
+    assertEquals("INFO|> format(value=ok)", factory.log.get(0));
+
+    myBean.format(new Value(null, 0));
+    assertEquals("INFO|format: formatting of parameter 'value' disabled for 200ms " +
+        "(IllegalStateException)", factory.log.get(2));
+    assertTrue(factory.log.get(3).matches(
+        "INFO\\|> format\\(value=<Value@[0-9a-f]+, formatting disabled>\\)"));
+
+    myBean.format(new Value("ok", 0));
+    assertTrue(factory.log.get(5).endsWith(", formatting disabled>)"));
+
+    Thread.sleep(250);
+
+    myBean.format(new Value("ok", 0));
+    assertEquals("INFO|> format(value=ok)", factory.log.get(7));
+  }
+
+
+  @Test
+  @DisplayName("Slow parameter formatting")
+  void testMethod_slowParameterFormatting()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    myBean.formatSlow(new Value("slow", 150));
+    assertTrue(factory.log.get(0).startsWith(
+        "INFO|formatSlow: formatting of parameter 'value' disabled for 200ms (took "));
+    assertEquals("INFO|> formatSlow(value=slow)", factory.log.get(1));
+
+    myBean.formatSlow(new Value("slow", 150));
+    assertTrue(factory.log.get(3).endsWith(", formatting disabled>)"));
+  }
+
+
+  @Test
+  @DisplayName("Result formatting circuit breaker")
+  void testMethod_resultFormattingDisabled()
+  {
+    val factory = new ListMethodLoggerFactory();
+    methodLoggerFactoryDelegate.setFactory(factory);
+
+    val value = new Value(null, 0);
+
+    assertSame(value, myBean.formatResult(value));
+    assertEquals("INFO|formatResult: formatting of result disabled for 200ms " +
+        "(IllegalStateException)", factory.log.get(1));
+    assertTrue(factory.log.get(2).matches(
+        "INFO\\|result = <Value@[0-9a-f]+, formatting disabled>"));
+    assertEquals("INFO|< formatResult", factory.log.get(3));
+  }
+
+
+  @Test
+  @DisplayName("java.util.logging logger factory")
+  void testJULLogger()
+  {
+    methodLoggerFactoryDelegate.setFactory(new JULLoggerFactory(false));
+
+    val julLogger = java.util.logging.Logger.getLogger(JULLoggerBean.class.getName());
+    val records = new ArrayList<LogRecord>();
+    val handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+
+      @Override
+      public void flush() {
+      }
+
+
+      @Override
+      public void close() {
+      }
+    };
+
+    julLogger.addHandler(handler);
+    try {
+      julLoggerBean.test();
+    } finally {
+      julLogger.removeHandler(handler);
+    }
+
+    // source class and method are the logged method's location
+    assertEquals(2, records.size());
+    for(val record: records)
+    {
+      assertEquals(JULLoggerBean.class.getName(), record.getSourceClassName());
+      assertEquals("test", record.getSourceMethodName());
+    }
+  }
+
+
+  @Test
+  @DisplayName("Indent nested method calls")
+  void testMethod_callNestingIndent()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(IndentConfiguration.class, factory)) {
+      assertEquals("Mr. Bean", context.getBean(MyCallerBean.class).callName());
+    }
+
+    assertEquals(Arrays.asList(
+        "INFO|> callName",
+        "INFO|  > getName", "DEBUG|  name = Mr. Bean", "INFO|  < getName",
+        "DEBUG|result = Mr. Bean",
+        "INFO|< callName"
+    ), factory.log);
+  }
+
+
+  @Test
+  @DisplayName("Collapse nested method calls into the exit line")
+  void testMethod_callNestingCollapse()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(CallTreeConfiguration.class, factory)) {
+      assertEquals("Mr. Bean", context.getBean(MyCallerBean.class).callName());
+    }
+
+    assertEquals(3, factory.log.size());
+    assertEquals("INFO|> callName", factory.log.get(0));
+    assertEquals("DEBUG|result = Mr. Bean", factory.log.get(1));
+    assertTrue(factory.log.get(2).matches("INFO\\|< callName \\{getName \\d+ms}"),
+        factory.log.get(2));
+  }
+
+
+  @Test
+  @DisplayName("Collapse nested method calls on virtual threads")
+  void testMethod_callNestingVirtualThreads() throws Exception
+  {
+    assumeTrue(Arrays.stream(Executors.class.getMethods())
+        .anyMatch(method -> method.getName().equals("newVirtualThreadPerTaskExecutor")),
+        "virtual threads are not available");
+
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(CallTreeConfiguration.class, factory)) {
+      val bean = context.getBean(MyCallerBean.class);
+      val executor = (ExecutorService)Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+      val results = new ArrayList<Future<String>>();
+
+      for(int n = 0; n < 200; n++)
+      {
+        results.add(executor.submit(() -> {
+          assertEquals(true, Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+          return bean.callName();
+        }));
+      }
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, SECONDS));
+
+      for(val result: results)
+        assertEquals("Mr. Bean", result.get());
+    }
+
+    assertEquals(600, factory.log.size());
+    assertEquals(200, factory.log.stream()
+        .filter(line -> line.matches("INFO\\|< callName \\{getName \\d+ms}"))
+        .count());
+  }
+
+
+  @Test
+  @DisplayName("Do not log method calls beyond the maximum call depth")
+  void testMethod_maxCallDepth()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(MaxCallDepthConfiguration.class, factory)) {
+      assertEquals("Mr. Bean", context.getBean(MyCallerBean.class).callName());
+      assertEquals("Mr. Bean", context.getBean(MyBean.class).getName());
+      assertEquals(-1, context.getBean(MyCallerBean.class).callResultConditional(-1));
+    }
+
+    assertEquals(Arrays.asList(
+        "INFO|> callName", "DEBUG|result = Mr. Bean", "INFO|< callName",
+        "INFO|> getName", "DEBUG|name = Mr. Bean", "INFO|< getName",
+        "INFO|> callResultConditional(id=-1)", "DEBUG|result = -1",
+        "INFO|< callResultConditional"
+    ), factory.log);
+  }
+
+
+  @Test
+  @DisplayName("Reconfigure and reset methods at runtime")
+  void testMethod_control()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(MyConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val control = context.getBean(MethodLoggingControl.class);
+      val target = MyBean.class.getName() + "#getName";
+
+      bean.getName();
+      assertTrue(control.getMethods().contains(target +
+          "() [entryExit=INFO, parameters=DEBUG, result=DEBUG, elapsedTime=HIDE]"),
+          control.getMethods().toString());
+
+      assertEquals(1, control.setEntryExitLevel(target, DEBUG));
+      assertEquals(1, control.setResult(target, HIDE));
+      bean.getName();
+
+      control.setEnabled(false);
+      bean.getName();
+      control.setEnabled(true);
+
+      assertEquals(1, control.reset(target));
+      bean.getName();
+
+      assertEquals(Arrays.asList(
+          "INFO|> getName", "DEBUG|name = Mr. Bean", "INFO|< getName",
+          "DEBUG|> getName", "DEBUG|< getName",
+          "INFO|> getName", "DEBUG|name = Mr. Bean", "INFO|< getName"
+      ), factory.log);
+    }
+  }
+
+
+  @Test
+  @DisplayName("Collect logging statistics")
+  void testMethod_statistics()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(MyConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val control = context.getBean(MethodLoggingControl.class);
+
+      assertFalse(control.isStatisticsEnabled());
+      bean.getName();
+
+      control.setStatisticsEnabled(true);
+      for(int n = 0; n < 10; n++)
+        bean.getName();
+      bean.setWithParam("text");
+
+      control.setStatisticsEnabled(false);
+      bean.getName();
+
+      val total = control.getTotalStatistics();
+      assertEquals("*", total.getMethod());
+      assertEquals(11, total.getInvocations());
+
+      assertEquals(1, control.getTopOffenders(1).size());
+
+      val statistics = control.getStatistics().stream()
+          .filter(methodStatistics -> methodStatistics.getMethod().endsWith("#getName()"))
+          .findFirst()
+          .orElseThrow(AssertionError::new);
+      assertEquals(10, statistics.getInvocations());
+      assertTrue(statistics.getEntryTime() > 0);
+      assertTrue(statistics.getResultTime() > 0);
+      assertTrue(statistics.getExitTime() > 0);
+      assertEquals(statistics.getEntryTime() + statistics.getResultTime() +
+          statistics.getExitTime(), statistics.getLoggingTime());
+
+      control.resetStatistics();
+      assertEquals(0, control.getTotalStatistics().getInvocations());
+    }
+  }
+
+
+  @Test
+  @DisplayName("Log flight recording on exception")
+  void testMethod_flightRecorder()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(FlightRecorderConfiguration.class, factory)) {
+      val callerBean = context.getBean(MyCallerBean.class);
+
+      assertEquals("Mr. Bean", callerBean.callName());
+      assertTrue(factory.log.isEmpty());
+
+      // events of the previous, successful invocation have been discarded
+      assertThrows(IllegalArgumentException.class, () -> callerBean.callException(7));
+      assertEquals(Arrays.asList(
+          "INFO|> callException(id=7)",
+          "INFO|> exception(id=7)",
+          "INFO|< exception -> IllegalArgumentException(7)",
+          "INFO|< callException -> IllegalArgumentException (propagated)"
+      ), factory.log);
+
+      factory.log.clear();
+
+      assertEquals("Mr. Bean", callerBean.callName());
+      assertTrue(factory.log.isEmpty());
+    }
+  }
+
+
+  @Test
+  @DisplayName("Analyse logged methods at startup")
+  void testMethod_preAnalysis()
+  {
+    val factory = new ListMethodLoggerFactory();
+    val getName = MyBean.class.getName() + "#getName()";
+
+    try(final AnnotationConfigApplicationContext context =
+            context(MyConfiguration.class, factory)) {
+      val control = context.getBean(MethodLoggingControl.class);
+      val analysisCost = ReflectionTestUtils.getField(
+          context.getBean("internalAnnotationMethodLoggingSource"), "analysisCost");
+      val analysedMethods =
+          (LongAdder)ReflectionTestUtils.getField(analysisCost, "analysedMethods");
+      val classFileScans = (LongAdder)ReflectionTestUtils.getField(analysisCost, "classFileScans");
+      val analysed = analysedMethods.sum();
+      val scanned = classFileScans.sum();
+
+      assertTrue(analysed > 0);
+      assertTrue(control.getMethods().stream().anyMatch(method -> method.startsWith(getName)));
+
+      // no analysis left for the first invocation
+      assertEquals("Mr. Bean", context.getBean(MyCallerBean.class).callName());
+      assertEquals(analysed, analysedMethods.sum());
+      assertEquals(scanned, classFileScans.sum());
+      assertEquals(6, factory.log.size());
+    }
+
+    try(final AnnotationConfigApplicationContext context =
+            context(LazyAnalysisConfiguration.class, factory)) {
+      val control = context.getBean(MethodLoggingControl.class);
+
+      assertFalse(control.getMethods().stream().anyMatch(method -> method.startsWith(getName)));
+      context.getBean(MyBean.class).getName();
+      assertTrue(control.getMethods().stream().anyMatch(method -> method.startsWith(getName)));
+    }
+  }
+
+
+  @Test
+  @DisplayName("Evict method definitions from a bounded cache")
+  void testMethod_cacheEviction()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(SmallCacheConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val control = context.getBean(MethodLoggingControl.class);
+      val analysisCost = ReflectionTestUtils.getField(
+          context.getBean("internalAnnotationMethodLoggingSource"), "analysisCost");
+      val analysedMethods =
+          (LongAdder)ReflectionTestUtils.getField(analysisCost, "analysedMethods");
+
+      bean.getName();
+      bean.setWithParam("text");
+      assertTrue(control.getCacheFootprint().startsWith("classes=1, entries=2, "),
+          control.getCacheFootprint());
+
+      // the third method definition exceeds the cache size
+      bean.excludeParams(1, 2, "name", Locale.ROOT);
+      assertTrue(control.getCacheFootprint().startsWith("classes=1, entries=2, "),
+          control.getCacheFootprint());
+
+      val log = new ArrayList<>(factory.log);
+      val analysed = analysedMethods.sum();
+      factory.log.clear();
+
+      // evicted method definitions are analysed again
+      bean.getName();
+      bean.setWithParam("text");
+      bean.excludeParams(1, 2, "name", Locale.ROOT);
+
+      assertTrue(analysedMethods.sum() > analysed);
+      assertEquals(log, factory.log);
+    }
+  }
+
+
+  @Test
+  @DisplayName("Share method definitions of a CGLIB subclass and its user class")
+  void testMethod_cacheDeduplication() throws Exception
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(LazyAnalysisConfiguration.class, factory)) {
+      val source = context.getBean("internalAnnotationMethodLoggingSource");
+      val control = context.getBean(MethodLoggingControl.class);
+      val getName = MyBean.class.getMethod("getName");
+      val enhancer = new Enhancer();
+
+      enhancer.setSuperclass(MyBean.class);
+      enhancer.setCallbackType(NoOp.class);
+
+      val methodDef = ReflectionTestUtils.invokeMethod(source, "getMethodDefinition", getName,
+          MyBean.class);
+      val subclassMethodDef = ReflectionTestUtils.invokeMethod(source, "getMethodDefinition",
+          getName, enhancer.createClass());
+
+      assertNotNull(methodDef);
+      assertSame(methodDef, subclassMethodDef);
+      assertTrue(control.getCacheFootprint().startsWith(
+          "classes=2, entries=2, methodDefinitions=1, parameterDefinitions=0, "),
+          control.getCacheFootprint());
+    }
+  }
+
+
+  @Test
+  @DisplayName("Bind methods again after reconfiguration")
+  void testMethod_bindingInvalidation()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(MyConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val beanIf = context.getBean(MyBeanIf.class);
+      val control = context.getBean(MethodLoggingControl.class);
+      val generation = (AtomicInteger)ReflectionTestUtils.getField(
+          context.getBean("internalAnnotationMethodLoggingSource"), "generation");
+
+      // bind both methods
+      bean.getName();
+      beanIf.getName();
+      factory.log.clear();
+
+      val initialGeneration = generation.get();
+      assertTrue(control.setEntryExitLevel("*", DEBUG) > 2);
+      assertEquals(initialGeneration + 1, generation.get());
+
+      bean.getName();
+      beanIf.getName();
+      assertEquals("DEBUG|> getName", factory.log.get(0));
+      assertEquals("DEBUG|> getName", factory.log.get(3));
+      factory.log.clear();
+
+      assertTrue(control.reset("*") > 2);
+      assertEquals(initialGeneration + 2, generation.get());
+
+      bean.getName();
+      beanIf.getName();
+      assertEquals("INFO|> getName", factory.log.get(0));
+      assertEquals("INFO|> getName", factory.log.get(3));
+    }
+  }
+
+
+  @Test
+  @DisplayName("Persist class file analysis across restarts")
+  void testMethod_analysisCache(@TempDir Path directory) throws Exception
+  {
+    val factory = new ListMethodLoggerFactory();
+    AnalysisCacheConfiguration.cacheFile = directory.resolve("method-logging.cache");
+
+    try {
+      // all classes are scanned on first startup
+      val scanned = analysisCache(factory)[0];
+      assertTrue(scanned > 0);
+      assertTrue(Files.isRegularFile(AnalysisCacheConfiguration.cacheFile));
+
+      val log = new ArrayList<>(factory.log);
+      factory.log.clear();
+
+      // no classes are scanned once they are cached
+      assertArrayEquals(new long[] { 0, scanned }, analysisCache(factory));
+      assertEquals(log, factory.log);
+
+      // a class with a different hash is scanned again
+      val classBytes = StreamUtils.copyToByteArray(MyBean.class.getResourceAsStream(
+          MyBean.class.getName().substring(MyBean.class.getName().lastIndexOf('.') + 1) +
+          ".class"));
+      val hash = MessageDigest.getInstance("SHA-256").digest(classBytes);
+      val cache = Files.readAllBytes(AnalysisCacheConfiguration.cacheFile);
+      val hashIndex = indexOf(cache, hash);
+
+      assertTrue(hashIndex > 0);
+      cache[hashIndex] ^= 1;
+      Files.write(AnalysisCacheConfiguration.cacheFile, cache);
+
+      assertArrayEquals(new long[] { 1, scanned - 1 }, analysisCache(factory));
+    } finally {
+      AnalysisCacheConfiguration.cacheFile = null;
+    }
+  }
+
+
+  /**
+   * Start a context with an analysis cache file and invoke a method logging its line number.
+   *
+   * @return  number of scanned class files and number of classes taken from the cache
+   */
+  private static long[] analysisCache(@NotNull ListMethodLoggerFactory factory)
+  {
+    try(final AnnotationConfigApplicationContext context =
+            context(AnalysisCacheConfiguration.class, factory)) {
+      val analysisCost = ReflectionTestUtils.getField(
+          context.getBean("internalAnnotationMethodLoggingSource"), "analysisCost");
+
+      context.getBean(MyBean.class).setWithParam("text");
+
+      return new long[] {
+          ((LongAdder)ReflectionTestUtils.getField(analysisCost, "classFileScans")).sum(),
+          ((LongAdder)ReflectionTestUtils.getField(analysisCost, "cachedClasses")).sum()
+      };
+    }
+  }
+
+
+  private static int indexOf(@NotNull byte[] array, @NotNull byte[] subArray)
+  {
+    for(int n = 0, end = array.length - subArray.length; n <= end; n++)
+      if (Arrays.equals(Arrays.copyOfRange(array, n, n + subArray.length), subArray))
+        return n;
+
+    return -1;
+  }
+
+
+  @Test
+  @DisplayName("Record pre-analysis startup steps")
+  void testMethod_startupSteps()
+  {
+    val startup = new RecordingApplicationStartup();
+    val context = new AnnotationConfigApplicationContext();
+
+    context.setApplicationStartup(startup);
+    context.register(MyConfiguration.class);
+    context.refresh();
+    context.close();
+
+    val analysis = startup.step("methodlogging.analysis", tags -> true);
+    assertTrue(Long.parseLong(analysis.get("methods")) > 0);
+    assertTrue(analysis.containsKey("classFileScans"));
+    assertTrue(analysis.containsKey("cachedClasses"));
+    assertTrue(analysis.containsKey("compileTime"));
+
+    val bean = startup.step("methodlogging.analysis.bean",
+        tags -> MyBean.class.getName().equals(tags.get("beanType")));
+    assertNotNull(bean.get("beanName"));
+    assertTrue(Integer.parseInt(bean.get("methods")) > 0);
+
+    val methods = startup.step("methodlogging.analysis.methods", tags -> true);
+    assertTrue(Integer.parseInt(methods.get("methods")) >= Integer.parseInt(bean.get("methods")));
+    assertEquals(Integer.toString(new MyConfiguration().analysisParallelism()),
+        methods.get("parallelism"));
+  }
+
+
+  @Test
+  @DisplayName("Collapse repeated invocations")
+  void testMethod_collapseRepeated()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(CollapsingConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val caller = context.getBean(MyCallerBean.class);
+
+      caller.call(() -> {
+        bean.repeated(1, "a", 0);
+        bean.repeated(1, "a", 0);
+        bean.repeated(1, "a", 0);
+        bean.repeated(1, "a", 1);  // different result: log in full
+        bean.repeated(1, "a", 1);
+        bean.repeated(1, "b", 1);
+      });
+
+      assertEquals(Arrays.asList(
+          "INFO|> call",
+          "INFO|> repeated(id=1)", "DEBUG|parameter 'value' = a", "DEBUG|result = 0",
+          "INFO|< repeated",
+          "INFO|repeated: last message repeated 2 times",
+          "INFO|> repeated(id=1)", "DEBUG|parameter 'value' = a", "DEBUG|result = 1",
+          "INFO|< repeated",
+          "INFO|repeated: last message repeated 1 time",
+          "INFO|> repeated(id=1)", "DEBUG|parameter 'value' = b", "DEBUG|result = 1",
+          "INFO|< repeated",
+          "INFO|< call"
+      ), factory.log);
+
+      factory.log.clear();
+
+      // pending repeats are reported once the outermost invocation returns
+      caller.call(() -> {
+        bean.repeated(1, "a", 0);
+        bean.repeated(1, "a", 0);
+      });
+      bean.repeated(1, "a", 0);
+
+      assertEquals(Arrays.asList(
+          "INFO|> call",
+          "INFO|> repeated(id=1)", "DEBUG|parameter 'value' = a", "DEBUG|result = 0",
+          "INFO|< repeated",
+          "INFO|< call",
+          "INFO|repeated: last message repeated 1 time",
+          "INFO|> repeated(id=1)", "DEBUG|parameter 'value' = a", "DEBUG|result = 0",
+          "INFO|< repeated"
+      ), factory.log);
+
+      factory.log.clear();
+
+      // hashCode throws an exception: log every invocation
+      val unhashable = new Unhashable();
+
+      caller.call(() -> {
+        bean.repeated(2, unhashable, 0);
+        bean.repeated(2, unhashable, 0);
+      });
+
+      assertEquals(Arrays.asList(
+          "INFO|> call",
+          "INFO|> repeated(id=2)", "DEBUG|parameter 'value' = unhashable", "DEBUG|result = 0",
+          "INFO|< repeated",
+          "INFO|> repeated(id=2)", "DEBUG|parameter 'value' = unhashable", "DEBUG|result = 0",
+          "INFO|< repeated",
+          "INFO|< call"
+      ), factory.log);
+    }
+  }
+
+
+  @Test
+  @DisplayName("Create tracing span with code and parameter attributes")
+  void testMethod_traced()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(TracingConfiguration.class, factory)) {
+      val spanExporter = context.getBean(InMemorySpanExporter.class);
+
+      assertEquals("Mr. Bean", context.getBean(MyBean.class).traced(7, "Mr. Bean"));
+      assertFalse(Span.current().getSpanContext().isValid());
+
+      val spans = spanExporter.getFinishedSpanItems();
+      assertEquals(1, spans.size());
+
+      val span = spans.get(0);
+      val attributes = span.getAttributes();
+
+      assertEquals("MethodLoggingTest$MyBean.traced", span.getName());
+      assertEquals(StatusCode.UNSET, span.getStatus().getStatusCode());
+      assertEquals(MyBean.class.getName(), attributes.get(stringKey("code.namespace")));
+      assertEquals("traced", attributes.get(stringKey("code.function")));
+      assertEquals("7", attributes.get(stringKey("param.id")));
+      assertEquals("Mr. Bean", attributes.get(stringKey("param.name")));
+    }
+  }
+
+
+  @Test
+  @DisplayName("Create tracing spans of nested methods as children")
+  void testMethod_tracedNesting()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(TracingConfiguration.class, factory)) {
+      val spanExporter = context.getBean(InMemorySpanExporter.class);
+
+      assertEquals("Mr. Bean", context.getBean(MyCallerBean.class).callTraced(7));
+
+      // the nested span ends first
+      val spans = spanExporter.getFinishedSpanItems();
+      assertEquals(2, spans.size());
+
+      val child = spans.get(0);
+      val parent = spans.get(1);
+
+      assertEquals("MethodLoggingTest$MyCallerBean.callTraced", parent.getName());
+      assertFalse(parent.getParentSpanContext().isValid());
+      assertEquals("MethodLoggingTest$MyBean.traced", child.getName());
+      assertEquals(parent.getTraceId(), child.getTraceId());
+      assertEquals(parent.getSpanId(), child.getParentSpanId());
+    }
+  }
+
+
+  @Test
+  @DisplayName("Record exception in tracing span")
+  void testMethod_tracedException()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(TracingConfiguration.class, factory)) {
+      val spanExporter = context.getBean(InMemorySpanExporter.class);
+
+      assertThrows(IllegalArgumentException.class,
+          () -> context.getBean(MyBean.class).tracedException(7));
+
+      val span = spanExporter.getFinishedSpanItems().get(0);
+      assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+      assertEquals(1, span.getEvents().size());
+      assertEquals("exception", span.getEvents().get(0).getName());
+      assertEquals(IllegalArgumentException.class.getName(),
+          span.getEvents().get(0).getAttributes().get(stringKey("exception.type")));
+    }
+  }
+
+
+  @Test
+  @DisplayName("End tracing span on completion of an asynchronous result")
+  void testMethod_tracedAsync()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(TracingConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val spanExporter = context.getBean(InMemorySpanExporter.class);
+      val future = new CompletableFuture<String>();
+
+      assertSame(future, bean.tracedAsync(future));
+      assertTrue(spanExporter.getFinishedSpanItems().isEmpty());
+      assertFalse(Span.current().getSpanContext().isValid());
+
+      future.complete("done");
+
+      val spans = spanExporter.getFinishedSpanItems();
+      assertEquals(1, spans.size());
+      assertTrue(spans.get(0).getName().endsWith("MyBean.tracedAsync"));
+      assertEquals(StatusCode.UNSET, spans.get(0).getStatus().getStatusCode());
+
+      spanExporter.reset();
+
+      val failed = new CompletableFuture<String>();
+      bean.tracedAsync(failed);
+      failed.completeExceptionally(new IllegalStateException());
+
+      assertEquals(StatusCode.ERROR,
+          spanExporter.getFinishedSpanItems().get(0).getStatus().getStatusCode());
+    }
+  }
+
+
+  @Test
+  @DisplayName("End tracing span when a stream result is exhausted")
+  void testMethod_tracedStream()
+  {
+    val factory = new ListMethodLoggerFactory();
+
+    try(final AnnotationConfigApplicationContext context =
+            context(TracingConfiguration.class, factory)) {
+      val bean = context.getBean(MyBean.class);
+      val spanExporter = context.getBean(InMemorySpanExporter.class);
+      val stream = bean.tracedStream("a", "b", "c");
+
+      assertTrue(spanExporter.getFinishedSpanItems().isEmpty());
+      assertEquals("a,b,c", stream.collect(joining(",")));
+      assertEquals(1, spanExporter.getFinishedSpanItems().size());
+
+      // closing the stream does not end the span again
+      stream.close();
+      assertEquals(1, spanExporter.getFinishedSpanItems().size());
+      assertEquals("INFO|< tracedStream", factory.log.get(2));
+    }
+  }
+
+
+  /**
+   * Create an application context with a configuration deviating from {@link MyConfiguration}.
+   */
+  private static @NotNull AnnotationConfigApplicationContext context(
+      @NotNull Class<? extends MyConfiguration> configuration,
+      @NotNull ListMethodLoggerFactory factory)
+  {
+    val context = new AnnotationConfigApplicationContext(configuration);
+
+    context.getBean(MethodLoggerFactoryDelegate.class).setFactory(factory);
+
+    return context;
+  }
+
+
+
+
+  static final class RecordingApplicationStartup implements ApplicationStartup
+  {
+    private final List<Map.Entry<String,Map<String,String>>> steps = new ArrayList<>();
+
+
+    @Override
+    public StartupStep start(@NotNull String name)
+    {
+      return new StartupStep() {
+        private final Map<String,String> tags = new LinkedHashMap<>();
+
+
+        @Override
+        public @NotNull String getName() {
+          return name;
+        }
+
+
+        @Override
+        public long getId() {
+          return 0;
+        }
+
+
+        @Override
+        public Long getParentId() {
+          return null;
+        }
+
+
+        @Override
+        public @NotNull StartupStep tag(@NotNull String key, String value)
+        {
+          tags.put(key, value);
+          return this;
+        }
+
+
+        @Override
+        public @NotNull StartupStep tag(@NotNull String key, @NotNull Supplier<String> value) {
+          return tag(key, value.get());
+        }
+
+
+        @Override
+        public @NotNull Tags getTags() {
+          throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public void end()
+        {
+          synchronized(steps) {
+            steps.add(new SimpleImmutableEntry<>(name, tags));
+          }
+        }
+      };
+    }
 
 
-  @Test
-  @DisplayName("java.util.logging logger factory")
-  void testJULLogger()
-  {
-    methodLoggerFactoryDelegate.setFactory(new JULLoggerFactory(false));
-    julLoggerBean.test();
+    @NotNull Map<String,String> step(@NotNull String name,
+                                     @NotNull Predicate<Map<String,String>> tagFilter)
+    {
+      synchronized(steps) {
+        return steps.stream()
+            .filter(step -> step.getKey().equals(name) && tagFilter.test(step.getValue()))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("missing startup step " + name))
+            .getValue();
+      }
+    }
   }
 
 
@@ -202,6 +1293,9 @@ public class MethodLoggingTest
   @MethodLoggingConfig(lineNumber = HIDE)
   public static class MyBean
   {
+    static final IllegalStateException SHARED_EXCEPTION = new IllegalStateException("shared");
+
+
     @MethodLogging(resultFormat = "name = %{result}")
     public String getName() {
       return "Mr. Bean";
@@ -226,10 +1320,162 @@ public class MethodLoggingTest
     }
 
 
+    @MethodLogging
+    @SuppressWarnings("unused")
+    public void appenders(List<String> names, byte[] data, int[] ids, Map<String,Integer> map) {
+    }
+
+
+    @MethodLogging(maxLength = 8, maxElements = 2, resultLevel = INFO)
+    public List<String> limited(@ParamLog(rendering = SUMMARY, maxLength = 0) List<String> names,
+                                @ParamLog(maxBytes = 2, maxLength = 0) byte[] data, String text) {
+      return names;
+    }
+
+
+    @MethodLogging(entryExitLevel = TRACE, parameterLevel = TRACE, resultLevel = TRACE)
+    public int traceOnly(int id) {
+      return id;
+    }
+
+
+    @MethodLogging
+    public void format(Value value) {
+    }
+
+
+    @MethodLogging
+    public void formatSlow(Value value) {
+    }
+
+
+    @MethodLogging(parameters = HIDE, resultLevel = INFO)
+    public Value formatResult(Value value) {
+      return value;
+    }
+
+
     @MethodLogging
     public void exception(int id) {
       throw new IllegalArgumentException(Integer.toString(id));
     }
+
+
+    @MethodLogging
+    public void sharedException() {
+      throw SHARED_EXCEPTION;
+    }
+
+
+    @MethodLogging
+    public void deferred(int id, @ParamLog(mode = DEFERRED, snapshot = true) List<String> names)
+    {
+      names.clear();
+
+      if (id < 0)
+        throw new IllegalStateException(Integer.toString(id));
+    }
+
+
+    @MethodLogging(parameters = HIDE)
+    public CompletableFuture<String> async(CompletableFuture<String> future) {
+      return future;
+    }
+
+
+    @MethodLogging(parameters = HIDE)
+    public Stream<String> stream(String... elements) {
+      return Arrays.stream(elements);
+    }
+
+
+    @MethodLogging(condition = "#id > 100")
+    public int conditional(int id) {
+      return id;
+    }
+
+
+    @MethodLogging(resultCondition = "#result < 0")
+    public int resultConditional(int id) {
+      return id;
+    }
+
+
+    @MethodLogging(condition = "T(java.lang.Integer).parseInt(#text) > 100")
+    public String failingCondition(String text) {
+      return text;
+    }
+
+
+    @MethodLogging(exclude = "result")
+    @SuppressWarnings("unused")
+    public int repeated(int id, @ParamLog(inline = false) Object value, int result) {
+      return result;
+    }
+
+
+    @MethodLogging(span = SHOW)
+    public String traced(@SuppressWarnings("unused") int id, String name) {
+      return name;
+    }
+
+
+    @MethodLogging(span = SHOW)
+    public void tracedException(int id) {
+      throw new IllegalArgumentException(Integer.toString(id));
+    }
+
+
+    @MethodLogging(parameters = HIDE, span = SHOW)
+    public CompletableFuture<String> tracedAsync(CompletableFuture<String> future) {
+      return future;
+    }
+
+
+    @MethodLogging(parameters = HIDE, span = SHOW)
+    public Stream<String> tracedStream(String... elements) {
+      return Arrays.stream(elements);
+    }
+  }
+
+
+
+
+  @Component
+  @MethodLoggingConfig(lineNumber = HIDE)
+  public static class MyCallerBean
+  {
+    @Autowired private MyBean myBean;
+
+
+    @MethodLogging(exclude = "runnable")
+    public void call(@NotNull Runnable runnable) {
+      runnable.run();
+    }
+
+
+    @MethodLogging
+    public void callException(int id) {
+      myBean.exception(id);
+    }
+
+
+    @MethodLogging
+    public String callName() {
+      return myBean.getName();
+    }
+
+
+    @MethodLogging
+    public int callResultConditional(int id) {
+      return myBean.resultConditional(id);
+    }
+
+
+    @MethodLogging(span = SHOW)
+    public String callTraced(int id) {
+      return myBean.traced(id, "Mr. Bean");
+    }
   }
 
 
@@ -245,6 +1491,18 @@ public class MethodLoggingTest
 
 
 
+  @Component
+  public static class TraceOnlyBean
+  {
+    @MethodLogging(entryExitLevel = TRACE, parameterLevel = TRACE, resultLevel = TRACE)
+    public int trace(int id) {
+      return id;
+    }
+  }
+
+
+
+
   @Component
   @Log
   public static class JULLoggerBean
@@ -259,7 +1517,7 @@ public class MethodLoggingTest
 
   @Configuration
   @EnableMethodLogging
-  @Import({ MyBean.class, JULLoggerBean.class })
+  @Import({ MyBean.class, MyCallerBean.class, JULLoggerBean.class, TraceOnlyBean.class })
   static class MyConfiguration implements MethodLoggingConfigurer
   {
     @Override
@@ -281,6 +1539,24 @@ public class MethodLoggingTest
     }
 
 
+    @Override
+    public @NotNull Level minimumLevel() {
+      return DEBUG;
+    }
+
+
+    @Override
+    public long parameterFormattingBudget() {
+      return 100;
+    }
+
+
+    @Override
+    public long parameterFormattingCooldown() {
+      return 200;
+    }
+
+
     @Bean
     @Scope(proxyMode = INTERFACES)
     public MyBeanIf myBeanIf() {
@@ -305,6 +1581,193 @@ public class MethodLoggingTest
 
 
 
+  @Configuration
+  static class AppenderConfiguration extends MyConfiguration
+  {
+    @Override
+    public ParameterAppender parameterAppender(@NotNull ResolvableType type,
+                                               @NotNull RenderLimits limits) {
+      return ParameterAppenders.forType(type, limits);
+    }
+  }
+
+
+
+
+  @Configuration
+  static class IndentConfiguration extends MyConfiguration
+  {
+    @Override
+    public @NotNull CallNesting callNesting() {
+      return CallNesting.INDENT;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class CallTreeConfiguration extends MyConfiguration
+  {
+    @Override
+    public @NotNull CallNesting callNesting() {
+      return CallNesting.COLLAPSE;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class MaxCallDepthConfiguration extends MyConfiguration
+  {
+    @Override
+    public int maxCallDepth() {
+      return 1;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class FlightRecorderConfiguration extends MyConfiguration
+  {
+    @Override
+    public int flightRecorderSize() {
+      return 4;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class LazyAnalysisConfiguration extends MyConfiguration
+  {
+    @Override
+    public int analysisParallelism() {
+      return 0;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class SmallCacheConfiguration extends LazyAnalysisConfiguration
+  {
+    @Override
+    public int methodDefinitionCacheSize() {
+      return 2;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class AnalysisCacheConfiguration extends MyConfiguration
+  {
+    static Path cacheFile;
+
+
+    @Override
+    public Path analysisCacheFile() {
+      return cacheFile;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class CollapsingConfiguration extends MyConfiguration
+  {
+    @Override
+    public long collapseRepeatedInvocations() {
+      return 60000;
+    }
+  }
+
+
+
+
+  @Configuration
+  static class TracingConfiguration extends MyConfiguration
+  {
+    @Bean
+    public InMemorySpanExporter spanExporter() {
+      return InMemorySpanExporter.create();
+    }
+
+
+    @Bean
+    public OpenTelemetry openTelemetry(InMemorySpanExporter spanExporter)
+    {
+      return OpenTelemetrySdk.builder()
+          .setTracerProvider(SdkTracerProvider.builder()
+              .addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+              .build())
+          .build();
+    }
+  }
+
+
+
+
+  static final class Value
+  {
+    private final String text;
+    private final long delay;
+
+
+    Value(String text, long delay)
+    {
+      this.text = text;
+      this.delay = delay;
+    }
+
+
+    @Override
+    public String toString()
+    {
+      if (delay > 0)
+      {
+        try {
+          Thread.sleep(delay);
+        } catch(InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      if (text == null)
+        throw new IllegalStateException();
+
+      return text;
+    }
+  }
+
+
+
+
+  static final class Unhashable
+  {
+    @Override
+    public int hashCode() {
+      throw new UnsupportedOperationException();
+    }
+
+
+    @Override
+    public String toString() {
+      return "unhashable";
+    }
+  }
+
+
+
+
   @Setter
   static final class MethodLoggerFactoryDelegate implements MethodLoggerFactory {
     @Delegate private MethodLoggerFactory factory;
@@ -315,7 +1778,7 @@ public class MethodLoggingTest
 
   public static final class ListMethodLoggerFactory implements MethodLoggerFactory
   {
-    final List<String> log = new ArrayList<>();
+    final List<String> log = synchronizedList(new ArrayList<>());
 
 
     @Override
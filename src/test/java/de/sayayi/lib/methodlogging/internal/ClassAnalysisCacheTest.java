@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@DisplayName("Class analysis cache")
+class ClassAnalysisCacheTest
+{
+  @Test
+  @DisplayName("Prune classes not used since the cache file was read")
+  void testPrune(@TempDir Path directory) throws Exception
+  {
+    final Path file = directory.resolve("method-logging.cache");
+
+    // first run: both classes are scanned and written
+    AnalysisCost analysisCost = new AnalysisCost();
+    ClassAnalysisCache cache = new ClassAnalysisCache(file, analysisCost);
+
+    cache.getMethodLocation(First.class.getMethod("first"));
+    cache.getMethodLocation(Second.class.getMethod("second"));
+    cache.store();
+
+    assertEquals(2, analysisCost.classFileScans.sum());
+    assertTrue(cacheFileContains(file, Second.class));
+
+    // second run: only the first class is used, so the second class is pruned
+    analysisCost = new AnalysisCost();
+    cache = new ClassAnalysisCache(file, analysisCost);
+
+    cache.getMethodLocation(First.class.getMethod("first"));
+    cache.store();
+
+    assertEquals(0, analysisCost.classFileScans.sum());
+    assertEquals(1, analysisCost.cachedClasses.sum());
+    assertTrue(cacheFileContains(file, First.class));
+    assertFalse(cacheFileContains(file, Second.class));
+
+    // third run: the second class is scanned again
+    analysisCost = new AnalysisCost();
+    cache = new ClassAnalysisCache(file, analysisCost);
+
+    cache.getMethodLocation(First.class.getMethod("first"));
+    cache.getMethodLocation(Second.class.getMethod("second"));
+
+    assertEquals(1, analysisCost.classFileScans.sum());
+    assertEquals(1, analysisCost.cachedClasses.sum());
+  }
+
+
+  private static boolean cacheFileContains(Path file, Class<?> type) throws Exception {
+    return new String(Files.readAllBytes(file), ISO_8859_1).contains(type.getName());
+  }
+
+
+
+
+  public static final class First
+  {
+    public void first() {
+    }
+  }
+
+
+
+
+  public static final class Second
+  {
+    public void second() {
+    }
+  }
+}
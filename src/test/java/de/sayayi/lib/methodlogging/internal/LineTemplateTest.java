@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static de.sayayi.lib.methodlogging.annotation.MethodLoggingConfig.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@DisplayName("Line template")
+class LineTemplateTest
+{
+  @Test
+  @DisplayName("Parse default formats")
+  void testDefaultFormats()
+  {
+    final LineTemplate inlineParameter =
+        LineTemplate.parse(DEFAULT_INLINE_PARAMETER_FORMAT, "parameter", "value");
+
+    assertNotNull(inlineParameter);
+    assertEquals("", inlineParameter.prefix);
+    assertEquals("=", inlineParameter.infix);
+    assertEquals("", inlineParameter.suffix);
+    assertFalse(inlineParameter.spacedValue);
+
+    final LineTemplate parameter =
+        LineTemplate.parse(DEFAULT_PARAMETER_FORMAT, "parameter", "value");
+
+    assertNotNull(parameter);
+    assertEquals("parameter '", parameter.prefix);
+    assertEquals("' = ", parameter.infix);
+    assertEquals("", parameter.suffix);
+    assertTrue(parameter.spacedValue);
+
+    final LineTemplate result = LineTemplate.parse(DEFAULT_RESULT_FORMAT, null, "result");
+
+    assertNotNull(result);
+    assertEquals("result = ", result.prefix);
+    assertEquals("", result.infix);
+    assertEquals("", result.suffix);
+    assertTrue(result.spacedValue);
+  }
+
+
+  @Test
+  @DisplayName("Leave other formats to the message support")
+  void testMessageFormats()
+  {
+    assertNull(LineTemplate.parse("%{value}=%{parameter}", "parameter", "value"));
+    assertNull(LineTemplate.parse("%{parameter}=%{value,clip}", "parameter", "value"));
+    assertNull(LineTemplate.parse("%{parameter}=%{value} %[unit]", "parameter", "value"));
+    assertNull(LineTemplate.parse("%{parameter}  =  %{value}", "parameter", "value"));
+    assertNull(LineTemplate.parse(" result: %{result}", null, "result"));
+    assertNull(LineTemplate.parse("result:\t%{result}", null, "result"));
+    assertNull(LineTemplate.parse("\\%{result}", null, "result"));
+  }
+}
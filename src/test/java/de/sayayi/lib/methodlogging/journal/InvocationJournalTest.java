@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.journal;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.Integer.toHexString;
+import static java.lang.System.identityHashCode;
+import static java.util.Collections.nCopies;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@DisplayName("Invocation journal")
+class InvocationJournalTest
+{
+  private static final String TIMESTAMP = "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{6}";
+  private static final Pattern TEXT_LINE = Pattern.compile(TIMESTAMP + " (.*)");
+  private static final Pattern CSV_LINE =
+      Pattern.compile("(\\d+)," + TIMESTAMP + ',' + TIMESTAMP + ",(.*)");
+  private static final String LONG_TEXT = String.join("", nCopies(10, "0123456789"));
+
+  @TempDir Path directory;
+
+
+  @Test
+  @DisplayName("Decode recorded invocations")
+  void testRoundTrip() throws IOException
+  {
+    final Object object = new Object();
+    final long thread = Thread.currentThread().getId();
+    final long nanos = System.nanoTime();
+
+    try(final InvocationJournal journal = new InvocationJournal(directory, 64 * 1024, 2)) {
+      final JournaledMethod process = journal.method("com.example.Service", "process",
+          new String[] { "i", "b", "l", "d", "c", "s", "e", "n", "t", "o" },
+          new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+      final JournaledMethod fail = journal.method("com.example.Service", "fail",
+          new String[0], new int[0]);
+
+      journal.record(process, nanos + 1000, nanos + 2000, null, new Object[] {
+          42, true, 7L, 1.5, 'c', "abc", TimeUnit.SECONDS, null, LONG_TEXT, object });
+      journal.record(fail, nanos + 3000, nanos + 5000, new IllegalStateException(),
+          new Object[0]);
+    }
+
+    final String parameters = "i=42,b=true,l=7,d=1.5,c=c,s=abc,e=SECONDS,n=null,t=" +
+        LONG_TEXT.substring(0, 64) + "...,o=Object@" + toHexString(identityHashCode(object));
+
+    assertEquals(Arrays.asList(
+        "[" + thread + "] com.example.Service > process(" + parameters + ')',
+        "[" + thread + "] com.example.Service < process (elapsed 0.001ms)",
+        "[" + thread + "] com.example.Service > fail",
+        "[" + thread + "] com.example.Service < fail (elapsed 0.002ms) -> " +
+            "java.lang.IllegalStateException"
+    ), decode(false, segment(1), TEXT_LINE));
+
+    final StringWriter csv = new StringWriter();
+    final JournalDecoder decoder = new JournalDecoder(true);
+
+    decoder.header(csv);
+    decoder.decode(segment(1), csv);
+
+    final String[] lines = csv.toString().split("\n");
+
+    assertEquals("thread,start,end,elapsed_ns,class,method,exception,parameters", lines[0]);
+    assertEquals(Arrays.asList(
+        thread + ",1000,com.example.Service,process,,\"" + parameters + '"',
+        thread + ",2000,com.example.Service,fail,java.lang.IllegalStateException,"
+    ), decode(true, segment(1), CSV_LINE));
+  }
+
+
+  @Test
+  @DisplayName("Repeat definitions in each segment")
+  void testSegmentRotation() throws IOException
+  {
+    final long nanos = System.nanoTime();
+
+    try(final InvocationJournal journal = new InvocationJournal(directory, 64 * 1024, 4)) {
+      final JournaledMethod method = journal.method("com.example.Service", "process",
+          new String[] { "s", "e" }, new int[] { 0, 1 });
+
+      for(int n = 0; n < 3000; n++)
+      {
+        journal.record(method, nanos + n * 10L, nanos + n * 10L + 5, null,
+            new Object[] { "hello", TimeUnit.SECONDS });
+      }
+    }
+
+    final List<Path> segments = InvocationJournal.listSegments(directory);
+    assertTrue(segments.size() > 1);
+
+    int entries = 0;
+
+    for(final Path segment: segments)
+    {
+      final List<String> lines = decode(false, segment, TEXT_LINE);
+      assertFalse(lines.isEmpty());
+
+      for(int n = 0; n < lines.size(); n += 2)
+      {
+        assertTrue(lines.get(n).endsWith(" com.example.Service > process(s=hello,e=SECONDS)"));
+        entries++;
+      }
+    }
+
+    assertEquals(3000, entries);
+  }
+
+
+  @Test
+  @DisplayName("Truncate arguments exceeding the record size")
+  void testArgumentOverflow() throws IOException
+  {
+    final String[] names = new String[100];
+    final int[] indices = new int[100];
+    final Object[] arguments = new Object[100];
+
+    for(int n = 0; n < 100; n++)
+    {
+      names[n] = "p" + n;
+      indices[n] = n;
+      arguments[n] = LONG_TEXT;
+    }
+
+    try(final InvocationJournal journal = new InvocationJournal(directory, 64 * 1024, 1)) {
+      final long nanos = System.nanoTime();
+
+      journal.record(journal.method("com.example.Service", "process", names, indices),
+          nanos, nanos + 1000, null, arguments);
+    }
+
+    final String entry = decode(false, segment(1), TEXT_LINE).get(0);
+    final Matcher parameter = Pattern.compile("p(\\d+)=" + LONG_TEXT.substring(0, 64) +
+        "\\.\\.\\.[,)]").matcher(entry);
+    int count = 0;
+
+    while(parameter.find())
+      assertEquals(count++, Integer.parseInt(parameter.group(1)));
+
+    // 4096 byte record: 34 byte invocation header, 71 bytes per truncated text argument
+    assertEquals((4096 - 34) / 71, count);
+    assertTrue(entry.endsWith("...)"));
+  }
+
+
+  @Test
+  @DisplayName("Decode truncated segment up to last complete record")
+  void testTruncatedSegment() throws IOException
+  {
+    final long nanos = System.nanoTime();
+
+    try(final InvocationJournal journal = new InvocationJournal(directory, 64 * 1024, 1)) {
+      final JournaledMethod method = journal.method("com.example.Service", "process",
+          new String[] { "i" }, new int[] { 0 });
+
+      journal.record(method, nanos, nanos + 1000, null, new Object[] { 1 });
+      journal.record(method, nanos + 2000, nanos + 3000, null, new Object[] { 0x7f7f7f7f });
+    }
+
+    final byte[] data = Files.readAllBytes(segment(1));
+    int length = data.length;
+
+    while(data[length - 1] == 0)
+      length--;
+
+    final Path truncated = directory.resolve("truncated.mlj");
+    Files.write(truncated, Arrays.copyOf(data, length - 3));
+
+    final List<String> lines = decode(false, truncated, TEXT_LINE);
+
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).endsWith(" com.example.Service > process(i=1)"));
+  }
+
+
+  private @NotNull Path segment(int number) {
+    return directory.resolve(String.format("journal-%06d.mlj", number));
+  }
+
+
+  private static @NotNull List<String> decode(boolean csv, @NotNull Path segment,
+                                              @NotNull Pattern line) throws IOException
+  {
+    final StringWriter out = new StringWriter();
+
+    new JournalDecoder(csv).decode(segment, out);
+
+    return Arrays.stream(out.toString().split("\n"))
+        .filter(s -> !s.isEmpty())
+        .map(s -> {
+          final Matcher matcher = line.matcher(s);
+          assertTrue(matcher.matches(), s);
+          return matcher.groupCount() == 1 ? matcher.group(1) : matcher.group(1) + ',' +
+              matcher.group(2);
+        })
+        .collect(toList());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.methodlogging.logger;
+
+import de.sayayi.lib.methodlogging.annotation.MethodLogging.Level;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Level.DEBUG;
+import static de.sayayi.lib.methodlogging.annotation.MethodLogging.Level.INFO;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 0.4.4
+ */
+@DisplayName("Log level cache")
+class LogLevelCacheTest
+{
+  @Test
+  @DisplayName("Invalidate cached levels")
+  void testInvalidate()
+  {
+    final ThresholdLogger logger = new ThresholdLogger();
+
+    assertTrue(logger.isLogEnabled(INFO));
+    assertFalse(logger.isLogEnabled(DEBUG));
+
+    logger.threshold = DEBUG;
+
+    // cached
+    assertFalse(logger.isLogEnabled(DEBUG));
+    assertEquals(2, logger.checks);
+
+    LogLevelCache.invalidate();
+
+    assertTrue(logger.isLogEnabled(DEBUG));
+    assertTrue(logger.isLogEnabled(INFO));
+    assertEquals(4, logger.checks);
+  }
+
+
+  @Test
+  @DisplayName("Do not cache jdk logging levels")
+  void testJdkLogging()
+  {
+    final Logger julLogger = Logger.getLogger(LogLevelCacheTest.class.getName());
+    final JULLogger logger = new JULLogger(julLogger);
+
+    try {
+      julLogger.setLevel(java.util.logging.Level.INFO);
+
+      assertTrue(logger.isLogEnabled(INFO));
+      assertFalse(logger.isLogEnabled(DEBUG));
+
+      julLogger.setLevel(java.util.logging.Level.FINE);
+
+      assertTrue(logger.isLogEnabled(DEBUG));
+      assertFalse(logger.isLogEnabled(Level.DEFAULT));
+    } finally {
+      julLogger.setLevel(null);
+    }
+  }
+
+
+
+
+  private static final class ThresholdLogger extends LevelCachingMethodLogger
+  {
+    Level threshold = INFO;
+    int checks;
+
+
+    ThresholdLogger() {
+      super(new Object());
+    }
+
+
+    @Override
+    public void log(@NotNull Level level, String message) {
+    }
+
+
+    @Override
+    protected boolean isLevelEnabled(@NotNull Level level)
+    {
+      checks++;
+      return level.compareTo(threshold) >= 0;
+    }
+  }
+}